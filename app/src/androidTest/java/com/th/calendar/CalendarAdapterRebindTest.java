@@ -0,0 +1,207 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the rebinds caused by selection and today changes, which must only touch the cells of the
+ * days involved.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CalendarAdapterRebindTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+
+    @Test
+    public void selectionChange_rebindsOldAndNewDays() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                CountingAdapter adapter = createAdapter(false);
+                RecyclerView recyclerView = createRecyclerView(adapter);
+                int month = CalendarDates.yearMonth(2017, Calendar.JULY);
+                int firstDay = CalendarDates.firstEpochDay(month);
+                recyclerView.scrollToPosition(adapter.getMonthOffset(month) * CalendarSnapHelper.ITEM_PER_MONTH);
+                layout(recyclerView);
+
+                adapter.setSelectedDay(firstDay + 3);
+                assertRebinds(recyclerView, adapter, 1);
+                adapter.setSelectedDay(firstDay + 10);
+                assertRebinds(recyclerView, adapter, 2);
+                adapter.setSelectedDay(firstDay + 10);
+                assertRebinds(recyclerView, adapter, 0);
+                adapter.setSelectedDay(CalendarAdapter.NO_DAY);
+                assertRebinds(recyclerView, adapter, 1);
+            }
+        });
+    }
+
+    @Test
+    public void todayRollover_rebindsTwoCells() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                CountingAdapter adapter = createAdapter(false);
+                RecyclerView recyclerView = createRecyclerView(adapter);
+                // midnight of the last day of a month, both days on screen while scrolling
+                int month = CalendarDates.yearMonth(2017, Calendar.JULY);
+                int lastDay = CalendarDates.firstEpochDay(month) + CalendarDates.daysInMonth(month) - 1;
+                adapter.setToday(lastDay);
+                recyclerView.scrollToPosition(adapter.getMonthOffset(month) * CalendarSnapHelper.ITEM_PER_MONTH);
+                layout(recyclerView);
+                // half way to August, older months being on the left
+                recyclerView.scrollBy(WIDTH / 2, 0);
+                adapter.mBindCount = 0;
+                adapter.mPayloadBindCount = 0;
+                adapter.mNotifiedCount = 0;
+
+                adapter.setToday(lastDay + 1);
+                assertEquals(2, adapter.mNotifiedCount);
+                layout(recyclerView);
+                assertEquals(2, adapter.mBindCount);
+                assertEquals(2, adapter.mPayloadBindCount);
+                assertTrue(adapter.getItemCount() > 10000);
+            }
+        });
+    }
+
+    @Test
+    public void monthGridMode_rebindsMonthsOnly() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                CountingAdapter adapter = createAdapter(true);
+                RecyclerView recyclerView = createRecyclerView(adapter);
+                int month = CalendarDates.yearMonth(2017, Calendar.JULY);
+                recyclerView.scrollToPosition(adapter.getMonthOffset(month));
+                layout(recyclerView);
+
+                adapter.setSelectedDay(CalendarDates.firstEpochDay(month));
+                assertRebinds(recyclerView, adapter, 1);
+            }
+        });
+    }
+
+    @Test
+    public void rangeDragAcrossTwelveMonths_neverRefreshesEverything() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                CountingAdapter adapter = createAdapter(false);
+                RecyclerView recyclerView = createRecyclerView(adapter);
+                int month = CalendarDates.yearMonth(2017, Calendar.JULY);
+                int start = CalendarDates.firstEpochDay(month) + 9;
+                recyclerView.scrollToPosition(adapter.getMonthOffset(month) * CalendarSnapHelper.ITEM_PER_MONTH);
+                layout(recyclerView);
+                adapter.mNotifiedCount = 0;
+
+                for (int day = start; day <= start + 365; day++) {
+                    adapter.setSelectedRange(start, day);
+                    layout(recyclerView);
+                }
+                assertEquals(0, adapter.mFullRefreshCount);
+                // one month of cells per day dragged
+                assertEquals(366 * CalendarSnapHelper.ITEM_PER_MONTH, adapter.mNotifiedCount);
+            }
+        });
+    }
+
+    @Test
+    public void stableIds_followEpochDays() throws Exception {
+        CountingAdapter adapter = createAdapter(false);
+        int month = CalendarDates.yearMonth(2017, Calendar.JULY);
+        int day = CalendarDates.firstEpochDay(month) + 14;
+        int position = adapter.getDayPosition(day);
+        assertEquals(CalendarAdapter.DAY_ID_OFFSET + day, adapter.getItemId(position));
+
+        // moving the window moves the day but keeps its id
+        adapter.centerWindow(month + 100);
+        assertEquals(CalendarAdapter.DAY_ID_OFFSET + day, adapter.getItemId(adapter.getDayPosition(day)));
+        assertTrue(adapter.getDayPosition(day) != position);
+        assertTrue(adapter.hasStableIds());
+
+        // the day before the epoch, -1 without the offset
+        int lastDayOf1969 = CalendarDates.epochDay(1969, Calendar.DECEMBER, 31);
+        adapter.centerWindow(CalendarDates.yearMonth(1969, Calendar.DECEMBER));
+        long id = adapter.getItemId(adapter.getDayPosition(lastDayOf1969));
+        assertEquals(CalendarAdapter.DAY_ID_OFFSET - 1, id);
+        assertTrue(id != RecyclerView.NO_ID);
+    }
+
+    private static void assertRebinds(RecyclerView recyclerView, CountingAdapter adapter, int expected) {
+        adapter.mBindCount = 0;
+        adapter.mPayloadBindCount = 0;
+        layout(recyclerView);
+        assertEquals(expected, adapter.mBindCount);
+        assertEquals(expected, adapter.mPayloadBindCount);
+    }
+
+    private static CountingAdapter createAdapter(boolean monthGridMode) {
+        CountingAdapter adapter = new CountingAdapter();
+        Calendar startCalendar = Calendar.getInstance();
+        Calendar endCalendar = Calendar.getInstance();
+        startCalendar.set(1900, 0, 1);
+        endCalendar.set(2100, 0, 1);
+        adapter.setRange(startCalendar, endCalendar);
+        adapter.centerWindow(CalendarDates.yearMonth(2017, Calendar.JULY));
+        adapter.setDimensions(WIDTH / 7);
+        adapter.setMonthGridMode(monthGridMode);
+        return adapter;
+    }
+
+    private static RecyclerView createRecyclerView(final CountingAdapter adapter) {
+        Context context = InstrumentationRegistry.getTargetContext();
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new CalendarLayoutManager(adapter.getItemPerMonth()));
+        recyclerView.setAdapter(adapter);
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                adapter.mNotifiedCount += itemCount;
+            }
+
+            @Override
+            public void onChanged() {
+                adapter.mFullRefreshCount++;
+            }
+        });
+        layout(recyclerView);
+        return recyclerView;
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static class CountingAdapter extends CalendarAdapter {
+
+        int mBindCount;
+        int mPayloadBindCount;
+        int mNotifiedCount;
+        int mFullRefreshCount;
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+            mBindCount++;
+            if (payloads.contains(PAYLOAD_DAY_STATE)) {
+                mPayloadBindCount++;
+            }
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+}
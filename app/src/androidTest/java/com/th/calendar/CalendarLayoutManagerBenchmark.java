@@ -0,0 +1,98 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the layout time of a fling across months between {@link CalendarLayoutManager} and the
+ * 13 spans reverse {@link GridLayoutManager} it replaces.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CalendarLayoutManagerBenchmark {
+
+    private static final String TAG = "CalendarLayoutBenchmark";
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+    private static final int MONTH_PER_FLING = 12;
+    private static final int FRAME_PER_MONTH = 16;
+    private static final int FLING_COUNT = 5;
+
+    @Test
+    public void flingLayoutTime() throws Exception {
+        final long[] results = new long[2];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getTargetContext();
+                // warm up both before measuring
+                measureFlings(context, createGridLayoutManager(context));
+                measureFlings(context, new CalendarLayoutManager(CalendarSnapHelper.ITEM_PER_MONTH));
+                results[0] = measureFlings(context, createGridLayoutManager(context));
+                results[1] = measureFlings(context, new CalendarLayoutManager(CalendarSnapHelper.ITEM_PER_MONTH));
+            }
+        });
+
+        Log.i(TAG, "GridLayoutManager: " + results[0] / FLING_COUNT / 1000 + " us per fling");
+        Log.i(TAG, "CalendarLayoutManager: " + results[1] / FLING_COUNT / 1000 + " us per fling");
+        assertTrue(results[0] > 0 && results[1] > 0);
+    }
+
+    private static GridLayoutManager createGridLayoutManager(Context context) {
+        GridLayoutManager layoutManager = new GridLayoutManager(context, 13, LinearLayoutManager.HORIZONTAL, true);
+        layoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return position % 7 == 0 ? 1 : 2;
+            }
+        });
+        return layoutManager;
+    }
+
+    /**
+     * @return nanoseconds spent scrolling {@link #FLING_COUNT} times across {@link #MONTH_PER_FLING} months.
+     */
+    private static long measureFlings(Context context, RecyclerView.LayoutManager layoutManager) {
+        RecyclerView recyclerView = new RecyclerView(context);
+        CalendarAdapter adapter = new CalendarAdapter();
+        Calendar startCalendar = Calendar.getInstance();
+        Calendar endCalendar = Calendar.getInstance();
+        startCalendar.set(1900, 0, 1);
+        endCalendar.set(2100, 0, 1);
+        adapter.setRange(startCalendar, endCalendar);
+        adapter.centerWindow(CalendarDates.yearMonth(endCalendar));
+        adapter.setDimensions(WIDTH / 7);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        layout(recyclerView);
+
+        int step = WIDTH / FRAME_PER_MONTH;
+        long start = System.nanoTime();
+        for (int fling = 0; fling < FLING_COUNT; fling++) {
+            // alternate directions, the adapter starts on its last month
+            int dx = fling % 2 == 0 ? -step : step;
+            for (int frame = 0; frame < MONTH_PER_FLING * FRAME_PER_MONTH; frame++) {
+                recyclerView.scrollBy(dx, 0);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
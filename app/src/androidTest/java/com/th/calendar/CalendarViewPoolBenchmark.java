@@ -0,0 +1,110 @@
+package com.th.calendar;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Calendar;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the time to the first frame of a month page, from setting the adapter to drawing the
+ * laid out page, between the default pool of {@link RecyclerView} and a prewarmed
+ * {@link CalendarViewPool}. The default pool run only uses the adapter, so that it can be run on
+ * older commits for a baseline.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CalendarViewPoolBenchmark {
+
+    private static final String TAG = "CalendarViewPoolBench";
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+    private static final int RUN_COUNT = 10;
+
+    @Test
+    public void firstFrameTime() throws Exception {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        // warm up the classes before measuring
+        measureFirstFrame(instrumentation, null);
+        measureFirstFrame(instrumentation, prewarm(instrumentation).getRecycledViewPool());
+
+        long[] cold = new long[RUN_COUNT];
+        long[] warm = new long[RUN_COUNT];
+        for (int i = 0; i < RUN_COUNT; i++) {
+            cold[i] = measureFirstFrame(instrumentation, null);
+            // the first layout takes the views of the pool, each run needs a fresh one
+            warm[i] = measureFirstFrame(instrumentation, prewarm(instrumentation).getRecycledViewPool());
+        }
+        Arrays.sort(cold);
+        Arrays.sort(warm);
+
+        Log.i(TAG, "default pool: " + cold[RUN_COUNT / 2] / 1000 + " us median, " + cold[RUN_COUNT - 1] / 1000
+                + " us max to the first frame");
+        Log.i(TAG, "prewarmed pool: " + warm[RUN_COUNT / 2] / 1000 + " us median, " + warm[RUN_COUNT - 1] / 1000
+                + " us max to the first frame");
+        assertTrue(cold[0] > 0 && warm[0] > 0);
+    }
+
+    private static CalendarViewPool prewarm(Instrumentation instrumentation) {
+        final CalendarViewPool pool = new CalendarViewPool();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pool.prewarm(InstrumentationRegistry.getTargetContext());
+            }
+        });
+        // every idle pass creates a week
+        while (pool.isPrewarming()) {
+            instrumentation.waitForIdleSync();
+        }
+        return pool;
+    }
+
+    /**
+     * @param pool Pool of the recycler view, or {@code null} for its default one.
+     * @return nanoseconds from setting the adapter to the end of the first draw.
+     */
+    private static long measureFirstFrame(Instrumentation instrumentation, final RecyclerView.RecycledViewPool pool) {
+        final long[] result = new long[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getTargetContext();
+                RecyclerView recyclerView = new RecyclerView(context);
+                if (pool != null) {
+                    recyclerView.setRecycledViewPool(pool);
+                }
+                CalendarAdapter adapter = new CalendarAdapter();
+                Calendar startCalendar = Calendar.getInstance();
+                Calendar endCalendar = Calendar.getInstance();
+                startCalendar.set(1900, 0, 1);
+                endCalendar.set(2100, 0, 1);
+                adapter.setRange(startCalendar, endCalendar);
+                adapter.centerWindow(CalendarDates.yearMonth(2017, Calendar.JULY));
+                adapter.setDimensions(WIDTH / 7);
+                recyclerView.setLayoutManager(new CalendarLayoutManager(adapter.getItemPerMonth()));
+                Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+                long start = System.nanoTime();
+                recyclerView.setAdapter(adapter);
+                recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                recyclerView.layout(0, 0, WIDTH, HEIGHT);
+                recyclerView.draw(canvas);
+                result[0] = System.nanoTime() - start;
+            }
+        });
+        return result[0];
+    }
+}
@@ -0,0 +1,80 @@
+package com.th.calendar;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lays out a month page with an empty {@link CalendarViewPool} and with a prewarmed one, counting
+ * the views each first layout creates.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CalendarViewPoolTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+
+    @Test
+    public void prewarmedPool_firstLayoutCreatesNothing() throws Exception {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        int coldCreates = layOutFirstMonth(instrumentation, new CalendarViewPool());
+
+        final CalendarViewPool pool = new CalendarViewPool();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pool.prewarm(InstrumentationRegistry.getTargetContext());
+            }
+        });
+        // every idle pass creates a week
+        while (pool.isPrewarming()) {
+            instrumentation.waitForIdleSync();
+        }
+        int warmCreates = layOutFirstMonth(instrumentation, pool);
+
+        assertTrue(coldCreates > 0);
+        assertEquals(0, warmCreates);
+    }
+
+    /**
+     * @return holders created by the first layout.
+     */
+    private static int layOutFirstMonth(Instrumentation instrumentation, final CalendarViewPool pool) {
+        final int[] createCount = new int[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getTargetContext();
+                RecyclerView recyclerView = new RecyclerView(context);
+                recyclerView.setRecycledViewPool(pool.getRecycledViewPool());
+                CalendarAdapter adapter = new CalendarAdapter();
+                Calendar startCalendar = Calendar.getInstance();
+                Calendar endCalendar = Calendar.getInstance();
+                startCalendar.set(1900, 0, 1);
+                endCalendar.set(2100, 0, 1);
+                adapter.setRange(startCalendar, endCalendar);
+                adapter.centerWindow(CalendarDates.yearMonth(2017, Calendar.JULY));
+                adapter.setDimensions(WIDTH / 7);
+                recyclerView.setLayoutManager(new CalendarLayoutManager(adapter.getItemPerMonth()));
+
+                recyclerView.setAdapter(adapter);
+                recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                recyclerView.layout(0, 0, WIDTH, HEIGHT);
+                createCount[0] = adapter.getCreateCount();
+            }
+        });
+        return createCount[0];
+    }
+}
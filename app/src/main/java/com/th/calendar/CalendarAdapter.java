@@ -1,67 +1,139 @@
 package com.th.calendar;
 
 import android.content.Context;
+import android.support.v7.widget.AppCompatTextView;
 import android.support.v7.widget.RecyclerView;
-import android.view.LayoutInflater;
+import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import java.util.Calendar;
+import java.util.List;
 
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
 import static com.th.calendar.CalendarSnapHelper.ITEM_PER_MONTH;
 
 class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
-    static final int MONTH_PER_YEAR = 12;
     static final int TYPE_TITLE = 0;
     static final int TYPE_DAY = 1;
-    private static final int DAY_PER_WEEK = 7;
-    private Calendar mStartCalendar;
-    private Calendar mEndCalendar;
-    private int[] mCalendarMatrix = new int[49];
+    static final int TYPE_MONTH = 2;
+    // rebinds the event dots only
+    static final Object PAYLOAD_EVENTS = new Object();
+    // rebinds the selection, range, disabled and today states only
+    static final Object PAYLOAD_DAY_STATE = new Object();
+    // rebinds the heatmap colors only
+    static final Object PAYLOAD_HEATMAP = new Object();
+    static final int NO_DAY = CalendarDates.NO_DAY;
+    // added to epoch days for day ids from 0 up, 1969-12-31 otherwise getting RecyclerView.NO_ID
+    static final long DAY_ID_OFFSET = -(long) Integer.MIN_VALUE;
+    // stable ids of the items not showing a day, above every day id
+    private static final long NON_DAY_ID_BASE = 1L << 32;
+    private static final long MONTH_ID_BASE = 1L << 40;
+    // months in the position window, and how close to its edges the window gets moved
+    static final int WINDOW_MONTH = 600;
+    static final int WINDOW_MARGIN_MONTH = 120;
+
+    private int mMinMonth = CalendarDates.MIN_MONTH;
+    private int mMaxMonth = CalendarDates.MAX_MONTH;
+    // months currently mapped to positions, position 0 being in mEndMonth
+    private int mStartMonth;
+    private int mEndMonth = -1;
+    private final MonthTable mMonthTable = new MonthTable();
+    private final int[] mCalendarMatrix = CalendarMatrix.create();
+    // inverse of mCalendarMatrix: item of each day position in the month
+    private final int[] mDayItems = CalendarMatrix.invert(mCalendarMatrix);
     private int mItemWidth;
+    // day of the week of the first column, 0 being Sunday
+    private int mWeekStart;
+    // labels of mWeekStart, looked up on the first bind
+    private CalendarLabels mLabels;
+    // ITEM_PER_MONTH cells, or a single MonthGridView in month grid mode
+    private int mItemPerMonth = ITEM_PER_MONTH;
+    private OnDayClickListener mOnDayClickListener;
+    private EventIndex mEventIndex;
+    private RecurringEvents mRecurringEvents;
+    private EventOverlay mEventOverlay;
+    private Heatmap mHeatmap;
+    private MonthDataScheduler mMonthDataScheduler;
+    private int mSelectedDay = NO_DAY;
+    private int mToday = NO_DAY;
+    // holders created and bound so far, read by the scroll performance tests
+    private int mCreateCount;
+    private int mBindCount;
+    // null unless a metrics listener is set, a single field check per bind otherwise
+    private CalendarMetrics mMetrics;
+    private final DayMasks mDayMasks = new DayMasks(new DayMasks.Listener() {
+        @Override
+        public void onMonthMaskChanged(int monthOffset) {
+            notifyItemRangeChanged(monthOffset * mItemPerMonth, mItemPerMonth, PAYLOAD_DAY_STATE);
+        }
+    });
 
     CalendarAdapter() {
-        int[][] matrix = new int[7][7];
-        for (int i = 0; i < 7; i++) {
-            for (int j = 0; j < 7; j++) {
-                matrix[i][j] = i * 7 + j;
-            }
-        }
+        setHasStableIds(true);
+    }
 
-        // rotate -90
-        int[][] rotateMatrix = new int[7][7];
-        for (int i = 0; i < 7; i++) {
-            for (int j = 0; j < 7; j++) {
-                rotateMatrix[i][j] = matrix[j][6 - i];
-            }
+    /**
+     * Days keep their epoch day, offset by {@link #DAY_ID_OFFSET}, as id whatever the window, the
+     * other items get ids above every day id.
+     */
+    @Override
+    public long getItemId(int position) {
+        int monthOffset = position / mItemPerMonth;
+        if (mItemPerMonth == 1) {
+            return MONTH_ID_BASE + mEndMonth - monthOffset;
         }
-
-        // translate y + 1
-        for (int i = 0; i < 7; i++) {
-            System.arraycopy(rotateMatrix[i], 0, mCalendarMatrix, i * 7 + 1, 6);
+        int item = position % ITEM_PER_MONTH;
+        int dayOfMonth = item % DAY_PER_WEEK == 0 ? 0 : mMonthTable.getDayOfMonth(monthOffset, mCalendarMatrix[item]);
+        if (dayOfMonth != 0) {
+            return DAY_ID_OFFSET + mMonthTable.getFirstEpochDay(monthOffset) + dayOfMonth - 1;
         }
+        return NON_DAY_ID_BASE + (long) (mEndMonth - monthOffset) * ITEM_PER_MONTH + item;
     }
 
     @Override
     public int getItemViewType(int position) {
+        if (mItemPerMonth == 1) {
+            return TYPE_MONTH;
+        }
         return position % DAY_PER_WEEK == 0 ? TYPE_TITLE : TYPE_DAY;
     }
 
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        mCreateCount++;
+        if (mMetrics == null) {
+            return newViewHolder(parent, viewType);
+        }
+        long start = System.nanoTime();
+        RecyclerView.ViewHolder holder = newViewHolder(parent, viewType);
+        mMetrics.onCreateViewHolder(viewType, System.nanoTime() - start);
+        return holder;
+    }
+
+    /**
+     * Build the views in code, faster than inflating them from XML.
+     */
+    private RecyclerView.ViewHolder newViewHolder(ViewGroup parent, int viewType) {
         Context context = parent.getContext();
         switch (viewType) {
             case TYPE_TITLE:
-                View titleView = LayoutInflater.from(context).inflate(R.layout.title_view_holder, parent, false);
-                titleView.getLayoutParams().width = mItemWidth;
+                TextView titleView = new AppCompatTextView(context);
+                titleView.setGravity(Gravity.CENTER);
+                titleView.setLayoutParams(new RecyclerView.LayoutParams(mItemWidth, ViewGroup.LayoutParams.MATCH_PARENT));
                 return new CalendarAdapter.TitleViewHolder(titleView);
+            case TYPE_MONTH:
+                MonthGridView monthView = new MonthGridView(context);
+                monthView.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+                return new MonthViewHolder(monthView);
             case TYPE_DAY:
             default:
-                View itemView = LayoutInflater.from(context).inflate(R.layout.day_view_holder, parent, false);
-                itemView.getLayoutParams().width = mItemWidth;
-                return new DayViewHolder(itemView);
+                DayView dayView = new DayView(context);
+                dayView.setGravity(Gravity.CENTER);
+                dayView.setLayoutParams(new RecyclerView.LayoutParams(mItemWidth, ViewGroup.LayoutParams.MATCH_PARENT));
+                return new DayViewHolder(dayView);
         }
     }
 
@@ -69,76 +141,569 @@ class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
         switch (holder.getItemViewType()) {
             case TYPE_TITLE:
-                String title = "";
-                switch (position / DAY_PER_WEEK % DAY_PER_WEEK) {
-                    case 0:
-                        title = "S";
-                        break;
-                    case 1:
-                        title = "F";
-                        break;
-                    case 2:
-                        title = "T";
-                        break;
-                    case 3:
-                        title = "W";
-                        break;
-                    case 4:
-                        title = "T";
-                        break;
-                    case 5:
-                        title = "M";
-                        break;
-                    case 6:
-                        title = "S";
-                        break;
-                }
-                ((TitleViewHolder) holder).title.setText(title);
+                // columns start from the right
+                ((TitleViewHolder) holder).setTitle(getLabels(holder).getWeekdayTitle(DAY_PER_WEEK - 1 - position / DAY_PER_WEEK % DAY_PER_WEEK));
                 break;
             case TYPE_DAY:
-                Calendar calendar = getFirstDayOfMonth(position);
-
-                int firstDayIndex = calendar.get(Calendar.DAY_OF_WEEK) - 1;
-                int dayPosition = mCalendarMatrix[position % ITEM_PER_MONTH];
-                if (dayPosition >= firstDayIndex && dayPosition < calendar.getActualMaximum(Calendar.DAY_OF_MONTH) + firstDayIndex) {
+                ((DayViewHolder) holder).adapter = this;
+                int monthOffset = position / ITEM_PER_MONTH;
+                int dayOfMonth = mMonthTable.getDayOfMonth(monthOffset, mCalendarMatrix[position % ITEM_PER_MONTH]);
+                if (dayOfMonth != 0) {
                     ((DayViewHolder) holder).day.setVisibility(View.VISIBLE);
-                    ((DayViewHolder) holder).day.setText(String.valueOf(calendar.get(Calendar.DAY_OF_MONTH) + dayPosition - firstDayIndex));
+                    ((DayViewHolder) holder).day.setDayLabel(getLabels(holder).getDayLabel(dayOfMonth));
+                    bindDayEvents((DayViewHolder) holder, monthOffset, dayOfMonth);
+                    bindDayState((DayViewHolder) holder, monthOffset, dayOfMonth);
+                    ((DayViewHolder) holder).day.setHeatColor(getHeatColor(monthOffset, dayOfMonth));
                 } else {
                     ((DayViewHolder) holder).day.setVisibility(View.INVISIBLE);
                 }
                 break;
+            case TYPE_MONTH:
+                ((MonthViewHolder) holder).adapter = this;
+                ((MonthViewHolder) holder).month.setLabels(getLabels(holder));
+                ((MonthViewHolder) holder).month.setMonth(mMonthTable.getFirstDayColumn(position), mMonthTable.getDaysInMonth(position));
+                bindMonthEvents((MonthViewHolder) holder, position);
+                bindMonthState((MonthViewHolder) holder, position);
+                bindMonthHeatmap((MonthViewHolder) holder, position);
+                break;
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+        mBindCount++;
+        if (mMetrics == null) {
+            bindPayloads(holder, position, payloads);
+            return;
+        }
+        long start = System.nanoTime();
+        bindPayloads(holder, position, payloads);
+        mMetrics.onBindViewHolder(System.nanoTime() - start);
+    }
+
+    private void bindPayloads(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // indexed loop, no iterator per bind
+        for (int i = 0, size = payloads.size(); i < size; i++) {
+            Object payload = payloads.get(i);
+            switch (holder.getItemViewType()) {
+                case TYPE_DAY:
+                    int monthOffset = position / ITEM_PER_MONTH;
+                    int dayOfMonth = mMonthTable.getDayOfMonth(monthOffset, mCalendarMatrix[position % ITEM_PER_MONTH]);
+                    if (dayOfMonth == 0) {
+                        break;
+                    }
+                    if (payload == PAYLOAD_EVENTS) {
+                        bindDayEvents((DayViewHolder) holder, monthOffset, dayOfMonth);
+                    } else if (payload == PAYLOAD_DAY_STATE) {
+                        bindDayState((DayViewHolder) holder, monthOffset, dayOfMonth);
+                    } else if (payload == PAYLOAD_HEATMAP) {
+                        ((DayViewHolder) holder).day.setHeatColor(getHeatColor(monthOffset, dayOfMonth));
+                    }
+                    break;
+                case TYPE_MONTH:
+                    if (payload == PAYLOAD_EVENTS) {
+                        bindMonthEvents((MonthViewHolder) holder, position);
+                    } else if (payload == PAYLOAD_DAY_STATE) {
+                        bindMonthState((MonthViewHolder) holder, position);
+                    } else if (payload == PAYLOAD_HEATMAP) {
+                        bindMonthHeatmap((MonthViewHolder) holder, position);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void bindDayEvents(DayViewHolder holder, int monthOffset, int dayOfMonth) {
+        holder.day.setEventCount(getEventCount(monthOffset, dayOfMonth));
+        holder.day.setEventColor(getEventColor(monthOffset, dayOfMonth));
+    }
+
+    private void bindDayState(DayViewHolder holder, int monthOffset, int dayOfMonth) {
+        int epochDay = mMonthTable.getFirstEpochDay(monthOffset) + dayOfMonth - 1;
+        holder.day.setEnabled(!mDayMasks.isDisabled(monthOffset, dayOfMonth));
+        holder.day.setDayState(epochDay == mSelectedDay || mDayMasks.isInRange(monthOffset, dayOfMonth), epochDay == mToday);
+    }
+
+    private void bindMonthState(MonthViewHolder holder, int monthOffset) {
+        int selectedDay = getDayOfMonth(monthOffset, mSelectedDay);
+        int selectedMask = mDayMasks.getRangeMask(monthOffset) | (selectedDay == 0 ? 0 : 1 << (selectedDay - 1));
+        holder.month.setDayState(selectedMask, mDayMasks.getDisabledMask(monthOffset), getDayOfMonth(monthOffset, mToday));
+    }
+
+    /**
+     * @return day of month of {@code epochDay} in the month at {@code monthOffset}, or {@code 0}
+     * when in another month.
+     */
+    private int getDayOfMonth(int monthOffset, int epochDay) {
+        if (epochDay == NO_DAY) {
+            return 0;
+        }
+        int dayOfMonth = epochDay - mMonthTable.getFirstEpochDay(monthOffset) + 1;
+        return dayOfMonth >= 1 && dayOfMonth <= mMonthTable.getDaysInMonth(monthOffset) ? dayOfMonth : 0;
+    }
+
+    private void bindMonthEvents(MonthViewHolder holder, int monthOffset) {
+        for (int day = 1, daysInMonth = mMonthTable.getDaysInMonth(monthOffset); day <= daysInMonth; day++) {
+            holder.month.setEventCount(day, getEventCount(monthOffset, day));
+            holder.month.setEventColor(day, getEventColor(monthOffset, day));
+        }
+    }
+
+    private void bindMonthHeatmap(MonthViewHolder holder, int monthOffset) {
+        for (int day = 1, daysInMonth = mMonthTable.getDaysInMonth(monthOffset); day <= daysInMonth; day++) {
+            holder.month.setHeatColor(day, getHeatColor(monthOffset, day));
+        }
+    }
+
+    private int getHeatColor(int monthOffset, int dayOfMonth) {
+        return mHeatmap == null ? 0 : mHeatmap.getColor(mMonthTable.getFirstEpochDay(monthOffset) + dayOfMonth - 1);
+    }
+
+    /**
+     * @return events of the event index, recurring events and event overlay, plus the ones loaded
+     * for the month.
+     */
+    private int getEventCount(int monthOffset, int dayOfMonth) {
+        int eventCount = mEventIndex == null ? 0 : mEventIndex.getEventCount(mMonthTable.getFirstEpochDay(monthOffset) + dayOfMonth - 1);
+        if (mRecurringEvents != null) {
+            // expanded on the first bind of the month
+            eventCount += mRecurringEvents.getMonthCounts(mEndMonth - monthOffset)[dayOfMonth - 1];
+        }
+        if (mMonthDataScheduler != null) {
+            int[] monthData = mMonthDataScheduler.getMonthData(mEndMonth - monthOffset);
+            if (monthData != null && dayOfMonth <= monthData.length) {
+                eventCount += monthData[dayOfMonth - 1];
+            }
         }
+        if (mEventOverlay != null) {
+            int[] summary = getOverlaySummary(monthOffset);
+            if (summary != null) {
+                eventCount += summary[dayOfMonth - 1];
+            }
+        }
+        return eventCount;
+    }
+
+    /**
+     * @return color of the event dots of the day, or {@code 0} for the accent color.
+     */
+    private int getEventColor(int monthOffset, int dayOfMonth) {
+        int[] summary = mEventOverlay == null ? null : getOverlaySummary(monthOffset);
+        return summary == null ? 0 : mEventOverlay.getColor(summary, dayOfMonth);
+    }
+
+    /**
+     * @return summary of the month from the event overlay, or {@code null} until merged. Months
+     * are requested as they get current or prefetched, never while binding.
+     */
+    private int[] getOverlaySummary(int monthOffset) {
+        return mEventOverlay.getMonthSummary(mEndMonth - monthOffset);
     }
 
     @Override
     public int getItemCount() {
-        if (mStartCalendar == null || mEndCalendar == null) return 0;
-        return ((mEndCalendar.get(Calendar.YEAR) - mStartCalendar.get(Calendar.YEAR)) * MONTH_PER_YEAR + mEndCalendar.get(Calendar.MONTH) - mStartCalendar.get(Calendar.MONTH) + 1) * ITEM_PER_MONTH;
+        return mMonthTable.getMonthCount() * mItemPerMonth;
+    }
+
+    /**
+     * @return packed year-month of the month containing {@code position}, see
+     * {@link CalendarDates#yearMonth(int, int)}.
+     */
+    int getMonth(int position) {
+        return mEndMonth - position / mItemPerMonth;
+    }
+
+    int getItemPerMonth() {
+        return mItemPerMonth;
+    }
+
+    boolean isMonthGridMode() {
+        return mItemPerMonth == 1;
+    }
+
+    /**
+     * Switch between one item per day cell and weekday title, and one {@link MonthGridView} item
+     * per month.
+     */
+    void setMonthGridMode(boolean monthGridMode) {
+        int itemPerMonth = monthGridMode ? 1 : ITEM_PER_MONTH;
+        if (mItemPerMonth != itemPerMonth) {
+            mItemPerMonth = itemPerMonth;
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * @param eventIndex Events to show under the days, or {@code null} for none.
+     */
+    void setEventIndex(EventIndex eventIndex) {
+        mEventIndex = eventIndex;
+        notifyEventsChanged();
+    }
+
+    /**
+     * @param recurringEvents Recurring events to show under the days, or {@code null} for none.
+     */
+    void setRecurringEvents(RecurringEvents recurringEvents) {
+        mRecurringEvents = recurringEvents;
+        notifyEventsChanged();
+    }
+
+    /**
+     * @param eventOverlay Sources of events to show under the days, or {@code null} for none.
+     */
+    void setEventOverlay(EventOverlay eventOverlay) {
+        mEventOverlay = eventOverlay;
+        notifyEventsChanged();
+    }
+
+    /**
+     * @param heatmap Colors of the days, or {@code null} for none.
+     */
+    void setHeatmap(Heatmap heatmap) {
+        mHeatmap = heatmap;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_HEATMAP);
+    }
+
+    void setMonthDataScheduler(MonthDataScheduler monthDataScheduler) {
+        mMonthDataScheduler = monthDataScheduler;
+        notifyEventsChanged();
+    }
+
+    /**
+     * Rebind the events of every item, after the events of some months changed.
+     */
+    void notifyEventsChanged() {
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_EVENTS);
+    }
+
+    /**
+     * Rebind the items of {@code month} only, if it is mapped to positions.
+     */
+    void notifyMonthChanged(int month, Object payload) {
+        if (month >= mStartMonth && month <= mEndMonth) {
+            notifyItemRangeChanged(getMonthOffset(month) * mItemPerMonth, mItemPerMonth, payload);
+        }
+    }
+
+    /**
+     * @return position showing {@code epochDay}, or {@link RecyclerView#NO_POSITION} when its month
+     * is not mapped to positions.
+     */
+    int getDayPosition(int epochDay) {
+        int month = CalendarDates.yearMonthOfEpochDay(epochDay);
+        if (month < mStartMonth || month > mEndMonth) {
+            return RecyclerView.NO_POSITION;
+        }
+        int monthOffset = getMonthOffset(month);
+        if (mItemPerMonth == 1) {
+            return monthOffset;
+        }
+        int dayPosition = mMonthTable.getFirstDayColumn(monthOffset) + CalendarDates.dayOfMonth(epochDay) - 1;
+        return monthOffset * ITEM_PER_MONTH + mDayItems[dayPosition];
+    }
+
+    int getSelectedDay() {
+        return mSelectedDay;
     }
 
-    Calendar getFirstDayOfMonth(int position) {
-        Calendar calendar = (Calendar) mEndCalendar.clone();
-        int monthDistance = -position / ITEM_PER_MONTH;
-        calendar.add(Calendar.YEAR, monthDistance / MONTH_PER_YEAR);
-        calendar.add(Calendar.MONTH, monthDistance % MONTH_PER_YEAR);
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        return calendar;
+    /**
+     * Select {@code epochDay}, rebinding the previously selected day and the new one only.
+     *
+     * @param epochDay Day to select, or {@link #NO_DAY} to clear the selection.
+     */
+    void setSelectedDay(int epochDay) {
+        if (mSelectedDay != epochDay) {
+            int previousDay = mSelectedDay;
+            mSelectedDay = epochDay;
+            notifyDayChanged(previousDay, PAYLOAD_DAY_STATE);
+            notifyDayChanged(epochDay, PAYLOAD_DAY_STATE);
+        }
+    }
+
+    int getToday() {
+        return mToday;
+    }
+
+    /**
+     * Highlight {@code epochDay} as today, rebinding yesterday and today only.
+     */
+    void setToday(int epochDay) {
+        if (mToday != epochDay) {
+            int previousDay = mToday;
+            mToday = epochDay;
+            notifyDayChanged(previousDay, PAYLOAD_DAY_STATE);
+            notifyDayChanged(epochDay, PAYLOAD_DAY_STATE);
+        }
+    }
+
+    int getRangeStart() {
+        return mDayMasks.getRangeStart();
+    }
+
+    int getRangeEnd() {
+        return mDayMasks.getRangeEnd();
+    }
+
+    /**
+     * Select the days from {@code start} to {@code end}, rebinding the months whose selected days
+     * changed only.
+     *
+     * @param start First day of the range, or {@link #NO_DAY} to clear the range.
+     * @param end   Last day of the range, or {@link #NO_DAY} to clear the range.
+     */
+    void setSelectedRange(int start, int end) {
+        mDayMasks.setRange(start, end);
+    }
+
+    /**
+     * @param blackoutDays Epoch days that cannot be selected.
+     */
+    void setBlackoutDays(int[] blackoutDays) {
+        mDayMasks.setBlackoutDays(blackoutDays);
+    }
+
+    /**
+     * @param daysOfWeek Days of the week that cannot be selected, bit {@code 0} being Sunday.
+     */
+    void setDisabledDaysOfWeek(int daysOfWeek) {
+        mDayMasks.setDisabledDaysOfWeek(daysOfWeek);
+    }
+
+    boolean isDayDisabled(int epochDay) {
+        int position = getDayPosition(epochDay);
+        if (position == RecyclerView.NO_POSITION) {
+            return epochDay < mDayMasks.getMinDay() || epochDay > mDayMasks.getMaxDay();
+        }
+        return mDayMasks.isDisabled(position / mItemPerMonth, CalendarDates.dayOfMonth(epochDay));
+    }
+
+    private void notifyDayChanged(int epochDay, Object payload) {
+        if (epochDay != NO_DAY) {
+            int position = getDayPosition(epochDay);
+            if (position != RecyclerView.NO_POSITION) {
+                notifyItemChanged(position, payload);
+            }
+        }
+    }
+
+    void setOnDayClickListener(OnDayClickListener onDayClickListener) {
+        mOnDayClickListener = onDayClickListener;
+    }
+
+    private void onDayCellClick(int position) {
+        int dayOfMonth = mMonthTable.getDayOfMonth(position / ITEM_PER_MONTH, mCalendarMatrix[position % ITEM_PER_MONTH]);
+        if (dayOfMonth != 0) {
+            dispatchDayClick(position, dayOfMonth);
+        }
+    }
+
+    private void dispatchDayClick(int position, int dayOfMonth) {
+        if (mOnDayClickListener != null && position != RecyclerView.NO_POSITION
+                && !mDayMasks.isDisabled(position / mItemPerMonth, dayOfMonth)) {
+            mOnDayClickListener.onDayClick(CalendarDates.firstEpochDay(getMonth(position)) + dayOfMonth - 1);
+        }
+    }
+
+    int getMinMonth() {
+        return mMinMonth;
+    }
+
+    int getMaxMonth() {
+        return mMaxMonth;
+    }
+
+    /**
+     * Set the days the calendar can show. The adapter only maps a window of {@link #WINDOW_MONTH}
+     * months of this range to positions, see {@link #centerWindow(int)}.
+     *
+     * @param startCalendar First day, or {@code null} for no limit.
+     * @param endCalendar   Last day, or {@code null} for no limit.
+     */
+    void setRange(Calendar startCalendar, Calendar endCalendar) {
+        setDayRange(startCalendar == null ? DayMasks.NO_LIMIT_MIN : CalendarDates.epochDay(startCalendar),
+                endCalendar == null ? DayMasks.NO_LIMIT_MAX : CalendarDates.epochDay(endCalendar));
+    }
+
+    /**
+     * Set the months the calendar can show, the days out of the range being disabled.
+     *
+     * @param minDay First day, or {@link DayMasks#NO_LIMIT_MIN} for no limit.
+     * @param maxDay Last day, or {@link DayMasks#NO_LIMIT_MAX} for no limit.
+     */
+    void setDayRange(int minDay, int maxDay) {
+        maxDay = Math.max(minDay, maxDay);
+        mMinMonth = minDay == DayMasks.NO_LIMIT_MIN ? CalendarDates.MIN_MONTH : CalendarDates.yearMonthOfEpochDay(minDay);
+        mMaxMonth = maxDay == DayMasks.NO_LIMIT_MAX ? CalendarDates.MAX_MONTH : CalendarDates.yearMonthOfEpochDay(maxDay);
+        mDayMasks.setDayRange(minDay, maxDay);
+    }
+
+    /**
+     * Move the ends of the range like {@link #setDayRange(int, int)}, keeping the months of the
+     * window still in the range on their items: the months leaving the range are removed at the
+     * window edges, and the months entering it are inserted when the window reached the old end, up
+     * to {@link #WINDOW_MONTH} months. Only the items of the edge months whose days get enabled or
+     * disabled are rebound.
+     * <p>
+     * Inserting or removing months after {@link #getEndMonth()} shifts every position, the layout
+     * and the snap position are expected to follow the count of months at position 0.
+     *
+     * @return whether the window was kept, {@code false} when no month of it is left in the range
+     * and it has to be centered again.
+     */
+    boolean updateDayRange(int minDay, int maxDay) {
+        int oldMinMonth = mMinMonth;
+        int oldMaxMonth = mMaxMonth;
+        int oldStartMonth = mStartMonth;
+        int oldEndMonth = mEndMonth;
+        // notified on the old positions, before the months move
+        setDayRange(minDay, maxDay);
+        int startMonth = Math.max(oldStartMonth, mMinMonth);
+        int endMonth = Math.min(oldEndMonth, mMaxMonth);
+        if (oldEndMonth < oldStartMonth || startMonth > endMonth) {
+            return false;
+        }
+        // grow towards the new ends the window used to reach
+        if (oldEndMonth == oldMaxMonth && mMaxMonth > endMonth) {
+            endMonth += (int) Math.min((long) mMaxMonth - endMonth, WINDOW_MONTH - (endMonth - startMonth + 1));
+        }
+        if (oldStartMonth == oldMinMonth && mMinMonth < startMonth) {
+            startMonth -= (int) Math.min((long) startMonth - mMinMonth, WINDOW_MONTH - (endMonth - startMonth + 1));
+        }
+        if (startMonth == oldStartMonth && endMonth == oldEndMonth) {
+            return true;
+        }
+        mStartMonth = startMonth;
+        mEndMonth = endMonth;
+        mMonthTable.build(mStartMonth, mEndMonth);
+        mDayMasks.build(mMonthTable);
+
+        // position 0 is the end month, then the start month is at the end of the positions
+        if (endMonth < oldEndMonth) {
+            notifyItemRangeRemoved(0, (oldEndMonth - endMonth) * mItemPerMonth);
+        } else if (endMonth > oldEndMonth) {
+            notifyItemRangeInserted(0, (endMonth - oldEndMonth) * mItemPerMonth);
+        }
+        int startPosition = (endMonth - Math.max(startMonth, oldStartMonth) + 1) * mItemPerMonth;
+        if (startMonth > oldStartMonth) {
+            notifyItemRangeRemoved(startPosition, (startMonth - oldStartMonth) * mItemPerMonth);
+        } else if (startMonth < oldStartMonth) {
+            notifyItemRangeInserted(startPosition, (oldStartMonth - startMonth) * mItemPerMonth);
+        }
+        return true;
+    }
+
+    int getMinDay() {
+        return mDayMasks.getMinDay();
+    }
+
+    int getMaxDay() {
+        return mDayMasks.getMaxDay();
+    }
+
+    /**
+     * @return first month mapped to a position, that is the one of the last position.
+     */
+    int getStartMonth() {
+        return mStartMonth;
     }
 
-    Calendar getStartCalendar() {
-        return mStartCalendar;
+    /**
+     * @return last month mapped to a position, that is the one of position 0.
+     */
+    int getEndMonth() {
+        return mEndMonth;
     }
 
-    void setStartCalendar(Calendar startCalendar) {
-        mStartCalendar = startCalendar;
+    /**
+     * @return offset of {@code month} from {@link #getEndMonth()}, the page index of the month.
+     */
+    int getMonthOffset(int month) {
+        return mEndMonth - month;
+    }
+
+    /**
+     * @return whether {@code month} is mapped to positions far enough from the window edges to
+     * scroll a while without reaching them.
+     */
+    boolean isWindowCentered(int month) {
+        return month >= mStartMonth && month <= mEndMonth
+                && (month - mStartMonth >= WINDOW_MARGIN_MONTH || mStartMonth == mMinMonth)
+                && (mEndMonth - month >= WINDOW_MARGIN_MONTH || mEndMonth == mMaxMonth);
+    }
+
+    /**
+     * Map the {@link #WINDOW_MONTH} months around {@code month} to positions, whatever the size of
+     * the range, so that item count and position math stay small. Costs a rebind of every item.
+     */
+    void centerWindow(int month) {
+        long startMonth = (long) month - WINDOW_MONTH / 2;
+        long endMonth = startMonth + WINDOW_MONTH - 1;
+        if (endMonth > mMaxMonth) {
+            endMonth = mMaxMonth;
+            startMonth = endMonth - WINDOW_MONTH + 1;
+        }
+        if (startMonth < mMinMonth) {
+            startMonth = mMinMonth;
+            endMonth = Math.min(startMonth + WINDOW_MONTH - 1, mMaxMonth);
+        }
+        mStartMonth = (int) startMonth;
+        mEndMonth = (int) endMonth;
+        mMonthTable.build(mStartMonth, mEndMonth);
+        mDayMasks.build(mMonthTable);
+        notifyDataSetChanged();
+    }
+
+    private CalendarLabels getLabels(RecyclerView.ViewHolder holder) {
+        if (mLabels == null) {
+            mLabels = CalendarLabels.get(holder.itemView.getContext(), mWeekStart);
+        }
+        return mLabels;
+    }
+
+    int getWeekStart() {
+        return mWeekStart;
+    }
+
+    /**
+     * Start the weeks on {@code weekStart}, Sunday by default, rebinding every item since the days
+     * move to other cells.
+     *
+     * @param weekStart Day of the week of the first column, {@code 0} being Sunday.
+     */
+    void setWeekStart(int weekStart) {
+        if (mWeekStart != weekStart) {
+            mWeekStart = weekStart;
+            mLabels = null;
+            mMonthTable.setWeekStart(weekStart);
+            notifyDataSetChanged();
+        }
     }
 
-    Calendar getEndCalendar() {
-        return mEndCalendar;
+    /**
+     * @param metrics Metrics to record inflations and binds into, or {@code null} to stop recording.
+     */
+    void setMetrics(CalendarMetrics metrics) {
+        mMetrics = metrics;
     }
 
-    void setEndCalendar(Calendar endCalendar) {
-        mEndCalendar = endCalendar;
+    int getCreateCount() {
+        return mCreateCount;
+    }
+
+    /**
+     * @return number of binds so far, payload binds included.
+     */
+    int getBindCount() {
+        return mBindCount;
+    }
+
+    MonthTable getMonthTable() {
+        return mMonthTable;
     }
 
     void setDimensions(int itemWidth) {
@@ -148,20 +713,70 @@ class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     private static class TitleViewHolder extends RecyclerView.ViewHolder {
 
         TextView title;
+        CharSequence titleText;
 
         TitleViewHolder(View itemView) {
             super(itemView);
             title = (TextView) itemView;
         }
+
+        /**
+         * Set the weekday title, only setting the text when it changes.
+         */
+        void setTitle(CharSequence text) {
+            if (titleText != text) {
+                titleText = text;
+                title.setText(text);
+            }
+        }
+    }
+
+    // static, holders being shared by the calendars of a CalendarViewPool, bound to the adapter
+    // of their last bind
+    private static class DayViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+
+        DayView day;
+        CalendarAdapter adapter;
+
+        DayViewHolder(DayView itemView) {
+            super(itemView);
+            day = itemView;
+            day.setOnClickListener(this);
+        }
+
+        @Override
+        public void onClick(View view) {
+            int position = getAdapterPosition();
+            if (adapter != null && position != RecyclerView.NO_POSITION) {
+                adapter.onDayCellClick(position);
+            }
+        }
     }
 
-    private static class DayViewHolder extends RecyclerView.ViewHolder {
+    private static class MonthViewHolder extends RecyclerView.ViewHolder implements MonthGridView.OnDayClickListener {
 
-        TextView day;
+        MonthGridView month;
+        CalendarAdapter adapter;
 
-        DayViewHolder(View itemView) {
+        MonthViewHolder(MonthGridView itemView) {
             super(itemView);
-            day = (TextView) itemView;
+            month = itemView;
+            month.setOnDayClickListener(this);
         }
+
+        @Override
+        public void onDayClick(MonthGridView view, int dayOfMonth) {
+            if (adapter != null) {
+                adapter.dispatchDayClick(getAdapterPosition(), dayOfMonth);
+            }
+        }
+    }
+
+    interface OnDayClickListener {
+
+        /**
+         * @param epochDay Clicked day, see {@link CalendarDates#epochDay(int, int, int)}.
+         */
+        void onDayClick(int epochDay);
     }
 }
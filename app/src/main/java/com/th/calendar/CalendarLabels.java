@@ -0,0 +1,121 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+import android.util.SparseArray;
+
+import java.text.DateFormatSymbols;
+import java.util.Calendar;
+import java.util.Locale;
+
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
+
+/**
+ * Texts of the calendar in the default locale: day numbers, weekday titles by grid column, month
+ * names and month titles.
+ * <p>
+ * Day numbers, weekday titles and month names are built once per locale and week start, and month
+ * titles are formatted the first time their month shows, so that binding a cell or updating the
+ * header only looks up a string. Main thread only, but for the strings built up front which never
+ * change once built.
+ */
+final class CalendarLabels {
+
+    // plenty for going back and forth, cleared rather than evicted past it
+    private static final int MAX_MONTH_TITLES = 240;
+
+    // the labels of each week start, rebuilt when the locale changes
+    private static final CalendarLabels[] sLabels = new CalendarLabels[DAY_PER_WEEK];
+
+    private final Context mContext;
+    private final Locale mLocale;
+    private final int mWeekStart;
+    // months of this year are titled without it
+    private final int mCurrentYear;
+    private final String[] mDayLabels = new String[32];
+    private final String[] mWeekdayTitles = new String[DAY_PER_WEEK];
+    private final String[] mMonthNames = new String[CalendarDates.MONTH_PER_YEAR];
+    private final SparseArray<String> mMonthTitles = new SparseArray<>();
+    private final Calendar mCalendar = Calendar.getInstance();
+
+    private CalendarLabels(Context context, Locale locale, int weekStart) {
+        mContext = context;
+        mLocale = locale;
+        mWeekStart = weekStart;
+        mCurrentYear = mCalendar.get(Calendar.YEAR);
+        for (int day = 1; day < mDayLabels.length; day++) {
+            // digits of the locale
+            mDayLabels[day] = String.format(locale, "%d", day);
+        }
+        DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+        // indexed by Calendar.SUNDAY to Calendar.SATURDAY
+        String[] weekdays = symbols.getShortWeekdays();
+        for (int column = 0; column < DAY_PER_WEEK; column++) {
+            mWeekdayTitles[column] = weekdays[Calendar.SUNDAY + (weekStart + column) % DAY_PER_WEEK];
+        }
+        String[] months = symbols.getMonths();
+        for (int month = 0; month < mMonthNames.length; month++) {
+            mMonthNames[month] = months[Calendar.JANUARY + month];
+        }
+    }
+
+    /**
+     * @param weekStart Day of the week of the first column, {@code 0} being Sunday.
+     * @return labels of the default locale, built on the first call for it.
+     */
+    static CalendarLabels get(Context context, int weekStart) {
+        CalendarLabels labels = sLabels[weekStart];
+        Locale locale = Locale.getDefault();
+        if (labels == null || !labels.mLocale.equals(locale)) {
+            labels = new CalendarLabels(context.getApplicationContext(), locale, weekStart);
+            sLabels[weekStart] = labels;
+        }
+        return labels;
+    }
+
+    int getWeekStart() {
+        return mWeekStart;
+    }
+
+    /**
+     * @param dayOfMonth From {@code 1} to {@code 31}.
+     */
+    String getDayLabel(int dayOfMonth) {
+        return mDayLabels[dayOfMonth];
+    }
+
+    /**
+     * @param column Column of the grid, {@code 0} being the week start.
+     */
+    String getWeekdayTitle(int column) {
+        return mWeekdayTitles[column];
+    }
+
+    /**
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     */
+    String getMonthName(int month) {
+        return mMonthNames[month];
+    }
+
+    /**
+     * @param yearMonth Packed year-month, see {@link CalendarDates#yearMonth(int, int)}.
+     * @return month name, followed by its year unless in the current year.
+     */
+    String getMonthTitle(int yearMonth) {
+        String title = mMonthTitles.get(yearMonth);
+        if (title == null) {
+            if (mMonthTitles.size() >= MAX_MONTH_TITLES) {
+                mMonthTitles.clear();
+            }
+            int year = CalendarDates.year(yearMonth);
+            mCalendar.clear();
+            mCalendar.set(year, CalendarDates.month(yearMonth), 1);
+            title = DateUtils.formatDateTime(mContext, mCalendar.getTimeInMillis(),
+                    DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_NO_MONTH_DAY
+                            | (year == mCurrentYear ? DateUtils.FORMAT_NO_YEAR : DateUtils.FORMAT_SHOW_YEAR));
+            mMonthTitles.put(yearMonth, title);
+        }
+        return title;
+    }
+}
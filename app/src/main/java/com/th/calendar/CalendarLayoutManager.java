@@ -0,0 +1,516 @@
+package com.th.calendar;
+
+import android.graphics.PointF;
+import android.support.v7.widget.LinearSmoothScroller;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import static android.view.View.MeasureSpec.EXACTLY;
+import static android.view.View.MeasureSpec.makeMeasureSpec;
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
+
+/**
+ * {@link android.support.v7.widget.RecyclerView.LayoutManager} laying out month pages from right to
+ * left, the first adapter position being the right most page, or from bottom to top when vertical.
+ * <p>
+ * A page is either one item filling it (month grid mode) or {@link CalendarSnapHelper#ITEM_PER_MONTH}
+ * items making 7 columns from Saturday on the right to Sunday on the left, each column being a
+ * weekday title followed by 6 days twice as high. Every item frame is computed from its position, and
+ * items are added and recycled a whole page at a time.
+ * <p>
+ * Horizontal pages fill the view. Vertical pages are as high as the days are wide and scroll
+ * continuously, several of them showing at once. Either way every page has the same size, so the
+ * month at any scroll offset is a division away whatever the number of months.
+ * <p>
+ * While scrolling, the pages coming next in the direction of the scroll are handed to the
+ * {@link RecyclerView} item prefetch, which creates and binds their items in the idle time of the
+ * frames before they show, a whole page at a time.
+ */
+class CalendarLayoutManager extends RecyclerView.LayoutManager implements RecyclerView.SmoothScroller.ScrollVectorProvider {
+
+    // in half week rows, the title row being one of them
+    private static final int ROW_UNITS = 1 + 6 * 2;
+    static final int DEFAULT_PREFETCH_MONTHS = 1;
+
+    private final int mItemPerMonth;
+    private final boolean mVertical;
+
+    // distance scrolled from the first page towards the last one
+    private int mScrollOffset;
+    // page size mScrollOffset was computed with
+    private int mLastPageSize;
+    private int mPendingScrollMonth = RecyclerView.NO_POSITION;
+
+    // range of the pages currently attached, empty when the first is after the last
+    private int mFirstAttachedMonth = 0;
+    private int mLastAttachedMonth = -1;
+    // set when the attached pages no longer match the scroll offset
+    private boolean mStaleChildren;
+    // layout passes so far, read by the scroll performance tests
+    private int mLayoutCount;
+
+    private int mPrefetchMonths = DEFAULT_PREFETCH_MONTHS;
+    // month a fling or a navigation settles on, no page past it is prefetched
+    private int mTargetMonth = RecyclerView.NO_POSITION;
+    // bind count of the adapter tells whether the pages scrolled in were bound on the frame
+    private CalendarAdapter mAdapter;
+    private CalendarMetrics mMetrics;
+    private boolean mLastMonthPrefetched;
+
+    /**
+     * @param itemPerMonth {@link CalendarSnapHelper#ITEM_PER_MONTH}, or {@code 1} when each month is
+     *                     a single item.
+     */
+    CalendarLayoutManager(int itemPerMonth) {
+        this(itemPerMonth, false);
+    }
+
+    /**
+     * @param vertical Whether the pages go from bottom to top, scrolling continuously.
+     */
+    CalendarLayoutManager(int itemPerMonth, boolean vertical) {
+        mItemPerMonth = itemPerMonth;
+        mVertical = vertical;
+    }
+
+    @Override
+    public void onAttachedToWindow(RecyclerView view) {
+        super.onAttachedToWindow(view);
+        setAdapter(view.getAdapter());
+    }
+
+    @Override
+    public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
+        setAdapter(newAdapter);
+    }
+
+    private void setAdapter(RecyclerView.Adapter adapter) {
+        mAdapter = adapter instanceof CalendarAdapter ? (CalendarAdapter) adapter : null;
+    }
+
+    @Override
+    public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+        return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.MATCH_PARENT);
+    }
+
+    @Override
+    public boolean canScrollHorizontally() {
+        return !mVertical;
+    }
+
+    @Override
+    public boolean canScrollVertically() {
+        return mVertical;
+    }
+
+    @Override
+    public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        mLayoutCount++;
+        if (state.getItemCount() == 0) {
+            removeAndRecycleAllViews(recycler);
+            mFirstAttachedMonth = 0;
+            mLastAttachedMonth = -1;
+            return;
+        }
+        int pageSize = getPageSize();
+        if (pageSize <= 0) {
+            return;
+        }
+        if (mPendingScrollMonth != RecyclerView.NO_POSITION) {
+            mScrollOffset = MonthNavigator.getSnapOffset(mPendingScrollMonth, pageSize, getViewportSize());
+            mPendingScrollMonth = RecyclerView.NO_POSITION;
+        } else if (mLastPageSize != pageSize && mLastPageSize > 0) {
+            // keep the current month when resized, and where in it when scrolling continuously
+            mScrollOffset = mVertical
+                    ? (int) ((long) mScrollOffset * pageSize / mLastPageSize)
+                    : (mScrollOffset + mLastPageSize / 2) / mLastPageSize * pageSize;
+        }
+        mLastPageSize = pageSize;
+        mScrollOffset = Math.max(0, Math.min(mScrollOffset, getMaxScrollOffset(state.getItemCount())));
+
+        detachAndScrapAttachedViews(recycler);
+        mFirstAttachedMonth = 0;
+        mLastAttachedMonth = -1;
+        mStaleChildren = false;
+        fill(recycler, state.getItemCount(), false);
+    }
+
+    /**
+     * Months inserted before the attached pages push them further from the first page, the scroll
+     * offset follows so that they stay where they are.
+     */
+    @Override
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+        if (positionStart <= mFirstAttachedMonth * mItemPerMonth) {
+            offsetMonths(itemCount / mItemPerMonth);
+        }
+    }
+
+    @Override
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+        int removedBefore = Math.min(itemCount, mFirstAttachedMonth * mItemPerMonth - positionStart);
+        if (removedBefore > 0) {
+            offsetMonths(-(removedBefore / mItemPerMonth));
+        }
+    }
+
+    private void offsetMonths(int months) {
+        mScrollOffset = Math.max(0, mScrollOffset + months * getPageSize());
+        mFirstAttachedMonth = Math.max(0, mFirstAttachedMonth + months);
+        mLastAttachedMonth += months;
+        if (mPendingScrollMonth != RecyclerView.NO_POSITION) {
+            mPendingScrollMonth = Math.max(0, mPendingScrollMonth + months);
+        }
+        mTargetMonth = RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        return scrollBy(dx, recycler, state);
+    }
+
+    @Override
+    public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        return scrollBy(dy, recycler, state);
+    }
+
+    private int scrollBy(int delta, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        if (getChildCount() == 0 || delta == 0) {
+            return 0;
+        }
+        // pages are laid out from right to left or bottom to top, scrolling towards the right or
+        // the bottom goes back to the first one
+        int scrollOffset = Math.max(0, Math.min(mScrollOffset - delta, getMaxScrollOffset(state.getItemCount())));
+        int consumed = mScrollOffset - scrollOffset;
+        mScrollOffset = scrollOffset;
+        if (mVertical) {
+            offsetChildrenVertical(-consumed);
+        } else {
+            offsetChildrenHorizontal(-consumed);
+        }
+        fill(recycler, state.getItemCount(), true);
+        return consumed;
+    }
+
+    /**
+     * Register the items of the next {@link #getPrefetchMonths()} pages in the direction of the
+     * scroll, stopping at the month a fling or a navigation settles on.
+     */
+    @Override
+    public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state,
+                                                 LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        int delta = mVertical ? dy : dx;
+        int pageSize = getPageSize();
+        if (delta == 0 || getChildCount() == 0 || pageSize <= 0) {
+            return;
+        }
+        int itemCount = getItemCount();
+        int monthCount = (itemCount + mItemPerMonth - 1) / mItemPerMonth;
+        // a positive delta goes back towards the first page
+        int direction = delta > 0 ? -1 : 1;
+        int month = direction < 0 ? mFirstAttachedMonth : mLastAttachedMonth;
+        for (int i = 0; i < mPrefetchMonths; i++) {
+            if (mTargetMonth != RecyclerView.NO_POSITION && (month - mTargetMonth) * direction >= 0) {
+                break;
+            }
+            month += direction;
+            if (month < 0 || month >= monthCount) {
+                break;
+            }
+            int distance = MonthNavigator.getDistanceToMonth(mScrollOffset, pageSize, getViewportSize(), month);
+            int firstPosition = month * mItemPerMonth;
+            for (int position = firstPosition, end = Math.min(firstPosition + mItemPerMonth, itemCount); position < end; position++) {
+                layoutPrefetchRegistry.addPosition(position, distance);
+            }
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(int state) {
+        if (state == RecyclerView.SCROLL_STATE_IDLE) {
+            mTargetMonth = RecyclerView.NO_POSITION;
+        }
+    }
+
+    @Override
+    public void scrollToPosition(int position) {
+        if (mLastPageSize > 0 && mLastPageSize == getPageSize()) {
+            // known right away so that a smooth scroll started before the next layout starts from there
+            scrollToOffset(MonthNavigator.getSnapOffset(position / mItemPerMonth, mLastPageSize, getViewportSize()));
+        } else {
+            mPendingScrollMonth = position / mItemPerMonth;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Jump to {@code scrollOffset} on the next layout, the pages being laid out again from scratch.
+     */
+    void scrollToOffset(int scrollOffset) {
+        mScrollOffset = Math.max(0, Math.min(scrollOffset, getMaxScrollOffset(getItemCount())));
+        mPendingScrollMonth = RecyclerView.NO_POSITION;
+        mStaleChildren = true;
+        requestLayout();
+    }
+
+    @Override
+    public View findViewByPosition(int position) {
+        // children are ordered by position, a page at a time
+        int index = position - mFirstAttachedMonth * mItemPerMonth;
+        if (index >= 0 && index < getChildCount()) {
+            View child = getChildAt(index);
+            if (getPosition(child) == position) {
+                return child;
+            }
+        }
+        return super.findViewByPosition(position);
+    }
+
+    @Override
+    public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
+        LinearSmoothScroller smoothScroller = new LinearSmoothScroller(recyclerView.getContext());
+        smoothScroller.setTargetPosition(position);
+        startSmoothScroll(smoothScroller);
+    }
+
+    @Override
+    public PointF computeScrollVectorForPosition(int targetPosition) {
+        if (getChildCount() == 0) {
+            return null;
+        }
+        // later months are on the left, or above
+        int direction = targetPosition / mItemPerMonth > getCurrentMonth() ? -1 : 1;
+        return mVertical ? new PointF(0, direction) : new PointF(direction, 0);
+    }
+
+    @Override
+    public int computeHorizontalScrollOffset(RecyclerView.State state) {
+        return getMaxScrollOffset(state.getItemCount()) - mScrollOffset;
+    }
+
+    @Override
+    public int computeHorizontalScrollExtent(RecyclerView.State state) {
+        return getViewportSize();
+    }
+
+    @Override
+    public int computeHorizontalScrollRange(RecyclerView.State state) {
+        return getMaxScrollOffset(state.getItemCount()) + getViewportSize();
+    }
+
+    @Override
+    public int computeVerticalScrollOffset(RecyclerView.State state) {
+        return computeHorizontalScrollOffset(state);
+    }
+
+    @Override
+    public int computeVerticalScrollExtent(RecyclerView.State state) {
+        return computeHorizontalScrollExtent(state);
+    }
+
+    @Override
+    public int computeVerticalScrollRange(RecyclerView.State state) {
+        return computeHorizontalScrollRange(state);
+    }
+
+    /**
+     * @return the month page covering most of the view, or whose start is the closest to the top of
+     * the view when vertical.
+     */
+    int getCurrentMonth() {
+        return MonthNavigator.findNearestMonth(mScrollOffset, getPageSize(), getViewportSize(), getMonthCount());
+    }
+
+    /**
+     * @return distance scrolled from the first month page, in pixels.
+     */
+    int getScrollOffset() {
+        return mScrollOffset;
+    }
+
+    int getPageWidth() {
+        return getWidth() - getPaddingLeft() - getPaddingRight();
+    }
+
+    /**
+     * @return size of a month page along the scroll, the page width when horizontal.
+     */
+    int getPageSize() {
+        if (!mVertical) {
+            return getPageWidth();
+        }
+        // square half rows, that is days as high as they are wide
+        return getPageWidth() * ROW_UNITS / (DAY_PER_WEEK * 2);
+    }
+
+    /**
+     * @return size of the view along the scroll, without its padding.
+     */
+    int getViewportSize() {
+        return mVertical ? getHeight() - getPaddingTop() - getPaddingBottom() : getPageWidth();
+    }
+
+    boolean isVertical() {
+        return mVertical;
+    }
+
+    int getItemPerMonth() {
+        return mItemPerMonth;
+    }
+
+    int getLayoutCount() {
+        return mLayoutCount;
+    }
+
+    /**
+     * @param prefetchMonths Number of pages prefetched ahead of the scroll, {@code 0} for none.
+     */
+    void setPrefetchMonths(int prefetchMonths) {
+        mPrefetchMonths = prefetchMonths;
+    }
+
+    int getPrefetchMonths() {
+        return mPrefetchMonths;
+    }
+
+    /**
+     * @param targetMonth Month the scroll in progress settles on, no page past it being
+     *                    prefetched, until the scroll is idle.
+     */
+    void setTargetMonth(int targetMonth) {
+        mTargetMonth = targetMonth;
+    }
+
+    /**
+     * @param metrics Metrics to record the month transitions into, or {@code null} when off.
+     */
+    void setMetrics(CalendarMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * @return whether every item of the last page scrolled in was bound before it showed, by the
+     * prefetch or an earlier scroll.
+     */
+    boolean isLastMonthPrefetched() {
+        return mLastMonthPrefetched;
+    }
+
+    int getMonthCount() {
+        return (getItemCount() + mItemPerMonth - 1) / mItemPerMonth;
+    }
+
+    int getMaxScrollOffset() {
+        return getMaxScrollOffset(getItemCount());
+    }
+
+    private int getMaxScrollOffset(int itemCount) {
+        int monthCount = (itemCount + mItemPerMonth - 1) / mItemPerMonth;
+        return Math.max(0, monthCount * getPageSize() - getViewportSize());
+    }
+
+    /**
+     * Recycle the month pages scrolled out of the view and lay out the ones scrolled in.
+     *
+     * @param scrolling Whether the pages are scrolled in, rather than laid out from scratch.
+     */
+    private void fill(RecyclerView.Recycler recycler, int itemCount, boolean scrolling) {
+        int pageSize = getPageSize();
+        if (pageSize <= 0) {
+            return;
+        }
+        int monthCount = (itemCount + mItemPerMonth - 1) / mItemPerMonth;
+        if (mStaleChildren) {
+            removeAndRecycleAllViews(recycler);
+            mFirstAttachedMonth = 0;
+            mLastAttachedMonth = -1;
+            mStaleChildren = false;
+        }
+        int firstMonth = mScrollOffset / pageSize;
+        int lastMonth = Math.min((mScrollOffset + getViewportSize() - 1) / pageSize, monthCount - 1);
+
+        if (firstMonth > mFirstAttachedMonth || lastMonth < mLastAttachedMonth) {
+            for (int i = getChildCount() - 1; i >= 0; i--) {
+                int month = getPosition(getChildAt(i)) / mItemPerMonth;
+                if (month < firstMonth || month > lastMonth) {
+                    removeAndRecycleViewAt(i, recycler);
+                }
+            }
+        }
+
+        boolean empty = mFirstAttachedMonth > mLastAttachedMonth
+                || mFirstAttachedMonth > lastMonth || mLastAttachedMonth < firstMonth;
+        // keep the children ordered by position, pages before the attached ones go first
+        int insertIndex = 0;
+        for (int month = firstMonth; month <= lastMonth; month++) {
+            boolean transition = scrolling && !empty && (month < mFirstAttachedMonth || month > mLastAttachedMonth);
+            int bindCount = mAdapter == null ? 0 : mAdapter.getBindCount();
+            if (empty || month < mFirstAttachedMonth) {
+                insertIndex = layoutMonth(recycler, month, itemCount, insertIndex);
+            } else if (month > mLastAttachedMonth) {
+                layoutMonth(recycler, month, itemCount, -1);
+            }
+            if (transition && mAdapter != null) {
+                mLastMonthPrefetched = mAdapter.getBindCount() == bindCount;
+                if (mMetrics != null) {
+                    mMetrics.onMonthTransition(mLastMonthPrefetched);
+                }
+            }
+        }
+        mFirstAttachedMonth = firstMonth;
+        mLastAttachedMonth = lastMonth;
+    }
+
+    /**
+     * @param index Index of the first child of the page, or {@code -1} to append it.
+     * @return index following the last child of the page.
+     */
+    private int layoutMonth(RecyclerView.Recycler recycler, int month, int itemCount, int index) {
+        int pageWidth = getPageWidth();
+        int pageHeight;
+        int pageLeft;
+        int top;
+        if (mVertical) {
+            pageHeight = getPageSize();
+            pageLeft = getPaddingLeft();
+            // the first page ends at the bottom of the view
+            top = getPaddingTop() + getViewportSize() + mScrollOffset - (month + 1) * pageHeight;
+        } else {
+            pageHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+            pageLeft = getPaddingLeft() + mScrollOffset - month * pageWidth;
+            top = getPaddingTop();
+        }
+        int firstPosition = month * mItemPerMonth;
+        int lastPosition = Math.min(firstPosition + mItemPerMonth, itemCount);
+        for (int position = firstPosition; position < lastPosition; position++) {
+            View child = recycler.getViewForPosition(position);
+            if (index < 0) {
+                addView(child);
+            } else {
+                addView(child, index++);
+            }
+            if (mItemPerMonth == 1) {
+                layoutChild(child, pageLeft, top, pageLeft + pageWidth, top + pageHeight);
+                continue;
+            }
+            int item = position - firstPosition;
+            // columns start from the right, first row is the weekday title
+            int column = DAY_PER_WEEK - 1 - item / DAY_PER_WEEK;
+            int row = item % DAY_PER_WEEK;
+            int rowUnit = row == 0 ? 0 : row * 2 - 1;
+            int rowUnitEnd = row * 2 + 1;
+            layoutChild(child,
+                    pageLeft + pageWidth * column / DAY_PER_WEEK,
+                    top + pageHeight * rowUnit / ROW_UNITS,
+                    pageLeft + pageWidth * (column + 1) / DAY_PER_WEEK,
+                    top + pageHeight * rowUnitEnd / ROW_UNITS);
+        }
+        return index;
+    }
+
+    private void layoutChild(View child, int left, int top, int right, int bottom) {
+        child.measure(makeMeasureSpec(right - left, EXACTLY), makeMeasureSpec(bottom - top, EXACTLY));
+        layoutDecorated(child, left, top, right, bottom);
+    }
+}
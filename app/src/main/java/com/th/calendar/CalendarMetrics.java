@@ -0,0 +1,146 @@
+package com.th.calendar;
+
+/**
+ * Counters and latency histograms of a {@link CalendarView}, recorded once a
+ * {@link CalendarView.MetricsListener} is set and kept until {@link #reset()}.
+ * <p>
+ * Values are read on the main thread, typically from
+ * {@link CalendarView.MetricsListener#onScrollMetrics(CalendarView, CalendarMetrics)}.
+ */
+public final class CalendarMetrics {
+
+    /**
+     * Week day label cell.
+     */
+    public static final int VIEW_TYPE_TITLE = CalendarAdapter.TYPE_TITLE;
+    /**
+     * Day cell.
+     */
+    public static final int VIEW_TYPE_DAY = CalendarAdapter.TYPE_DAY;
+    /**
+     * Whole month, in month grid mode.
+     */
+    public static final int VIEW_TYPE_MONTH = CalendarAdapter.TYPE_MONTH;
+
+    private static final int VIEW_TYPE_COUNT = 3;
+
+    private final int[] mCreateCounts = new int[VIEW_TYPE_COUNT];
+    private final LatencyHistogram mCreateDurations = new LatencyHistogram();
+    private final LatencyHistogram mBindDurations = new LatencyHistogram();
+    private final LatencyHistogram mSnapSettleDurations = new LatencyHistogram();
+    private final LatencyHistogram mFrameDurations = new LatencyHistogram();
+    private int mFramesOverBudget;
+    private int mMonthTransitions;
+    private int mPrefetchedMonthTransitions;
+
+    CalendarMetrics() {
+    }
+
+    void onCreateViewHolder(int viewType, long nanos) {
+        mCreateCounts[viewType]++;
+        mCreateDurations.record(nanos);
+    }
+
+    void onBindViewHolder(long nanos) {
+        mBindDurations.record(nanos);
+    }
+
+    void onSnapSettled(long nanos) {
+        mSnapSettleDurations.record(nanos);
+    }
+
+    /**
+     * @param frameIntervalNanos Refresh interval of the display, a frame taking more than one and a
+     *                           half of it having missed at least one vsync.
+     */
+    void onScrollFrame(long nanos, long frameIntervalNanos) {
+        mFrameDurations.record(nanos);
+        if (nanos * 2 > frameIntervalNanos * 3) {
+            mFramesOverBudget++;
+        }
+    }
+
+    /**
+     * @param prefetched Whether the month scrolled in had all its items bound before it showed.
+     */
+    void onMonthTransition(boolean prefetched) {
+        mMonthTransitions++;
+        if (prefetched) {
+            mPrefetchedMonthTransitions++;
+        }
+    }
+
+    /**
+     * @param viewType One of {@link #VIEW_TYPE_TITLE}, {@link #VIEW_TYPE_DAY} or
+     *                 {@link #VIEW_TYPE_MONTH}.
+     * @return number of views of {@code viewType} inflated.
+     */
+    public int getCreateCount(int viewType) {
+        return mCreateCounts[viewType];
+    }
+
+    /**
+     * @return durations of the view inflations, every view type included.
+     */
+    public LatencyHistogram getCreateDurations() {
+        return mCreateDurations;
+    }
+
+    /**
+     * @return durations of the binds, payload binds included.
+     */
+    public LatencyHistogram getBindDurations() {
+        return mBindDurations;
+    }
+
+    /**
+     * @return durations from a fling to the scroll settling on its month.
+     */
+    public LatencyHistogram getSnapSettleDurations() {
+        return mSnapSettleDurations;
+    }
+
+    /**
+     * @return durations of the frames drawn while the calendar scrolls. Always empty before
+     * {@link android.os.Build.VERSION_CODES#JELLY_BEAN}.
+     */
+    public LatencyHistogram getScrollFrameDurations() {
+        return mFrameDurations;
+    }
+
+    /**
+     * @return number of frames drawn while the calendar scrolls which missed at least one vsync.
+     */
+    public int getScrollFramesOverBudget() {
+        return mFramesOverBudget;
+    }
+
+    /**
+     * @return number of months scrolled into the view.
+     */
+    public int getMonthTransitions() {
+        return mMonthTransitions;
+    }
+
+    /**
+     * @return number of months scrolled into the view without binding any item on the frame they
+     * showed, the prefetch having bound them all ahead. See
+     * {@link CalendarView#setPrefetchMonths(int)}.
+     */
+    public int getPrefetchedMonthTransitions() {
+        return mPrefetchedMonthTransitions;
+    }
+
+    public void reset() {
+        for (int i = 0; i < VIEW_TYPE_COUNT; i++) {
+            mCreateCounts[i] = 0;
+        }
+        mCreateDurations.reset();
+        mBindDurations.reset();
+        mSnapSettleDurations.reset();
+        mFrameDurations.reset();
+        mFramesOverBudget = 0;
+        mMonthTransitions = 0;
+        mPrefetchedMonthTransitions = 0;
+    }
+}
@@ -4,7 +4,6 @@ import android.graphics.PointF;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.LinearSmoothScroller;
-import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.PagerSnapHelper;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.SnapHelper;
@@ -27,70 +26,159 @@ class CalendarSnapHelper extends PagerSnapHelper {
 
     private static final int MAX_SCROLL_ON_FLING_DURATION = 100; // ms
     private static final float MILLISECONDS_PER_INCH = 100.0F;
-    static final int ITEM_PER_MONTH = 49;
-
-    // Orientation helpers are lazily created per LayoutManager.
-    @Nullable
-    private OrientationHelper mHorizontalHelper;
+    static final int ITEM_PER_MONTH = CalendarMatrix.ITEM_COUNT;
 
     private int mSnapPosition;
 
+    private int mItemPerMonth = ITEM_PER_MONTH;
+
+    // whether vertical scrolls settle on a month start, horizontal ones always settle on a page
+    private boolean mSnapVertically = true;
+
     private RecyclerView mRecyclerView;
 
+    private ScrollMetricsTracker mScrollMetricsTracker;
+
+    private final MonthNavigator mNavigator = new MonthNavigator(new MonthNavigator.Host() {
+
+        @Override
+        public int getCurrentMonth() {
+            return getCalendarLayoutManager().getCurrentMonth();
+        }
+
+        @Override
+        public int getMonthCount() {
+            return getCalendarLayoutManager().getMonthCount();
+        }
+
+        @Override
+        public void startListening() {
+            mRecyclerView.addOnScrollListener(mNavigationListener);
+        }
+
+        @Override
+        public void stopListening() {
+            mRecyclerView.removeOnScrollListener(mNavigationListener);
+        }
+
+        @Override
+        public void smoothScrollToMonth(int month) {
+            mSnapPosition = getCenterPosition(month);
+            CalendarLayoutManager layoutManager = getCalendarLayoutManager();
+            layoutManager.setTargetMonth(month);
+            LinearSmoothScroller smoothScroller = createSnapScroller(layoutManager);
+            smoothScroller.setTargetPosition(mSnapPosition);
+            layoutManager.startSmoothScroll(smoothScroller);
+        }
+
+        @Override
+        public void scrollToMonth(int month) {
+            mSnapPosition = getCenterPosition(month);
+            mRecyclerView.scrollToPosition(mSnapPosition);
+        }
+    });
+
+    // the one listener shared by every next/prev navigation, attached while one is in progress
+    private final RecyclerView.OnScrollListener mNavigationListener = new RecyclerView.OnScrollListener() {
+
+        boolean mScrolled = false;
+
+        @Override
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                mScrolled = false;
+                mNavigator.cancel();
+            } else if (newState == RecyclerView.SCROLL_STATE_IDLE && mScrolled) {
+                mScrolled = false;
+                mNavigator.onScrollIdle();
+            }
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            if (dx != 0 || dy != 0) {
+                mScrolled = true;
+            }
+        }
+    };
+
     @Override
-    public View findSnapView(RecyclerView.LayoutManager layoutManager) {
-        if (layoutManager.canScrollHorizontally()) {
-            return findCenterView(layoutManager, getHorizontalHelper(layoutManager));
+    public boolean onFling(int velocityX, int velocityY) {
+        if (!isSnapping()) {
+            // the recycler view flings on its own
+            return false;
+        }
+        boolean fling = super.onFling(velocityX, velocityY);
+        if (fling && mScrollMetricsTracker != null) {
+            mScrollMetricsTracker.onFling();
         }
-        return null;
+        return fling;
     }
 
     @Override
-    public int findTargetSnapPosition(RecyclerView.LayoutManager layoutManager, int velocityX, int velocityY) {
-        final int itemCount = layoutManager.getItemCount();
-        if (itemCount == 0) {
-            return RecyclerView.NO_POSITION;
+    public View findSnapView(RecyclerView.LayoutManager layoutManager) {
+        if (!(layoutManager instanceof CalendarLayoutManager)) {
+            return null;
         }
+        CalendarLayoutManager calendarLayoutManager = (CalendarLayoutManager) layoutManager;
+        if (calendarLayoutManager.getMonthCount() == 0 || !isSnapping()) {
+            return null;
+        }
+        // settling after a drag, the page covering most of the view wins
+        mSnapPosition = getCenterPosition(calendarLayoutManager.getCurrentMonth());
+        return calendarLayoutManager.findViewByPosition(mSnapPosition);
+    }
 
-        View mStartMostChildView = null;
-        if (layoutManager.canScrollHorizontally()) {
-            mStartMostChildView = findStartView(layoutManager, getHorizontalHelper(layoutManager));
+    @Override
+    public int[] calculateDistanceToFinalSnap(@NonNull RecyclerView.LayoutManager layoutManager, @NonNull View targetView) {
+        int[] out = new int[2];
+        if (layoutManager instanceof CalendarLayoutManager) {
+            CalendarLayoutManager calendarLayoutManager = (CalendarLayoutManager) layoutManager;
+            int targetMonth = calendarLayoutManager.getPosition(targetView) / mItemPerMonth;
+            out[calendarLayoutManager.isVertical() ? 1 : 0] = MonthNavigator.getSnapDistance(calendarLayoutManager.getScrollOffset(),
+                    calendarLayoutManager.getPageSize(), calendarLayoutManager.getViewportSize(), targetMonth);
         }
+        return out;
+    }
 
-        if (mStartMostChildView == null) {
+    @Override
+    public int findTargetSnapPosition(RecyclerView.LayoutManager layoutManager, int velocityX, int velocityY) {
+        if (!(layoutManager instanceof CalendarLayoutManager)) {
             return RecyclerView.NO_POSITION;
         }
-        final int centerPosition = layoutManager.getPosition(mStartMostChildView) / ITEM_PER_MONTH * ITEM_PER_MONTH + ITEM_PER_MONTH / 2;
-        if (centerPosition == RecyclerView.NO_POSITION) {
+        CalendarLayoutManager calendarLayoutManager = (CalendarLayoutManager) layoutManager;
+        final int monthCount = calendarLayoutManager.getMonthCount();
+        final int pageSize = calendarLayoutManager.getPageSize();
+        if (monthCount == 0 || pageSize == 0) {
             return RecyclerView.NO_POSITION;
         }
 
-        final boolean forwardDirection;
-        if (layoutManager.canScrollHorizontally()) {
-            forwardDirection = velocityX > 0;
+        final int targetMonth;
+        if (calendarLayoutManager.isVertical()) {
+            // the month start closest to where the fling would stop on its own
+            int[] distance = calculateScrollDistance(velocityX, velocityY);
+            int scrollOffset = Math.max(0, Math.min(calendarLayoutManager.getScrollOffset() - distance[1],
+                    calendarLayoutManager.getMaxScrollOffset()));
+            targetMonth = MonthNavigator.findNearestMonth(scrollOffset, pageSize,
+                    calendarLayoutManager.getViewportSize(), monthCount);
         } else {
-            forwardDirection = velocityY > 0;
+            targetMonth = MonthNavigator.findTargetMonth(calendarLayoutManager.getScrollOffset(), pageSize,
+                    monthCount, velocityX > 0);
         }
-        boolean reverseLayout = false;
-        if ((layoutManager instanceof RecyclerView.SmoothScroller.ScrollVectorProvider)) {
-            RecyclerView.SmoothScroller.ScrollVectorProvider vectorProvider =
-                    (RecyclerView.SmoothScroller.ScrollVectorProvider) layoutManager;
-            PointF vectorForEnd = vectorProvider.computeScrollVectorForPosition(itemCount - 1);
-            if (vectorForEnd != null) {
-                reverseLayout = vectorForEnd.x < 0 || vectorForEnd.y < 0;
-            }
-        }
-        mSnapPosition = reverseLayout
-                ? (forwardDirection ? centerPosition - ITEM_PER_MONTH : centerPosition)
-                : (forwardDirection ? centerPosition + ITEM_PER_MONTH : centerPosition);
+
+        mNavigator.cancel();
+        // the months up to the target get prefetched while the fling goes
+        calendarLayoutManager.setTargetMonth(targetMonth);
+        mSnapPosition = getCenterPosition(targetMonth);
         return mSnapPosition;
     }
 
     @Override
-    protected LinearSmoothScroller createSnapScroller(final RecyclerView.LayoutManager layoutManager) {
-        if (!(layoutManager instanceof RecyclerView.SmoothScroller.ScrollVectorProvider)) {
+    protected LinearSmoothScroller createSnapScroller(RecyclerView.LayoutManager layoutManager) {
+        if (!(layoutManager instanceof CalendarLayoutManager)) {
             return null;
         }
+        final CalendarLayoutManager calendarLayoutManager = (CalendarLayoutManager) layoutManager;
         return new LinearSmoothScroller(mRecyclerView.getContext()) {
 
             // Trigger a scroll to a further distance than TARGET_SEEK_SCROLL_DISTANCE_PX so that if target
@@ -134,9 +222,10 @@ class CalendarSnapHelper extends PagerSnapHelper {
                 normalize(scrollVector);
                 mTargetVector = scrollVector;
 
-                final View centerView = findCenterView(layoutManager, getHorizontalHelper(layoutManager));
-                assert centerView != null;
-                final int targetSeekScrollDistancePx = (int) (mRecyclerView.getWidth() - centerView.getX() - centerView.getWidth() / 2);
+                // distance left to the target page, known from the scroll offset
+                final int targetSeekScrollDistancePx = Math.max(1, Math.abs(MonthNavigator.getSnapDistance(
+                        calendarLayoutManager.getScrollOffset(), calendarLayoutManager.getPageSize(),
+                        calendarLayoutManager.getViewportSize(), getTargetPosition() / mItemPerMonth)));
                 mInterimTargetDx = (int) (targetSeekScrollDistancePx * scrollVector.x);
                 mInterimTargetDy = (int) (targetSeekScrollDistancePx * scrollVector.y);
                 final int time = calculateTimeForScrolling(targetSeekScrollDistancePx);
@@ -150,150 +239,99 @@ class CalendarSnapHelper extends PagerSnapHelper {
         };
     }
 
-    /**
-     * Return the child view that is currently closest to the center of this parent.
-     *
-     * @param layoutManager The {@link RecyclerView.LayoutManager} associated with the attached
-     *                      {@link RecyclerView}.
-     * @param helper        The relevant {@link OrientationHelper} for the attached {@link RecyclerView}.
-     * @return the child view that is currently closest to the center of this parent.
-     */
-    @Nullable
-    private View findCenterView(RecyclerView.LayoutManager layoutManager,
-                                OrientationHelper helper) {
-        int childCount = layoutManager.getChildCount();
-        if (childCount == 0) {
-            return null;
-        }
+    @Override
+    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) throws IllegalStateException {
+        super.attachToRecyclerView(recyclerView);
+        mRecyclerView = recyclerView;
+    }
 
-        View closestChild = null;
-        final int center;
-        if (layoutManager.getClipToPadding()) {
-            center = helper.getStartAfterPadding() + helper.getTotalSpace() / 2;
-        } else {
-            center = helper.getEnd() / 2;
-        }
-        int absClosest = Integer.MAX_VALUE;
-
-        for (int i = 0; i < childCount; i++) {
-            final View child = layoutManager.getChildAt(i);
-            final int childMonthIndex = layoutManager.getPosition(child) % ITEM_PER_MONTH;
-            if (childMonthIndex != ITEM_PER_MONTH / 2) {
-                i += ITEM_PER_MONTH * (childMonthIndex > ITEM_PER_MONTH / 2 ? 1.5f : 0.5f) - childMonthIndex - 1;
-                continue;
-            }
-            int childCenter = helper.getDecoratedStart(child)
-                    + (helper.getDecoratedMeasurement(child) / 2);
-            int absDistance = Math.abs(childCenter - center);
-
-            // if child center is closer than previous closest, set it as closest
-            if (absDistance < absClosest) {
-                absClosest = absDistance;
-                closestChild = child;
-            }
-        }
-        return closestChild;
+    private CalendarLayoutManager getCalendarLayoutManager() {
+        return mRecyclerView == null ? null : (CalendarLayoutManager) mRecyclerView.getLayoutManager();
+    }
+
+    private int getCenterPosition(int month) {
+        return MonthNavigator.getCenterPosition(month, mItemPerMonth);
     }
 
     /**
-     * Return the child view that is currently closest to the start of this parent.
-     *
-     * @param layoutManager The {@link RecyclerView.LayoutManager} associated with the attached
-     *                      {@link RecyclerView}.
-     * @param helper        The relevant {@link OrientationHelper} for the attached {@link RecyclerView}.
-     * @return the child view that is currently closest to the start of this parent.
+     * @return position the last snap or navigation settles on, or the center of the current month
+     * while scrolling vertically.
      */
-    @Nullable
-    private View findStartView(RecyclerView.LayoutManager layoutManager, OrientationHelper helper) {
-        int childCount = layoutManager.getChildCount();
-        if (childCount == 0) {
-            return null;
+    int getSnapPosition() {
+        CalendarLayoutManager layoutManager = getCalendarLayoutManager();
+        if (layoutManager != null && layoutManager.isVertical() && !isNavigating()) {
+            // continuous scrolls settle anywhere, and the month window moves under them
+            return getCenterPosition(layoutManager.getCurrentMonth());
         }
+        return mSnapPosition;
+    }
 
-        View closestChild = null;
-        int startest = Integer.MAX_VALUE;
+    /**
+     * @param snapVertically Whether vertical scrolls settle on a month start rather than anywhere.
+     */
+    void setSnapVertically(boolean snapVertically) {
+        mSnapVertically = snapVertically;
+    }
 
-        for (int i = 0; i < childCount; i++) {
-            final View child = layoutManager.getChildAt(i);
-            int childStart = helper.getDecoratedStart(child);
+    boolean isSnapVertically() {
+        return mSnapVertically;
+    }
 
-            // if child is more to start than previous closest, set it as closest
-            if (childStart < startest) {
-                startest = childStart;
-                closestChild = child;
-            }
-        }
-        return closestChild;
+    private boolean isSnapping() {
+        CalendarLayoutManager layoutManager = getCalendarLayoutManager();
+        return layoutManager == null || !layoutManager.isVertical() || mSnapVertically;
     }
 
-    @NonNull
-    private OrientationHelper getHorizontalHelper(
-            @NonNull RecyclerView.LayoutManager layoutManager) {
-        if (mHorizontalHelper == null) {
-            mHorizontalHelper = OrientationHelper.createHorizontalHelper(layoutManager);
-        }
-        return mHorizontalHelper;
+    boolean isNavigating() {
+        return mNavigator.isNavigating();
     }
 
-    @Override
-    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) throws IllegalStateException {
-        super.attachToRecyclerView(recyclerView);
-        mRecyclerView = recyclerView;
+    /**
+     * Set the number of adapter items making one month page, {@link #ITEM_PER_MONTH} cells or a
+     * single item in month grid mode. The layout manager is expected to change along with it.
+     */
+    void setItemPerMonth(int itemPerMonth) {
+        mNavigator.cancel();
+        mItemPerMonth = itemPerMonth;
     }
 
-    int getSnapPosition() {
-        return mSnapPosition;
+    /**
+     * @param tracker Tracker to tell when a fling starts, or {@code null} when metrics are off.
+     */
+    void setScrollMetricsTracker(@Nullable ScrollMetricsTracker tracker) {
+        mScrollMetricsTracker = tracker;
     }
 
+    /**
+     * Navigate to the next month. Taps coming faster than the scroll are coalesced into a single
+     * navigation to the month they add up to.
+     */
     void next() {
-        mSnapPosition -= ITEM_PER_MONTH * (mSnapPosition % ITEM_PER_MONTH == 0 ? 0.5 : 1);
-        mRecyclerView.smoothScrollToPosition(mSnapPosition);
-        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-
-            boolean mScrolled = false;
-
-            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
-                super.onScrollStateChanged(recyclerView, newState);
-                if (newState == 0 && this.mScrolled) {
-                    mRecyclerView.removeOnScrollListener(this);
-                    mRecyclerView.scrollToPosition(mSnapPosition);
-                }
-            }
-
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                if (dx != 0 || dy != 0) {
-                    this.mScrolled = true;
-                }
-            }
-        });
-        mRecyclerView.smoothScrollToPosition(mSnapPosition);
+        mNavigator.next();
     }
 
+    /**
+     * Navigate to the previous month, see {@link #next()}.
+     */
     void prev() {
-        mSnapPosition += ITEM_PER_MONTH * (mSnapPosition % ITEM_PER_MONTH == 0 ? 1.5 : 1);
-        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-
-            boolean mScrolled = false;
-
-            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
-                super.onScrollStateChanged(recyclerView, newState);
-                if (newState == 0 && this.mScrolled) {
-                    mRecyclerView.removeOnScrollListener(this);
-                    mRecyclerView.scrollToPosition(mSnapPosition);
-                }
-            }
+        mNavigator.prev();
+    }
 
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                if (dx != 0 || dy != 0) {
-                    this.mScrolled = true;
-                }
-            }
-        });
-        mRecyclerView.smoothScrollToPosition(mSnapPosition);
+    /**
+     * Follow {@code months} months inserted before the snap position, or removed when negative,
+     * ending any navigation in progress.
+     */
+    void offsetMonths(int months) {
+        mNavigator.cancel();
+        mSnapPosition = Math.max(0, mSnapPosition + months * mItemPerMonth);
     }
 
+    /**
+     * Jump without animation to the month {@code month} months before the last month of the adapter.
+     */
     void gotoMonth(int month) {
-        mSnapPosition += month * ITEM_PER_MONTH;
+        mNavigator.cancel();
+        mSnapPosition = getCenterPosition(month);
         mRecyclerView.scrollToPosition(mSnapPosition);
     }
 }
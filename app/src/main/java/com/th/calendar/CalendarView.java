@@ -1,25 +1,137 @@
 package com.th.calendar;
 
 import android.content.Context;
-import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.constraint.ConstraintLayout;
-import android.support.v7.widget.GridLayoutManager;
-import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
+import android.util.SparseArray;
 import android.view.View;
-import android.view.ViewTreeObserver;
 import android.widget.TextView;
 
 import java.util.Calendar;
-
-import static com.th.calendar.CalendarAdapter.MONTH_PER_YEAR;
-import static com.th.calendar.CalendarAdapter.TYPE_DAY;
-import static com.th.calendar.CalendarAdapter.TYPE_TITLE;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 public class CalendarView extends ConstraintLayout implements View.OnClickListener {
 
+    /**
+     * A click selects the clicked day, see {@link #setSelectedDate(int, int, int)}.
+     */
+    public static final int SELECTION_MODE_SINGLE = 0;
+    /**
+     * A first click starts a range and a second one ends it, see
+     * {@link #setSelectedRange(Calendar, Calendar)}.
+     */
+    public static final int SELECTION_MODE_RANGE = 1;
+    /**
+     * Months are pages from left to right, see {@link #setOrientation(int)}.
+     */
+    public static final int ORIENTATION_HORIZONTAL = 0;
+    /**
+     * Months follow each other from top to bottom and scroll continuously, see
+     * {@link #setOrientation(int)}.
+     */
+    public static final int ORIENTATION_VERTICAL = 1;
+
+    private static final int DEFAULT_PREFETCH_MONTHS = 2;
+    // shared by every calendar not given an executor, created on first use
+    private static ExecutorService sMonthDataExecutor;
+    // shared by the year overviews of every calendar, created on first use
+    private static ExecutorService sMiniMonthExecutor;
+    // shared by the event overlays of every calendar, created on first use
+    private static ExecutorService sEventOverlayExecutor;
+
     private CalendarSnapHelper mSnapHelper;
+    private RecyclerView mRecyclerView;
+    private TextView mMonthView;
+    private View mNextView;
+    private View mPrevView;
+    private YearOverviewView mYearOverviewView;
+    // month the header shows
+    private int mHeaderMonth = -1;
+    private CalendarAdapter mAdapter;
+    private OnDateClickListener mOnDateClickListener;
+    private int mSelectionMode = SELECTION_MODE_SINGLE;
+    // whether the next click in range mode starts a new range
+    private boolean mRangeComplete = true;
+    private MonthDataScheduler mMonthDataScheduler;
+    private CalendarMetrics mMetrics;
+    private ScrollMetricsTracker mScrollMetricsTracker;
+    private CalendarViewPool mViewPool = new CalendarViewPool();
+    // whether mViewPool is the calendar's own pool, prewarmed while attached
+    private boolean mDefaultViewPool = true;
+    private int mOrientation = ORIENTATION_HORIZONTAL;
+    private int mPrefetchMonths = CalendarLayoutManager.DEFAULT_PREFETCH_MONTHS;
+    private MonthFastScroller mFastScroller;
+    private RecurringEvents mRecurringEvents;
+    private EventOverlay mEventOverlay;
+    private final EventOverlay.Listener mEventOverlayListener = new EventOverlay.Listener() {
+        @Override
+        public void onOverlayMonthChanged(int yearMonth) {
+            mAdapter.notifyMonthChanged(yearMonth, CalendarAdapter.PAYLOAD_EVENTS);
+        }
+    };
+    private Heatmap mHeatmap;
+    private final Heatmap.Listener mHeatmapListener = new Heatmap.Listener() {
+        @Override
+        public void onHeatmapMonthChanged(int yearMonth) {
+            mAdapter.notifyMonthChanged(yearMonth, CalendarAdapter.PAYLOAD_HEATMAP);
+        }
+    };
+    private final RecurringEvents.Listener mRecurringEventsListener = new RecurringEvents.Listener() {
+        @Override
+        public void onRecurringEventsMonthChanged(int yearMonth) {
+            mAdapter.notifyMonthChanged(yearMonth, CalendarAdapter.PAYLOAD_EVENTS);
+        }
+    };
+    // moves the position window once a scroll settles close to its edges
+    private final Runnable mCenterWindowRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!mSnapHelper.isNavigating() && mRecyclerView.getScrollState() == RecyclerView.SCROLL_STATE_IDLE) {
+                int month = getCurrentYearMonth();
+                if (mAdapter.isWindowCentered(month)) {
+                    return;
+                }
+                if (mOrientation == ORIENTATION_VERTICAL) {
+                    // stay where the continuous scroll stopped rather than on the month start
+                    setRangeScrollOffset(getRangeScrollOffset());
+                } else {
+                    showMonth(month);
+                }
+            }
+        }
+    };
+
+    // highlights today, then runs again at the next midnight
+    private final Runnable mTodayRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Calendar now = Calendar.getInstance();
+            mAdapter.setToday(CalendarDates.epochDay(now));
+            mYearOverviewView.setToday(CalendarDates.epochDay(now));
+
+            Calendar midnight = (Calendar) now.clone();
+            midnight.add(Calendar.DAY_OF_MONTH, 1);
+            midnight.set(Calendar.HOUR_OF_DAY, 0);
+            midnight.set(Calendar.MINUTE, 0);
+            midnight.set(Calendar.SECOND, 0);
+            midnight.set(Calendar.MILLISECOND, 0);
+            removeCallbacks(this);
+            postDelayed(this, midnight.getTimeInMillis() - now.getTimeInMillis());
+        }
+    };
 
     public CalendarView(Context context) {
         this(context, null);
@@ -37,84 +149,894 @@ public class CalendarView extends ConstraintLayout implements View.OnClickListen
     void init(final Context context) {
         View root = inflate(context, R.layout.calendar_view, this);
 
-        final TextView monthView = root.findViewById(R.id.month);
-        final View nextView = root.findViewById(R.id.next);
-        final View prevView = root.findViewById(R.id.prev);
+        mMonthView = root.findViewById(R.id.month);
+        mNextView = root.findViewById(R.id.next);
+        mPrevView = root.findViewById(R.id.prev);
+        mYearOverviewView = root.findViewById(R.id.year_overview);
         final RecyclerView recyclerView = root.findViewById(R.id.days);
         final CalendarAdapter adapter = new CalendarAdapter();
-        GridLayoutManager layoutManager = new GridLayoutManager(context, 13, LinearLayoutManager.HORIZONTAL, true);
-        layoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+        final int todayMonth = CalendarDates.yearMonth(Calendar.getInstance());
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+        Calendar startCalendar = Calendar.getInstance();
+        Calendar endCalendar = Calendar.getInstance();
+        startCalendar.set(1900, 0, 1);
+        endCalendar.set(2100, 0, 31);
+        adapter.setRange(startCalendar, endCalendar);
+        adapter.centerWindow(todayMonth);
+        adapter.setOnDayClickListener(new CalendarAdapter.OnDayClickListener() {
             @Override
-            public int getSpanSize(int position) {
-                switch (adapter.getItemViewType(position)) {
-                    case TYPE_TITLE:
-                        return 1;
-                    case TYPE_DAY:
-                        return 2;
-                    default:
-                        return -1;
+            public void onDayClick(int epochDay) {
+                selectDay(epochDay);
+                if (mOnDateClickListener != null) {
+                    int month = CalendarDates.yearMonthOfEpochDay(epochDay);
+                    mOnDateClickListener.onDateClick(CalendarView.this, CalendarDates.year(month), CalendarDates.month(month), CalendarDates.dayOfMonth(epochDay));
                 }
             }
         });
-        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setLayoutManager(createLayoutManager());
+        recyclerView.setRecycledViewPool(mViewPool.getRecycledViewPool());
 
         mSnapHelper = new CalendarSnapHelper();
         mSnapHelper.attachToRecyclerView(recyclerView);
-        recyclerView.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+        // set up before the first layout, which then shows the current month right away
+        recyclerView.setAdapter(adapter);
+        showMonth(todayMonth);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+
             @Override
-            public void onGlobalLayout() {
-                adapter.setDimensions(recyclerView.getMeasuredWidth() / 7);
-                Calendar endCalendar = Calendar.getInstance();
-                Calendar startCalendar = Calendar.getInstance();
-                Calendar currentCalendar = Calendar.getInstance();
-                startCalendar.set(1900, 0, 1);
-                endCalendar.set(2100, 0, 1);
-                adapter.setStartCalendar(startCalendar);
-                adapter.setEndCalendar(endCalendar);
-                recyclerView.setAdapter(adapter);
-
-                mSnapHelper.gotoMonth((endCalendar.get(Calendar.YEAR) - currentCalendar.get(Calendar.YEAR)) * MONTH_PER_YEAR + endCalendar.get(Calendar.MONTH) - currentCalendar.get(Calendar.MONTH));
-
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                    recyclerView.getViewTreeObserver().removeOnGlobalLayoutListener(this);
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    // after every other listener, the navigation one included, is done
+                    removeCallbacks(mCenterWindowRunnable);
+                    post(mCenterWindowRunnable);
                 }
             }
-        });
-        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-
-            int mSnapPosition = -1;
 
             @Override
             public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                int snapPosition = mSnapHelper.getSnapPosition();
-                if (snapPosition != mSnapPosition) {
-                    mSnapPosition = snapPosition;
-                    Calendar currentMonthCalendar = adapter.getFirstDayOfMonth(snapPosition);
-                    int currentMonth = currentMonthCalendar.get(Calendar.MONTH);
-                    int currentYear = currentMonthCalendar.get(Calendar.YEAR);
-                    Calendar endCalendar = adapter.getEndCalendar();
-                    Calendar startCalendar = adapter.getStartCalendar();
-                    nextView.setVisibility(currentMonth == endCalendar.get(Calendar.MONTH) && currentYear == endCalendar.get(Calendar.YEAR) ? GONE : VISIBLE);
-                    prevView.setVisibility(currentMonth == startCalendar.get(Calendar.MONTH) && currentYear == startCalendar.get(Calendar.YEAR) ? GONE : VISIBLE);
-
-                    monthView.setText(String.format("%tB %s", currentMonthCalendar, currentYear != Calendar.getInstance().get(Calendar.YEAR) ? currentYear : "").trim());
+                int currentMonth = getCurrentYearMonth();
+                if (currentMonth != mHeaderMonth) {
+                    mHeaderMonth = currentMonth;
+                    if (mMonthDataScheduler != null) {
+                        mMonthDataScheduler.setCurrentMonth(currentMonth);
+                    }
+                    if (mEventOverlay != null) {
+                        mEventOverlay.setCurrentMonth(currentMonth);
+                    }
+                    updateHeader();
                 }
             }
         });
 
-        nextView.setOnClickListener(this);
-        prevView.setOnClickListener(this);
+        mYearOverviewView.setExecutor(getMiniMonthExecutor());
+        mYearOverviewView.setOnMonthClickListener(new YearOverviewView.OnMonthClickListener() {
+            @Override
+            public void onMonthClick(YearOverviewView view, int yearMonth) {
+                setYearOverviewMode(false);
+                showMonth(yearMonth);
+            }
+        });
+        mNextView.setOnClickListener(this);
+        mPrevView.setOnClickListener(this);
+    }
+
+    /**
+     * Show the current month in the header, or the year in year overview mode, hiding next and
+     * prev at the ends of the range.
+     */
+    private void updateHeader() {
+        int minMonth = mAdapter.getMinMonth();
+        int maxMonth = mAdapter.getMaxMonth();
+        if (isYearOverviewMode()) {
+            int year = mYearOverviewView.getYear();
+            mNextView.setVisibility(year >= CalendarDates.year(maxMonth) ? GONE : VISIBLE);
+            mPrevView.setVisibility(year <= CalendarDates.year(minMonth) ? GONE : VISIBLE);
+            mMonthView.setText(String.format(Locale.getDefault(), "%d", year));
+        } else {
+            int currentMonth = getCurrentYearMonth();
+            mNextView.setVisibility(currentMonth == maxMonth ? GONE : VISIBLE);
+            mPrevView.setVisibility(currentMonth == minMonth ? GONE : VISIBLE);
+            mMonthView.setText(CalendarLabels.get(getContext(), mAdapter.getWeekStart()).getMonthTitle(currentMonth));
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        mAdapter.setDimensions(mRecyclerView.getMeasuredWidth() / CalendarDates.DAY_PER_WEEK);
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.mMonth = getCurrentYearMonth();
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        // before the first layout, which then shows it without scrolling
+        showMonth(savedState.mMonth);
+    }
+
+    @Override
+    protected void dispatchSaveInstanceState(SparseArray<Parcelable> container) {
+        // the children ids are the same in every calendar, the month is all the state there is
+        dispatchFreezeSelfOnly(container);
+    }
+
+    @Override
+    protected void dispatchRestoreInstanceState(SparseArray<Parcelable> container) {
+        dispatchThawSelfOnly(container);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mTodayRunnable.run();
+        if (mDefaultViewPool) {
+            mViewPool.prewarm(getContext());
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(mTodayRunnable);
+        removeCallbacks(mCenterWindowRunnable);
+        if (mDefaultViewPool) {
+            mViewPool.cancelPrewarm();
+        }
+        if (mScrollMetricsTracker != null) {
+            mScrollMetricsTracker.stop();
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        // delayed runnables do not count deep sleep, the midnight one may be late
+        if (visibility == VISIBLE) {
+            mTodayRunnable.run();
+        }
+    }
+
+    private int getCurrentYearMonth() {
+        return mAdapter.getMonth(mSnapHelper.getSnapPosition());
+    }
+
+    /**
+     * Jump to {@code month} without scrolling through the months in between, moving the position
+     * window first when needed.
+     */
+    private void showMonth(int month) {
+        month = Math.max(mAdapter.getMinMonth(), Math.min(month, mAdapter.getMaxMonth()));
+        if (!mAdapter.isWindowCentered(month)) {
+            mAdapter.centerWindow(month);
+        }
+        if (mRecyclerView.getAdapter() != null) {
+            mSnapHelper.gotoMonth(mAdapter.getMonthOffset(month));
+        }
+    }
+
+    /**
+     * Show {@code month} of {@code year} right away, however far it is from the current month.
+     *
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     */
+    public void setCurrentMonth(int year, int month) {
+        showMonth(CalendarDates.yearMonth(year, month));
+    }
+
+    /**
+     * @return year of the month currently shown.
+     */
+    public int getCurrentYear() {
+        return CalendarDates.year(getCurrentYearMonth());
+    }
+
+    /**
+     * @return month currently shown, {@code 0} being {@link Calendar#JANUARY}.
+     */
+    public int getCurrentMonth() {
+        return CalendarDates.month(getCurrentYearMonth());
+    }
+
+    /**
+     * Set the first date that can be selected, January 1st 1900 by default. Earlier months are not
+     * shown and earlier days of its month are disabled. The current month stays where it is, so
+     * the range can grow while scrolling, a few years at a time.
+     *
+     * @param minDate First date, or {@code null} to scroll back without limit.
+     */
+    public void setMinDate(@Nullable Calendar minDate) {
+        updateDayRange(minDate == null ? DayMasks.NO_LIMIT_MIN : CalendarDates.epochDay(minDate), mAdapter.getMaxDay());
+    }
+
+    /**
+     * Set the last date that can be selected, January 31st 2100 by default. Later months are not
+     * shown and later days of its month are disabled.
+     *
+     * @param maxDate Last date, or {@code null} to scroll forward without limit.
+     */
+    public void setMaxDate(@Nullable Calendar maxDate) {
+        updateDayRange(mAdapter.getMinDay(), maxDate == null ? DayMasks.NO_LIMIT_MAX : CalendarDates.epochDay(maxDate));
+    }
+
+    /**
+     * Set both the first and the last date that can be selected, see {@link #setMinDate(Calendar)}
+     * and {@link #setMaxDate(Calendar)}.
+     */
+    public void setDateRange(@Nullable Calendar minDate, @Nullable Calendar maxDate) {
+        updateDayRange(minDate == null ? DayMasks.NO_LIMIT_MIN : CalendarDates.epochDay(minDate),
+                maxDate == null ? DayMasks.NO_LIMIT_MAX : CalendarDates.epochDay(maxDate));
+    }
+
+    /**
+     * Insert and remove the months entering and leaving the range at the edges of the position
+     * window, the current month staying where it is without any of its days rebound, unless it
+     * leaves the range.
+     */
+    private void updateDayRange(int minDay, int maxDay) {
+        int month = getCurrentYearMonth();
+        int endMonth = mAdapter.getEndMonth();
+        mRecyclerView.stopScroll();
+        boolean windowKept = mAdapter.updateDayRange(minDay, maxDay);
+        if (mMonthDataScheduler != null) {
+            mMonthDataScheduler.setRange(mAdapter.getMinMonth(), mAdapter.getMaxMonth());
+        }
+        if (!windowKept || month < mAdapter.getMinMonth() || month > mAdapter.getMaxMonth()) {
+            showMonth(month);
+            return;
+        }
+        // positions count from the end month
+        mSnapHelper.offsetMonths(mAdapter.getEndMonth() - endMonth);
+    }
+
+    private RecyclerView.LayoutManager createLayoutManager() {
+        CalendarLayoutManager layoutManager = new CalendarLayoutManager(mAdapter.getItemPerMonth(), mOrientation == ORIENTATION_VERTICAL);
+        layoutManager.setPrefetchMonths(mPrefetchMonths);
+        layoutManager.setMetrics(mMetrics);
+        return layoutManager;
+    }
+
+    private CalendarLayoutManager getLayoutManager() {
+        return (CalendarLayoutManager) mRecyclerView.getLayoutManager();
+    }
+
+    /**
+     * @return distance scrolled from the last month of the range, not just of the month window.
+     */
+    private long getRangeScrollOffset() {
+        CalendarLayoutManager layoutManager = getLayoutManager();
+        return (long) (mAdapter.getMaxMonth() - mAdapter.getEndMonth()) * layoutManager.getPageSize()
+                + layoutManager.getScrollOffset();
+    }
+
+    private long getMaxRangeScrollOffset() {
+        CalendarLayoutManager layoutManager = getLayoutManager();
+        long monthCount = (long) mAdapter.getMaxMonth() - mAdapter.getMinMonth() + 1;
+        return Math.max(0, monthCount * layoutManager.getPageSize() - layoutManager.getViewportSize());
+    }
+
+    /**
+     * Scroll to {@code rangeScrollOffset}, moving the month window first when it is close to its
+     * edges. Short distances are scrolled rather than laid out again.
+     */
+    private void setRangeScrollOffset(long rangeScrollOffset) {
+        CalendarLayoutManager layoutManager = getLayoutManager();
+        int pageSize = layoutManager.getPageSize();
+        if (pageSize <= 0) {
+            return;
+        }
+        rangeScrollOffset = Math.max(0, Math.min(rangeScrollOffset, getMaxRangeScrollOffset()));
+        int month = (int) (mAdapter.getMaxMonth() - rangeScrollOffset / pageSize);
+        boolean moveWindow = !mAdapter.isWindowCentered(month);
+        if (moveWindow) {
+            mAdapter.centerWindow(month);
+        }
+        int scrollOffset = (int) (rangeScrollOffset - (long) (mAdapter.getMaxMonth() - mAdapter.getEndMonth()) * pageSize);
+        int delta = layoutManager.getScrollOffset() - scrollOffset;
+        if (!moveWindow && Math.abs(delta) < layoutManager.getViewportSize()) {
+            if (layoutManager.isVertical()) {
+                mRecyclerView.scrollBy(0, delta);
+            } else {
+                mRecyclerView.scrollBy(delta, 0);
+            }
+        } else {
+            layoutManager.scrollToOffset(scrollOffset);
+        }
+    }
+
+    /**
+     * Show the months as pages from left to right, snapping on each, or from top to bottom
+     * scrolling continuously, see {@link #setSnapToMonthStart(boolean)}. The current month is kept
+     * when switching.
+     *
+     * @param orientation {@link #ORIENTATION_HORIZONTAL} or {@link #ORIENTATION_VERTICAL}.
+     */
+    public void setOrientation(int orientation) {
+        if (mOrientation == orientation) {
+            return;
+        }
+        int month = mSnapHelper.getSnapPosition() / mAdapter.getItemPerMonth();
+        mOrientation = orientation;
+        mRecyclerView.setLayoutManager(createLayoutManager());
+        if (mRecyclerView.getAdapter() != null) {
+            mSnapHelper.gotoMonth(month);
+        }
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * Make vertical scrolls settle with a month starting at the top of the view, rather than
+     * anywhere. Horizontal scrolls always settle on a month page.
+     */
+    public void setSnapToMonthStart(boolean snapToMonthStart) {
+        mSnapHelper.setSnapVertically(snapToMonthStart);
+    }
+
+    public boolean isSnapToMonthStart() {
+        return mSnapHelper.isSnapVertically();
+    }
+
+    /**
+     * Show a thumb on the right edge of a vertical calendar, dragged to go through the whole range
+     * of months at once.
+     */
+    public void setFastScrollEnabled(boolean fastScrollEnabled) {
+        if (isFastScrollEnabled() == fastScrollEnabled) {
+            return;
+        }
+        if (fastScrollEnabled) {
+            mFastScroller = new MonthFastScroller(getContext(), new MonthFastScroller.Host() {
+                @Override
+                public float getScrollFraction() {
+                    long maxRangeScrollOffset = getMaxRangeScrollOffset();
+                    return maxRangeScrollOffset == 0 ? 0 : (float) ((double) getRangeScrollOffset() / maxRangeScrollOffset);
+                }
+
+                @Override
+                public void scrollToFraction(float fraction) {
+                    setRangeScrollOffset(Math.round(fraction * (double) getMaxRangeScrollOffset()));
+                }
+            });
+            mRecyclerView.addItemDecoration(mFastScroller);
+            mRecyclerView.addOnItemTouchListener(mFastScroller);
+        } else {
+            mRecyclerView.removeItemDecoration(mFastScroller);
+            mRecyclerView.removeOnItemTouchListener(mFastScroller);
+            mFastScroller = null;
+        }
+    }
+
+    /**
+     * Create and bind the items of the next {@code prefetchMonths} months in the direction of a
+     * scroll in the idle time of the frames before they show, rather than on the frame they do.
+     * Flings and next/prev never prefetch past the month they settle on. One month by default,
+     * see {@link CalendarMetrics#getPrefetchedMonthTransitions()} for how often it was enough.
+     *
+     * @param prefetchMonths Number of months prefetched, {@code 0} for none.
+     */
+    public void setPrefetchMonths(int prefetchMonths) {
+        if (prefetchMonths < 0) {
+            throw new IllegalArgumentException("Prefetch months " + prefetchMonths + " is negative");
+        }
+        mPrefetchMonths = prefetchMonths;
+        getLayoutManager().setPrefetchMonths(prefetchMonths);
+    }
+
+    public int getPrefetchMonths() {
+        return mPrefetchMonths;
+    }
+
+    public boolean isFastScrollEnabled() {
+        return mFastScroller != null;
+    }
+
+    @Nullable
+    MonthFastScroller getFastScroller() {
+        return mFastScroller;
+    }
+
+    /**
+     * Draw each month on a single view instead of one view per day and weekday title. Month grid
+     * mode is much lighter to scroll, the current month is kept when switching.
+     */
+    public void setMonthGridMode(boolean monthGridMode) {
+        if (mAdapter.isMonthGridMode() == monthGridMode) {
+            return;
+        }
+        int month = mSnapHelper.getSnapPosition() / mAdapter.getItemPerMonth();
+        mAdapter.setMonthGridMode(monthGridMode);
+        mSnapHelper.setItemPerMonth(mAdapter.getItemPerMonth());
+        mRecyclerView.setLayoutManager(createLayoutManager());
+        if (mRecyclerView.getAdapter() != null) {
+            mSnapHelper.gotoMonth(month);
+        }
+    }
+
+    public boolean isMonthGridMode() {
+        return mAdapter.isMonthGridMode();
+    }
+
+    /**
+     * Show the 12 months of the current year instead of the pager, next and prev then going
+     * through the years. Tapping a month goes back to the pager, right on that month.
+     * <p>
+     * The months are drawn into bitmaps on a background thread, cached along with the ones of the
+     * years around so that going through the years shows them right away.
+     */
+    public void setYearOverviewMode(boolean yearOverviewMode) {
+        if (isYearOverviewMode() == yearOverviewMode) {
+            return;
+        }
+        if (yearOverviewMode) {
+            mYearOverviewView.setLabels(CalendarLabels.get(getContext(), mAdapter.getWeekStart()));
+            mYearOverviewView.setYear(getCurrentYear());
+            mYearOverviewView.setVisibility(VISIBLE);
+            // kept laid out, going back shows its month without a layout pass
+            mRecyclerView.setVisibility(INVISIBLE);
+        } else {
+            mYearOverviewView.setVisibility(GONE);
+            mRecyclerView.setVisibility(VISIBLE);
+        }
+        updateHeader();
+    }
+
+    public boolean isYearOverviewMode() {
+        return mYearOverviewView.getVisibility() == VISIBLE;
+    }
+
+    /**
+     * Show a dot under the days having events, up to 3 dots for days having several.
+     *
+     * @param eventIndex Events to show, or {@code null} for none.
+     */
+    public void setEventIndex(@Nullable EventIndex eventIndex) {
+        mAdapter.setEventIndex(eventIndex);
+    }
+
+    /**
+     * Show a dot under the days recurring events happen on, along with the ones of the event
+     * index. Occurrences are only expanded for the months shown, and shown again as soon as a rule
+     * changes.
+     *
+     * @param recurringEvents Events to show, or {@code null} for none.
+     */
+    public void setRecurringEvents(@Nullable RecurringEvents recurringEvents) {
+        if (mRecurringEvents != null) {
+            mRecurringEvents.removeListener(mRecurringEventsListener);
+        }
+        mRecurringEvents = recurringEvents;
+        if (recurringEvents != null) {
+            recurringEvents.addListener(mRecurringEventsListener);
+        }
+        mAdapter.setRecurringEvents(recurringEvents);
+    }
+
+    /**
+     * Show the events of several sources under the days, each in its color, see
+     * {@link EventOverlay}. The months are summarized on a pool of background threads shared by
+     * the calendars, and turning a source on or off only rebinds the months it has events in.
+     *
+     * @param eventOverlay Sources of events to show, or {@code null} for none.
+     */
+    public void setEventOverlay(@Nullable EventOverlay eventOverlay) {
+        if (mEventOverlay != null) {
+            mEventOverlay.removeListener(mEventOverlayListener);
+            mEventOverlay.setExecutors(null, null);
+        }
+        mEventOverlay = eventOverlay;
+        if (eventOverlay != null) {
+            final Handler handler = new Handler(Looper.getMainLooper());
+            eventOverlay.setExecutors(getEventOverlayExecutor(), new Executor() {
+                @Override
+                public void execute(@NonNull Runnable command) {
+                    handler.post(command);
+                }
+            });
+            eventOverlay.addListener(mEventOverlayListener);
+            eventOverlay.setCurrentMonth(getCurrentYearMonth());
+        }
+        mAdapter.setEventOverlay(eventOverlay);
+    }
+
+    /**
+     * Color the background of the days with their intensity, see {@link Heatmap}. Changing its
+     * values only rebinds the months whose colors changed.
+     *
+     * @param heatmap Colors of the days, or {@code null} for none.
+     */
+    public void setHeatmap(@Nullable Heatmap heatmap) {
+        if (mHeatmap != null) {
+            mHeatmap.removeListener(mHeatmapListener);
+        }
+        mHeatmap = heatmap;
+        if (heatmap != null) {
+            heatmap.addListener(mHeatmapListener);
+        }
+        mAdapter.setHeatmap(heatmap);
+    }
+
+    /**
+     * Load the events of the months around the current one in the background, see
+     * {@link MonthDataLoader}. Loads run one at a time on a thread shared by the calendars.
+     *
+     * @param loader Loader of the events, or {@code null} to stop loading.
+     */
+    public void setMonthDataLoader(@Nullable MonthDataLoader loader) {
+        setMonthDataLoader(loader, DEFAULT_PREFETCH_MONTHS, null);
+    }
+
+    /**
+     * Load the events of the months around the current one in the background, see
+     * {@link MonthDataLoader}.
+     *
+     * @param loader         Loader of the events, or {@code null} to stop loading.
+     * @param prefetchMonths Number of months loaded before and after the current one.
+     * @param executor       Executor running the loads, or {@code null} for a thread shared by the
+     *                       calendars.
+     */
+    public void setMonthDataLoader(@Nullable MonthDataLoader loader, int prefetchMonths, @Nullable ExecutorService executor) {
+        if (mMonthDataScheduler != null) {
+            mMonthDataScheduler.release();
+            mMonthDataScheduler = null;
+        }
+        if (loader != null) {
+            final Handler handler = new Handler(Looper.getMainLooper());
+            mMonthDataScheduler = new MonthDataScheduler(loader, prefetchMonths,
+                    executor != null ? executor : getMonthDataExecutor(),
+                    new Executor() {
+                        @Override
+                        public void execute(@NonNull Runnable command) {
+                            handler.post(command);
+                        }
+                    },
+                    new MonthDataScheduler.Listener() {
+                        @Override
+                        public void onMonthLoaded(int month) {
+                            mAdapter.notifyMonthChanged(month, CalendarAdapter.PAYLOAD_EVENTS);
+                        }
+                    });
+            mMonthDataScheduler.setRange(mAdapter.getMinMonth(), mAdapter.getMaxMonth());
+            mMonthDataScheduler.setCurrentMonth(getCurrentYearMonth());
+        }
+        mAdapter.setMonthDataScheduler(mMonthDataScheduler);
+    }
+
+    /**
+     * Take the day views from {@code pool}, shared with the other calendars of the screen. The
+     * calendar otherwise has its own pool, prewarmed while attached.
+     *
+     * @param pool Pool sized for the calendars sharing it, or {@code null} for the calendar's own.
+     */
+    public void setViewPool(@Nullable CalendarViewPool pool) {
+        if (mDefaultViewPool) {
+            mViewPool.cancelPrewarm();
+        }
+        mDefaultViewPool = pool == null;
+        mViewPool = pool != null ? pool : new CalendarViewPool();
+        mRecyclerView.setRecycledViewPool(mViewPool.getRecycledViewPool());
+    }
+
+    /**
+     * Record inflations, binds, snap settle times and scroll frames into {@link #getMetrics()},
+     * reported to {@code listener} each time a scroll settles. Recording allocates nothing, and
+     * costs nothing with no listener.
+     *
+     * @param listener Listener of the metrics, or {@code null} to stop recording.
+     */
+    public void setMetricsListener(@Nullable MetricsListener listener) {
+        if (mScrollMetricsTracker != null) {
+            mScrollMetricsTracker.stop();
+            mRecyclerView.removeOnScrollListener(mScrollMetricsTracker);
+            mScrollMetricsTracker = null;
+            mMetrics = null;
+        }
+        if (listener != null) {
+            mMetrics = new CalendarMetrics();
+            mScrollMetricsTracker = new ScrollMetricsTracker(this, mMetrics, listener);
+            mRecyclerView.addOnScrollListener(mScrollMetricsTracker);
+        }
+        mAdapter.setMetrics(mMetrics);
+        getLayoutManager().setMetrics(mMetrics);
+        mSnapHelper.setScrollMetricsTracker(mScrollMetricsTracker);
+    }
+
+    /**
+     * @return metrics recorded since the listener was set, or {@code null} without a listener.
+     */
+    @Nullable
+    public CalendarMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    private static synchronized ExecutorService getMonthDataExecutor() {
+        if (sMonthDataExecutor == null) {
+            sMonthDataExecutor = newBackgroundExecutor("CalendarView month data");
+        }
+        return sMonthDataExecutor;
+    }
+
+    private static synchronized ExecutorService getMiniMonthExecutor() {
+        if (sMiniMonthExecutor == null) {
+            sMiniMonthExecutor = newBackgroundExecutor("CalendarView mini months");
+        }
+        return sMiniMonthExecutor;
+    }
+
+    private static synchronized ExecutorService getEventOverlayExecutor() {
+        if (sEventOverlayExecutor == null) {
+            // months merged in parallel, leaving a core to the main thread
+            int threadCount = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+            sEventOverlayExecutor = newBackgroundExecutor("CalendarView event overlay", threadCount);
+        }
+        return sEventOverlayExecutor;
+    }
+
+    private static ExecutorService newBackgroundExecutor(String name) {
+        return newBackgroundExecutor(name, 1);
+    }
+
+    private static ExecutorService newBackgroundExecutor(final String name, int threadCount) {
+        return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Select {@code dayOfMonth} of {@code month} of {@code year}, as a click on the day does.
+     *
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     */
+    public void setSelectedDate(int year, int month, int dayOfMonth) {
+        mAdapter.setSelectedDay(CalendarDates.epochDay(year, month, dayOfMonth));
+    }
+
+    public void clearSelectedDate() {
+        mAdapter.setSelectedDay(CalendarAdapter.NO_DAY);
+    }
+
+    /**
+     * @return selected date at midnight, or {@code null} when there is none.
+     */
+    @Nullable
+    public Calendar getSelectedDate() {
+        return toCalendar(mAdapter.getSelectedDay());
+    }
+
+    @Nullable
+    private static Calendar toCalendar(int epochDay) {
+        if (epochDay == CalendarAdapter.NO_DAY) {
+            return null;
+        }
+        int month = CalendarDates.yearMonthOfEpochDay(epochDay);
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(CalendarDates.year(month), CalendarDates.month(month), CalendarDates.dayOfMonth(epochDay));
+        return calendar;
+    }
+
+    private void selectDay(int epochDay) {
+        if (mSelectionMode == SELECTION_MODE_SINGLE) {
+            mAdapter.setSelectedDay(epochDay);
+        } else if (mRangeComplete || epochDay < mAdapter.getRangeStart()) {
+            mAdapter.setSelectedRange(epochDay, epochDay);
+            mRangeComplete = false;
+        } else {
+            mAdapter.setSelectedRange(mAdapter.getRangeStart(), epochDay);
+            mRangeComplete = true;
+        }
+    }
+
+    /**
+     * @param selectionMode {@link #SELECTION_MODE_SINGLE} or {@link #SELECTION_MODE_RANGE}.
+     */
+    public void setSelectionMode(int selectionMode) {
+        if (mSelectionMode != selectionMode) {
+            mSelectionMode = selectionMode;
+            clearSelectedDate();
+            clearSelectedRange();
+        }
+    }
+
+    public int getSelectionMode() {
+        return mSelectionMode;
+    }
+
+    /**
+     * Select the days from {@code start} to {@code end}, both inclusive, only rebinding the months
+     * whose selected days change.
+     */
+    public void setSelectedRange(Calendar start, Calendar end) {
+        mAdapter.setSelectedRange(CalendarDates.epochDay(start), CalendarDates.epochDay(end));
+        mRangeComplete = true;
+    }
+
+    public void clearSelectedRange() {
+        mAdapter.setSelectedRange(CalendarAdapter.NO_DAY, CalendarAdapter.NO_DAY);
+        mRangeComplete = true;
+    }
+
+    /**
+     * @return first day of the selected range at midnight, or {@code null} when there is none.
+     */
+    @Nullable
+    public Calendar getSelectedRangeStart() {
+        return toCalendar(mAdapter.getRangeStart());
+    }
+
+    /**
+     * @return last day of the selected range at midnight, or {@code null} when there is none.
+     */
+    @Nullable
+    public Calendar getSelectedRangeEnd() {
+        return toCalendar(mAdapter.getRangeEnd());
+    }
+
+    /**
+     * Disable {@code dates}, besides the days out of the min and max dates and the disabled days
+     * of the week. Disabled days cannot be clicked.
+     *
+     * @param dates Dates to disable, in the time zone of each.
+     */
+    public void setBlackoutDates(Collection<Calendar> dates) {
+        int[] days = new int[dates.size()];
+        int i = 0;
+        for (Calendar date : dates) {
+            days[i++] = CalendarDates.epochDay(date);
+        }
+        mAdapter.setBlackoutDays(days);
+    }
+
+    /**
+     * Disable the given days of every week.
+     *
+     * @param daysOfWeek Days of the week, from {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}.
+     */
+    public void setDisabledDaysOfWeek(int... daysOfWeek) {
+        int mask = 0;
+        for (int dayOfWeek : daysOfWeek) {
+            mask |= 1 << (dayOfWeek - Calendar.SUNDAY);
+        }
+        mAdapter.setDisabledDaysOfWeek(mask);
+    }
+
+    /**
+     * Start the weeks on {@code firstDayOfWeek}, Sunday by default. Pass
+     * {@link Calendar#getFirstDayOfWeek()} of {@link Calendar#getInstance()} to follow the locale.
+     *
+     * @param firstDayOfWeek From {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}.
+     */
+    public void setFirstDayOfWeek(int firstDayOfWeek) {
+        mAdapter.setWeekStart(firstDayOfWeek - Calendar.SUNDAY);
+        if (isYearOverviewMode()) {
+            mYearOverviewView.setLabels(CalendarLabels.get(getContext(), mAdapter.getWeekStart()));
+        }
+    }
+
+    public int getFirstDayOfWeek() {
+        return Calendar.SUNDAY + mAdapter.getWeekStart();
+    }
+
+    public void setOnDateClickListener(OnDateClickListener onDateClickListener) {
+        mOnDateClickListener = onDateClickListener;
     }
 
     @Override
     public void onClick(View view) {
         switch (view.getId()) {
             case R.id.next:
-                mSnapHelper.next();
+                if (isYearOverviewMode()) {
+                    mYearOverviewView.setYear(mYearOverviewView.getYear() + 1);
+                    updateHeader();
+                } else {
+                    mSnapHelper.next();
+                }
                 break;
             case R.id.prev:
-                mSnapHelper.prev();
+                if (isYearOverviewMode()) {
+                    mYearOverviewView.setYear(mYearOverviewView.getYear() - 1);
+                    updateHeader();
+                } else {
+                    mSnapHelper.prev();
+                }
                 break;
         }
     }
+
+    public interface OnDateClickListener {
+
+        /**
+         * @param month      Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+         * @param dayOfMonth Day of the month, starting at {@code 1}.
+         */
+        void onDateClick(CalendarView view, int year, int month, int dayOfMonth);
+    }
+
+    /**
+     * Source of the events of a month, for events living in a database or behind a slow provider.
+     */
+    public interface MonthDataLoader {
+
+        /**
+         * Called on a background thread for the months around the current one. The thread is
+         * interrupted when the month gets scrolled past before loading ends.
+         *
+         * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+         * @return event count of each day of the month, index {@code 0} being the first day, or
+         * {@code null} when there are none.
+         */
+        @Nullable
+        int[] loadMonth(int year, int month);
+    }
+
+    /**
+     * Listener of the {@link CalendarMetrics}, see {@link #setMetricsListener(MetricsListener)}.
+     */
+    public interface MetricsListener {
+
+        /**
+         * Called on the main thread each time a scroll settles.
+         *
+         * @param metrics Metrics recorded so far, updated in place and only valid on the main
+         *                thread.
+         */
+        void onScrollMetrics(CalendarView view, CalendarMetrics metrics);
+    }
+
+    static class SavedState extends BaseSavedState {
+
+        // see CalendarDates#yearMonth(int, int)
+        int mMonth;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        SavedState(Parcel source) {
+            super(source);
+            mMonth = source.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(mMonth);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
 }
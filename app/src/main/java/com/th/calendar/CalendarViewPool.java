@@ -0,0 +1,106 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+import android.widget.FrameLayout;
+
+/**
+ * Views of the {@link CalendarView}s, sized to keep {@link #POOL_MONTHS} whole months of cells per
+ * calendar instead of the 5 views per type of a default {@link RecyclerView.RecycledViewPool}.
+ * <p>
+ * Share one pool between the calendars of a screen with
+ * {@link CalendarView#setViewPool(CalendarViewPool)}, and {@link #prewarm(Context)} it before they
+ * show so that their first layout binds views rather than creating them.
+ */
+public final class CalendarViewPool {
+
+    /**
+     * Months of cells kept per calendar: the current one and one on each side.
+     */
+    static final int POOL_MONTHS = 3;
+    // the current month and the one a first swipe reveals
+    private static final int PREWARM_MONTHS = 2;
+    private static final int TITLE_PER_MONTH = CalendarDates.DAY_PER_WEEK;
+    private static final int DAY_PER_MONTH = CalendarSnapHelper.ITEM_PER_MONTH - TITLE_PER_MONTH;
+
+    private final RecyclerView.RecycledViewPool mPool = new RecyclerView.RecycledViewPool();
+
+    private CalendarAdapter mPrewarmAdapter;
+    private FrameLayout mPrewarmParent;
+    // cells left to create
+    private int mPrewarmTitleCount = TITLE_PER_MONTH * PREWARM_MONTHS;
+    private int mPrewarmDayCount = DAY_PER_MONTH * PREWARM_MONTHS;
+
+    // creates a week of cells each time the main thread is idle, until two months are ready
+    private final MessageQueue.IdleHandler mPrewarmHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mPool.putRecycledView(mPrewarmAdapter.createViewHolder(mPrewarmParent, CalendarAdapter.TYPE_TITLE));
+            mPrewarmTitleCount--;
+            for (int i = 1; i < CalendarDates.DAY_PER_WEEK && mPrewarmDayCount > 0; i++) {
+                mPool.putRecycledView(mPrewarmAdapter.createViewHolder(mPrewarmParent, CalendarAdapter.TYPE_DAY));
+                mPrewarmDayCount--;
+            }
+            if (mPrewarmTitleCount > 0) {
+                return true;
+            }
+            mPrewarmAdapter = null;
+            mPrewarmParent = null;
+            return false;
+        }
+    };
+
+    /**
+     * Pool for a single calendar.
+     */
+    public CalendarViewPool() {
+        this(1);
+    }
+
+    /**
+     * @param calendarCount Number of calendars sharing the pool.
+     */
+    public CalendarViewPool(int calendarCount) {
+        mPool.setMaxRecycledViews(CalendarAdapter.TYPE_TITLE, TITLE_PER_MONTH * POOL_MONTHS * calendarCount);
+        mPool.setMaxRecycledViews(CalendarAdapter.TYPE_DAY, DAY_PER_MONTH * POOL_MONTHS * calendarCount);
+        mPool.setMaxRecycledViews(CalendarAdapter.TYPE_MONTH, POOL_MONTHS * calendarCount);
+    }
+
+    /**
+     * Create the cells of two months, a week at a time whenever the main thread is idle, so that a
+     * calendar using the pool shows and swipes without creating any. Does nothing once they have
+     * been created or while they are, a cancelled prewarm resuming where it stopped. Must be called
+     * on the main thread.
+     *
+     * @param context Context of the calendars, giving the views their theme.
+     */
+    public void prewarm(Context context) {
+        if (mPrewarmAdapter != null || mPrewarmTitleCount == 0) {
+            return;
+        }
+        mPrewarmAdapter = new CalendarAdapter();
+        mPrewarmParent = new FrameLayout(context);
+        Looper.myQueue().addIdleHandler(mPrewarmHandler);
+    }
+
+    /**
+     * Stop a running {@link #prewarm(Context)}, keeping the views created so far.
+     */
+    public void cancelPrewarm() {
+        if (mPrewarmAdapter != null) {
+            Looper.myQueue().removeIdleHandler(mPrewarmHandler);
+            mPrewarmAdapter = null;
+            mPrewarmParent = null;
+        }
+    }
+
+    boolean isPrewarming() {
+        return mPrewarmAdapter != null;
+    }
+
+    RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return mPool;
+    }
+}
@@ -0,0 +1,232 @@
+package com.th.calendar;
+
+import java.util.Arrays;
+
+/**
+ * Disabled days and selected range compiled into one int per month, bit {@code d - 1} standing for
+ * day {@code d}, in primitive arrays indexed by month offset like {@link MonthTable}.
+ * <p>
+ * Binding a cell is then a shift and a mask whatever the number of rules. Changing a rule or the
+ * range recompiles the masks and reports the months whose mask changed to the {@link Listener},
+ * moving one end of the range only recompiling the months between its old and new position.
+ */
+class DayMasks {
+
+    static final int NO_LIMIT_MIN = Integer.MIN_VALUE;
+    static final int NO_LIMIT_MAX = Integer.MAX_VALUE;
+
+    private MonthTable mMonthTable;
+    private int[] mDisabledMasks = new int[0];
+    private int[] mRangeMasks = new int[0];
+
+    // disabled date rules
+    private int mMinDay = NO_LIMIT_MIN;
+    private int mMaxDay = NO_LIMIT_MAX;
+    private int[] mBlackoutDays = new int[0];
+    // bit 0 being Sunday
+    private int mDisabledDaysOfWeek;
+
+    private int mRangeStart = CalendarDates.NO_DAY;
+    private int mRangeEnd = CalendarDates.NO_DAY;
+
+    private final Listener mListener;
+
+    DayMasks(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Compile every month of {@code monthTable}, without reporting any change.
+     */
+    void build(MonthTable monthTable) {
+        mMonthTable = monthTable;
+        int monthCount = monthTable.getMonthCount();
+        if (mDisabledMasks.length < monthCount) {
+            mDisabledMasks = new int[monthCount];
+            mRangeMasks = new int[monthCount];
+        }
+        for (int i = 0; i < monthCount; i++) {
+            mDisabledMasks[i] = compileDisabled(i);
+            mRangeMasks[i] = compileRange(i);
+        }
+    }
+
+    boolean isDisabled(int monthOffset, int dayOfMonth) {
+        return (mDisabledMasks[monthOffset] >>> (dayOfMonth - 1) & 1) != 0;
+    }
+
+    boolean isInRange(int monthOffset, int dayOfMonth) {
+        return (mRangeMasks[monthOffset] >>> (dayOfMonth - 1) & 1) != 0;
+    }
+
+    int getDisabledMask(int monthOffset) {
+        return mDisabledMasks[monthOffset];
+    }
+
+    int getRangeMask(int monthOffset) {
+        return mRangeMasks[monthOffset];
+    }
+
+    int getMinDay() {
+        return mMinDay;
+    }
+
+    int getMaxDay() {
+        return mMaxDay;
+    }
+
+    /**
+     * Disable the days before {@code minDay} and after {@code maxDay}.
+     */
+    void setDayRange(int minDay, int maxDay) {
+        if (mMinDay != minDay || mMaxDay != maxDay) {
+            mMinDay = minDay;
+            mMaxDay = maxDay;
+            recompileDisabled();
+        }
+    }
+
+    /**
+     * @param blackoutDays Epoch days to disable, in any order.
+     */
+    void setBlackoutDays(int[] blackoutDays) {
+        int[] days = Arrays.copyOf(blackoutDays, blackoutDays.length);
+        Arrays.sort(days);
+        if (!Arrays.equals(mBlackoutDays, days)) {
+            mBlackoutDays = days;
+            recompileDisabled();
+        }
+    }
+
+    /**
+     * @param daysOfWeek Days of the week to disable, bit {@code 0} being Sunday.
+     */
+    void setDisabledDaysOfWeek(int daysOfWeek) {
+        if (mDisabledDaysOfWeek != daysOfWeek) {
+            mDisabledDaysOfWeek = daysOfWeek;
+            recompileDisabled();
+        }
+    }
+
+    int getRangeStart() {
+        return mRangeStart;
+    }
+
+    int getRangeEnd() {
+        return mRangeEnd;
+    }
+
+    /**
+     * Select the days from {@code start} to {@code end}, both inclusive, or clear the range when
+     * either is {@link CalendarDates#NO_DAY}.
+     */
+    void setRange(int start, int end) {
+        if (start == CalendarDates.NO_DAY || end == CalendarDates.NO_DAY) {
+            start = end = CalendarDates.NO_DAY;
+        } else if (start > end) {
+            int day = start;
+            start = end;
+            end = day;
+        }
+        if (start == mRangeStart && end == mRangeEnd) {
+            return;
+        }
+        int previousStart = mRangeStart;
+        int previousEnd = mRangeEnd;
+        mRangeStart = start;
+        mRangeEnd = end;
+        if (mMonthTable == null) {
+            return;
+        }
+        // months between the old and new position of each end, the others keep their mask
+        if (previousStart == CalendarDates.NO_DAY || start == CalendarDates.NO_DAY) {
+            int from = previousStart == CalendarDates.NO_DAY ? start : previousStart;
+            int to = previousStart == CalendarDates.NO_DAY ? end : previousEnd;
+            recompileRange(from, to);
+        } else {
+            recompileRange(Math.min(previousStart, start), Math.max(previousStart, start));
+            recompileRange(Math.min(previousEnd, end), Math.max(previousEnd, end));
+        }
+    }
+
+    private void recompileDisabled() {
+        if (mMonthTable == null) {
+            return;
+        }
+        for (int i = 0, monthCount = mMonthTable.getMonthCount(); i < monthCount; i++) {
+            int mask = compileDisabled(i);
+            if (mDisabledMasks[i] != mask) {
+                mDisabledMasks[i] = mask;
+                mListener.onMonthMaskChanged(i);
+            }
+        }
+    }
+
+    /**
+     * Recompile the range masks of the months from the one of {@code fromDay} to the one of
+     * {@code toDay}, clipped to the table.
+     */
+    private void recompileRange(int fromDay, int toDay) {
+        int monthCount = mMonthTable.getMonthCount();
+        // offsets grow towards the past
+        int fromOffset = Math.max(getMonthOffset(toDay), 0);
+        int toOffset = Math.min(getMonthOffset(fromDay), monthCount - 1);
+        for (int i = fromOffset; i <= toOffset; i++) {
+            int mask = compileRange(i);
+            if (mRangeMasks[i] != mask) {
+                mRangeMasks[i] = mask;
+                mListener.onMonthMaskChanged(i);
+            }
+        }
+    }
+
+    private int getMonthOffset(int epochDay) {
+        int endMonth = CalendarDates.yearMonthOfEpochDay(mMonthTable.getFirstEpochDay(0));
+        return endMonth - CalendarDates.yearMonthOfEpochDay(epochDay);
+    }
+
+    private int compileDisabled(int monthOffset) {
+        int firstDay = mMonthTable.getFirstEpochDay(monthOffset);
+        int daysInMonth = mMonthTable.getDaysInMonth(monthOffset);
+        int lastDay = firstDay + daysInMonth - 1;
+
+        // days out of [min, max] are the complement of the days in it
+        int mask = ~daysMask(firstDay, daysInMonth, mMinDay, mMaxDay) & daysMask(firstDay, daysInMonth, firstDay, lastDay);
+
+        if (mDisabledDaysOfWeek != 0) {
+            int dayOfWeek = mMonthTable.getFirstDayIndex(monthOffset);
+            for (int day = 0; day < daysInMonth; day++) {
+                mask |= (mDisabledDaysOfWeek >>> dayOfWeek & 1) << day;
+                dayOfWeek = dayOfWeek == CalendarDates.DAY_PER_WEEK - 1 ? 0 : dayOfWeek + 1;
+            }
+        }
+
+        int index = Arrays.binarySearch(mBlackoutDays, firstDay);
+        for (index = index >= 0 ? index : -index - 1; index < mBlackoutDays.length && mBlackoutDays[index] <= lastDay; index++) {
+            mask |= 1 << (mBlackoutDays[index] - firstDay);
+        }
+        return mask;
+    }
+
+    private int compileRange(int monthOffset) {
+        if (mRangeStart == CalendarDates.NO_DAY) {
+            return 0;
+        }
+        return daysMask(mMonthTable.getFirstEpochDay(monthOffset), mMonthTable.getDaysInMonth(monthOffset), mRangeStart, mRangeEnd);
+    }
+
+    /**
+     * @return bits of the days of the month from {@code fromDay} to {@code toDay}, both inclusive.
+     */
+    private static int daysMask(int firstDay, int daysInMonth, int fromDay, int toDay) {
+        // in long since the bounds may be far from the month
+        long from = Math.max((long) fromDay - firstDay, 0);
+        long to = Math.min((long) toDay - firstDay, daysInMonth - 1);
+        return from > to ? 0 : (int) ((1L << (to + 1)) - (1L << from));
+    }
+
+    interface Listener {
+
+        void onMonthMaskChanged(int monthOffset);
+    }
+}
@@ -0,0 +1,156 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.AppCompatTextView;
+import android.util.AttributeSet;
+
+/**
+ * Day cell of the 49 items layout: the day number with up to {@link #MAX_EVENT_DOTS} event dots
+ * drawn under it in the color of their source, over a filled circle when selected and a ring when
+ * today, and the heatmap color of the day behind them.
+ */
+class DayView extends AppCompatTextView {
+
+    static final int MAX_EVENT_DOTS = 3;
+
+    private final Paint mEventPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int mAccentColor;
+    private final Paint mSelectedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTodayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    // color set at draw time, no drawable per day
+    private final Paint mHeatPaint = new Paint();
+    private final float mEventRadius;
+    private final float mHeatInset;
+    // label last set, the same day bound again keeping its text without a relayout
+    private CharSequence mDayLabel;
+    private int mEventCount;
+    private int mEventColor;
+    private int mHeatColor;
+    private boolean mDaySelected;
+    private boolean mToday;
+
+    public DayView(Context context) {
+        this(context, null);
+    }
+
+    public DayView(Context context, AttributeSet attrs) {
+        this(context, attrs, android.R.attr.textViewStyle);
+    }
+
+    public DayView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mAccentColor = ContextCompat.getColor(context, R.color.colorAccent);
+        mEventRadius = getResources().getDisplayMetrics().density * 2;
+        mHeatInset = getResources().getDisplayMetrics().density;
+        initDayStatePaints(context, mSelectedPaint, mTodayPaint);
+    }
+
+    /**
+     * Set up the paints of {@link #drawDayState(Canvas, Paint, Paint, float, float, float, boolean, boolean)}.
+     */
+    static void initDayStatePaints(Context context, Paint selectedPaint, Paint todayPaint) {
+        int accentColor = ContextCompat.getColor(context, R.color.colorAccent);
+        selectedPaint.setColor(accentColor);
+        selectedPaint.setAlpha(0x40);
+        todayPaint.setColor(accentColor);
+        todayPaint.setStyle(Paint.Style.STROKE);
+        todayPaint.setStrokeWidth(context.getResources().getDisplayMetrics().density * 1.5f);
+    }
+
+    /**
+     * Set the day number, only setting the text when it changes.
+     */
+    void setDayLabel(CharSequence dayLabel) {
+        if (mDayLabel != dayLabel) {
+            mDayLabel = dayLabel;
+            setText(dayLabel);
+        }
+    }
+
+    /**
+     * Set the number of events of the day, only invalidating the view when it changes.
+     */
+    void setEventCount(int eventCount) {
+        if (mEventCount != eventCount) {
+            mEventCount = eventCount;
+            invalidate();
+        }
+    }
+
+    /**
+     * Set the color of the event dots, {@code 0} for the accent color, only invalidating the view
+     * when it changes.
+     */
+    void setEventColor(int eventColor) {
+        if (mEventColor != eventColor) {
+            mEventColor = eventColor;
+            invalidate();
+        }
+    }
+
+    /**
+     * Set the heatmap color of the day, {@code 0} for none, only invalidating the view when it
+     * changes.
+     */
+    void setHeatColor(int heatColor) {
+        if (mHeatColor != heatColor) {
+            mHeatColor = heatColor;
+            invalidate();
+        }
+    }
+
+    /**
+     * Set whether the day is selected and whether it is today, only invalidating the view when it
+     * changes.
+     */
+    void setDayState(boolean selected, boolean today) {
+        if (mDaySelected != selected || mToday != today) {
+            mDaySelected = selected;
+            mToday = today;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mHeatColor != 0) {
+            mHeatPaint.setColor(mHeatColor);
+            canvas.drawRect(mHeatInset, mHeatInset, getWidth() - mHeatInset, getHeight() - mHeatInset, mHeatPaint);
+        }
+        drawDayState(canvas, mSelectedPaint, mTodayPaint, getWidth() / 2f, getHeight() / 2f,
+                Math.min(getWidth(), getHeight()) * 0.4f, mDaySelected, mToday);
+        super.onDraw(canvas);
+        if (mEventCount > 0) {
+            mEventPaint.setColor(mEventColor != 0 ? mEventColor : mAccentColor);
+            drawEventDots(canvas, mEventPaint, getWidth() / 2f, getHeight() - mEventRadius * 4, mEventRadius, mEventCount);
+        }
+    }
+
+    /**
+     * Draw the circle behind a selected day and the ring around today.
+     */
+    static void drawDayState(Canvas canvas, Paint selectedPaint, Paint todayPaint, float centerX, float centerY,
+                             float radius, boolean selected, boolean today) {
+        if (selected) {
+            canvas.drawCircle(centerX, centerY, radius, selectedPaint);
+        }
+        if (today) {
+            canvas.drawCircle(centerX, centerY, radius, todayPaint);
+        }
+    }
+
+    /**
+     * Draw up to {@link #MAX_EVENT_DOTS} dots centered on {@code centerX}.
+     */
+    static void drawEventDots(Canvas canvas, Paint paint, float centerX, float centerY, float radius, int eventCount) {
+        int dotCount = Math.min(eventCount, MAX_EVENT_DOTS);
+        float spacing = radius * 3;
+        float x = centerX - spacing * (dotCount - 1) / 2;
+        for (int i = 0; i < dotCount; i++) {
+            canvas.drawCircle(x + spacing * i, centerY, radius, paint);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.th.calendar;
+
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * Number of events per day, shown as dots under the days of {@link CalendarView}.
+ * <p>
+ * Days are kept as sorted epoch days next to their event count in two int arrays, 8 bytes per day
+ * having events whatever the number of events, and looked up by binary search without boxing. Build
+ * one with {@link Builder} and pass it to {@link CalendarView#setEventIndex(EventIndex)}.
+ */
+public final class EventIndex {
+
+    private final int[] mDays;
+    private final int[] mCounts;
+    private final int mDayCount;
+
+    private EventIndex(int[] days, int[] counts, int dayCount) {
+        mDays = days;
+        mCounts = counts;
+        mDayCount = dayCount;
+    }
+
+    /**
+     * @return number of events on {@code dayOfMonth} of {@code month} of {@code year}.
+     */
+    public int getEventCount(int year, int month, int dayOfMonth) {
+        return getEventCount(CalendarDates.epochDay(year, month, dayOfMonth));
+    }
+
+    int getEventCount(int epochDay) {
+        int index = Arrays.binarySearch(mDays, 0, mDayCount, epochDay);
+        return index >= 0 ? mCounts[index] : 0;
+    }
+
+    /**
+     * @return number of days having at least one event.
+     */
+    public int getDayCount() {
+        return mDayCount;
+    }
+
+    /**
+     * @return epoch day of the {@code index}th day having events, in increasing order.
+     */
+    int getDayAt(int index) {
+        return mDays[index];
+    }
+
+    /**
+     * @return index of the first day having events on or after {@code epochDay}, or
+     * {@link #getDayCount()} when none.
+     */
+    int findDayIndex(int epochDay) {
+        int index = Arrays.binarySearch(mDays, 0, mDayCount, epochDay);
+        return index >= 0 ? index : ~index;
+    }
+
+    /**
+     * @return number of events of the day at {@code index}, see {@link #getDayAt(int)}.
+     */
+    int getCountAt(int index) {
+        return mCounts[index];
+    }
+
+    /**
+     * @return bytes held by the index.
+     */
+    long getSizeInBytes() {
+        return 4L * (mDays.length + mCounts.length);
+    }
+
+    public static final class Builder {
+
+        private int[] mDays = new int[16];
+        private int mSize;
+
+        /**
+         * Add an event on {@code dayOfMonth} of {@code month} of {@code year}.
+         *
+         * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+         */
+        public Builder add(int year, int month, int dayOfMonth) {
+            return addEpochDay(CalendarDates.epochDay(year, month, dayOfMonth));
+        }
+
+        /**
+         * Add an event on the day of {@code date}, in the time zone of {@code date}.
+         */
+        public Builder add(Calendar date) {
+            return addEpochDay(CalendarDates.epochDay(date));
+        }
+
+        Builder addEpochDay(int epochDay) {
+            if (mSize == mDays.length) {
+                mDays = Arrays.copyOf(mDays, mSize * 2);
+            }
+            mDays[mSize++] = epochDay;
+            return this;
+        }
+
+        public EventIndex build() {
+            int[] days = Arrays.copyOf(mDays, mSize);
+            Arrays.sort(days);
+
+            // count the events of each distinct day, compacting days in place
+            int[] counts = new int[countDistinct(days)];
+            int dayCount = 0;
+            for (int i = 0; i < days.length; i++) {
+                if (dayCount == 0 || days[dayCount - 1] != days[i]) {
+                    days[dayCount++] = days[i];
+                }
+                counts[dayCount - 1]++;
+            }
+            return new EventIndex(dayCount == days.length ? days : Arrays.copyOf(days, dayCount), counts, dayCount);
+        }
+
+        private static int countDistinct(int[] sortedDays) {
+            int count = 0;
+            for (int i = 0; i < sortedDays.length; i++) {
+                if (i == 0 || sortedDays[i] != sortedDays[i - 1]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
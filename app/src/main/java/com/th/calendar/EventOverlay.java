@@ -0,0 +1,428 @@
+package com.th.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Several calendars of events, like personal, team and holidays, shown together as dots under the
+ * days of {@link CalendarView}, each with its color. Pass it to
+ * {@link CalendarView#setEventOverlay(EventOverlay)}.
+ * <p>
+ * The summary of a month is the number of events of the enabled sources on each day, next to a
+ * mask of the sources having events that day. It is built by a k-way merge of the days of the
+ * sources in the month, on a pool of background threads a month per task, and kept in a
+ * {@link MonthDataCache}. The dots of a day take the color of the enabled source of highest
+ * priority having events that day.
+ * <p>
+ * Turning a source on or off only adds or subtracts the events of that source to the cached
+ * months, then rebinds the months it has events in. Adding or removing a source computes every
+ * month again. Every method but the merge runs on the main thread.
+ */
+public final class EventOverlay {
+
+    /**
+     * Number of sources an overlay can hold, a bit of the day masks each.
+     */
+    public static final int MAX_SOURCES = 32;
+
+    private static final int DEFAULT_CACHE_MONTHS = 24;
+    private static final int DEFAULT_PREFETCH_MONTHS = 2;
+
+    private final MonthDataCache mCache;
+    private final List<Listener> mListeners = new ArrayList<>();
+    private final Map<Integer, Future<?>> mMerges = new HashMap<>();
+    private ExecutorService mBackgroundExecutor;
+    private Executor mMainExecutor;
+    private int mPrefetchMonths = DEFAULT_PREFETCH_MONTHS;
+    private int mCurrentMonth = MonthDataCache.NO_MONTH;
+
+    // sources by decreasing priority, the source at index i being bit i of the day masks
+    private int mSourceCount;
+    private int[] mIds = new int[0];
+    private EventIndex[] mEvents = new EventIndex[0];
+    private int[] mColors = new int[0];
+    private int[] mPriorities = new int[0];
+    private int mEnabledMask;
+    // changed with the sources and the executors, merges started before are dropped
+    private int mGeneration;
+
+    public EventOverlay() {
+        this(DEFAULT_CACHE_MONTHS);
+    }
+
+    /**
+     * @param cacheMonths Number of months whose summary is kept, no less than the months showing
+     *                    at once plus the prefetched ones.
+     */
+    public EventOverlay(int cacheMonths) {
+        mCache = new MonthDataCache(cacheMonths);
+    }
+
+    /**
+     * Add the source {@code id}, enabled, or replace it.
+     *
+     * @param events   Days of the events of the source.
+     * @param color    Color of the dots of the days the source wins, in ARGB.
+     * @param priority Sources of higher priority win the days they share with the others, the
+     *                 first added winning between equal priorities.
+     */
+    public void putSource(int id, EventIndex events, int color, int priority) {
+        int index = indexOfSource(id);
+        boolean enabled = index < 0 || isEnabledAt(index);
+        if (index >= 0) {
+            removeAt(index);
+        } else if (mSourceCount == MAX_SOURCES) {
+            throw new IllegalStateException("More than " + MAX_SOURCES + " sources");
+        }
+        // after the sources of the same priority
+        index = 0;
+        while (index < mSourceCount && mPriorities[index] >= priority) {
+            index++;
+        }
+        mIds = insert(mIds, index, id);
+        mEvents = Arrays.copyOf(mEvents, mSourceCount + 1);
+        System.arraycopy(mEvents, index, mEvents, index + 1, mSourceCount - index);
+        mEvents[index] = events;
+        mColors = insert(mColors, index, color);
+        mPriorities = insert(mPriorities, index, priority);
+        int lowBits = mEnabledMask & ((1 << index) - 1);
+        mEnabledMask = lowBits | (mEnabledMask & ~((1 << index) - 1)) << 1 | (enabled ? 1 << index : 0);
+        mSourceCount++;
+        invalidate();
+    }
+
+    /**
+     * Remove the source {@code id}, if any.
+     */
+    public void removeSource(int id) {
+        int index = indexOfSource(id);
+        if (index >= 0) {
+            removeAt(index);
+            invalidate();
+        }
+    }
+
+    /**
+     * Show or hide the events of the source {@code id}, only updating the months it has events in.
+     */
+    public void setSourceEnabled(int id, boolean enabled) {
+        int index = indexOfSource(id);
+        if (index < 0 || isEnabledAt(index) == enabled) {
+            return;
+        }
+        mEnabledMask ^= 1 << index;
+        for (int i = 0; i < mCache.getCapacity(); i++) {
+            int month = mCache.getMonthAt(i);
+            if (month != MonthDataCache.NO_MONTH
+                    && addSourceCounts(mEvents[index], month, mCache.getDataAt(i), enabled ? 1 : -1)) {
+                notifyMonthChanged(month);
+            }
+        }
+    }
+
+    public boolean isSourceEnabled(int id) {
+        int index = indexOfSource(id);
+        return index >= 0 && isEnabledAt(index);
+    }
+
+    public int getSourceCount() {
+        return mSourceCount;
+    }
+
+    /**
+     * @param prefetchMonths Number of months summarized before and after the current one, no less
+     *                       than the months showing next to it.
+     */
+    public void setPrefetchMonths(int prefetchMonths) {
+        mPrefetchMonths = prefetchMonths;
+    }
+
+    /**
+     * @return number of events of the enabled sources on each day of {@code yearMonth}, then the
+     * mask of the sources having events on each day, or {@code null} when not summarized yet.
+     */
+    int[] getMonthSummary(int yearMonth) {
+        return mCache.get(yearMonth);
+    }
+
+    /**
+     * @param summary Summary of the month, see {@link #getMonthSummary(int)}.
+     * @return color of the enabled source of highest priority having events on
+     * {@code dayOfMonth}, or {@code 0} when none.
+     */
+    int getColor(int[] summary, int dayOfMonth) {
+        int sources = summary[summary.length / 2 + dayOfMonth - 1] & mEnabledMask;
+        return sources == 0 ? 0 : mColors[Integer.numberOfTrailingZeros(sources)];
+    }
+
+    /**
+     * Summarize the months around {@code yearMonth} that are neither cached nor being merged.
+     */
+    void setCurrentMonth(int yearMonth) {
+        mCurrentMonth = yearMonth;
+        requestMonth(yearMonth);
+        for (int distance = 1; distance <= mPrefetchMonths; distance++) {
+            requestMonth(yearMonth + distance);
+            requestMonth(yearMonth - distance);
+        }
+    }
+
+    /**
+     * Summarize {@code yearMonth} in the background, unless cached or being merged. Boxes the
+     * month, so not meant for the bind path.
+     */
+    void requestMonth(final int yearMonth) {
+        if (mBackgroundExecutor == null || mCache.contains(yearMonth) || mMerges.containsKey(yearMonth)) {
+            return;
+        }
+        // the sources as of now, read by the merge
+        final EventIndex[] events = Arrays.copyOf(mEvents, mSourceCount);
+        final int enabledMask = mEnabledMask;
+        final int generation = mGeneration;
+        mMerges.put(yearMonth, mBackgroundExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final int[] summary = summarizeMonth(yearMonth, events, enabledMask);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(yearMonth, summary, enabledMask, generation);
+                    }
+                });
+            }
+        }));
+    }
+
+    int getMergingCount() {
+        return mMerges.size();
+    }
+
+    /**
+     * @param backgroundExecutor Pool running the merges, {@code null} to stop merging.
+     * @param mainExecutor       Executor of the main thread, where the summaries are delivered.
+     */
+    void setExecutors(ExecutorService backgroundExecutor, Executor mainExecutor) {
+        cancelMerges();
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
+        requestCurrentMonths();
+    }
+
+    void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Merge the days of {@code events} in {@code yearMonth}, through a heap of the next day of each
+     * source.
+     *
+     * @param enabledMask Sources whose events are counted, bit {@code i} standing for
+     *                    {@code events[i]}.
+     * @return event count of each day, then the mask of the sources having events on each day.
+     */
+    static int[] summarizeMonth(int yearMonth, EventIndex[] events, int enabledMask) {
+        int firstDay = CalendarDates.firstEpochDay(yearMonth);
+        int daysInMonth = CalendarDates.daysInMonth(yearMonth);
+        int endDay = firstDay + daysInMonth;
+        int[] summary = new int[2 * daysInMonth];
+        // next index of each source, and the sources having days left ordered by that day
+        int[] cursors = new int[events.length];
+        int[] heap = new int[events.length];
+        int heapSize = 0;
+        for (int source = 0; source < events.length; source++) {
+            int cursor = events[source].findDayIndex(firstDay);
+            if (cursor < events[source].getDayCount() && events[source].getDayAt(cursor) < endDay) {
+                cursors[source] = cursor;
+                heap[heapSize] = source;
+                siftUp(heap, heapSize++, events, cursors);
+            }
+        }
+        while (heapSize > 0) {
+            int source = heap[0];
+            EventIndex sourceEvents = events[source];
+            int cursor = cursors[source];
+            int day = sourceEvents.getDayAt(cursor) - firstDay;
+            summary[daysInMonth + day] |= 1 << source;
+            if ((enabledMask >>> source & 1) != 0) {
+                summary[day] += sourceEvents.getCountAt(cursor);
+            }
+            cursors[source] = ++cursor;
+            if (cursor >= sourceEvents.getDayCount() || sourceEvents.getDayAt(cursor) >= endDay) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, events, cursors);
+        }
+        return summary;
+    }
+
+    private static void siftUp(int[] heap, int index, EventIndex[] events, int[] cursors) {
+        int source = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isBefore(source, heap[parent], events, cursors)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = source;
+    }
+
+    private static void siftDown(int[] heap, int size, EventIndex[] events, int[] cursors) {
+        if (size == 0) {
+            return;
+        }
+        int source = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && isBefore(heap[child + 1], heap[child], events, cursors)) {
+                child++;
+            }
+            if (!isBefore(heap[child], source, events, cursors)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = source;
+    }
+
+    /**
+     * @return whether the next day of {@code source} comes before the one of {@code other}, sources
+     * of higher priority first on the same day.
+     */
+    private static boolean isBefore(int source, int other, EventIndex[] events, int[] cursors) {
+        int day = events[source].getDayAt(cursors[source]);
+        int otherDay = events[other].getDayAt(cursors[other]);
+        return day < otherDay || day == otherDay && source < other;
+    }
+
+    /**
+     * Add {@code sign} times the events of {@code events} in {@code yearMonth} to the counts of
+     * {@code summary}.
+     *
+     * @return whether the source has events in the month.
+     */
+    private static boolean addSourceCounts(EventIndex events, int yearMonth, int[] summary, int sign) {
+        int firstDay = CalendarDates.firstEpochDay(yearMonth);
+        int endDay = firstDay + summary.length / 2;
+        boolean changed = false;
+        for (int i = events.findDayIndex(firstDay); i < events.getDayCount() && events.getDayAt(i) < endDay; i++) {
+            summary[events.getDayAt(i) - firstDay] += sign * events.getCountAt(i);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private void deliver(int yearMonth, int[] summary, int enabledMask, int generation) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mMerges.remove(yearMonth);
+        // sources turned on or off while merging
+        for (int changed = enabledMask ^ mEnabledMask; changed != 0; changed &= changed - 1) {
+            int source = Integer.numberOfTrailingZeros(changed);
+            addSourceCounts(mEvents[source], yearMonth, summary, isEnabledAt(source) ? 1 : -1);
+        }
+        mCache.put(yearMonth, summary);
+        notifyMonthChanged(yearMonth);
+    }
+
+    /**
+     * Drop every summary, then merge the months around the current one again, the other ones as
+     * they get requested.
+     */
+    private void invalidate() {
+        cancelMerges();
+        for (int i = 0; i < mCache.getCapacity(); i++) {
+            int month = mCache.getMonthAt(i);
+            if (month != MonthDataCache.NO_MONTH) {
+                notifyMonthChanged(month);
+            }
+        }
+        mCache.clear();
+        requestCurrentMonths();
+    }
+
+    private void requestCurrentMonths() {
+        if (mCurrentMonth != MonthDataCache.NO_MONTH) {
+            setCurrentMonth(mCurrentMonth);
+        }
+    }
+
+    private void cancelMerges() {
+        mGeneration++;
+        for (Future<?> merge : mMerges.values()) {
+            merge.cancel(true);
+        }
+        mMerges.clear();
+    }
+
+    private void removeAt(int index) {
+        int highBits = mEnabledMask >>> 1 & ~((1 << index) - 1);
+        mEnabledMask = mEnabledMask & ((1 << index) - 1) | highBits;
+        mIds = remove(mIds, index);
+        System.arraycopy(mEvents, index + 1, mEvents, index, mSourceCount - index - 1);
+        mEvents = Arrays.copyOf(mEvents, mSourceCount - 1);
+        mColors = remove(mColors, index);
+        mPriorities = remove(mPriorities, index);
+        mSourceCount--;
+    }
+
+    private int indexOfSource(int id) {
+        for (int i = 0; i < mSourceCount; i++) {
+            if (mIds[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isEnabledAt(int index) {
+        return (mEnabledMask >>> index & 1) != 0;
+    }
+
+    private static int[] insert(int[] array, int index, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        result[index] = value;
+        return result;
+    }
+
+    private static int[] remove(int[] array, int index) {
+        int[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    private void notifyMonthChanged(int yearMonth) {
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onOverlayMonthChanged(yearMonth);
+        }
+    }
+
+    interface Listener {
+
+        /**
+         * Called on the main thread once the summary of {@code yearMonth} changed, or was dropped.
+         */
+        void onOverlayMonthChanged(int yearMonth);
+    }
+}
@@ -0,0 +1,377 @@
+package com.th.calendar;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Number of events per day kept in a file, so that reopening the calendar shows its dots without
+ * going through the database again. Pass it to {@link CalendarView#setMonthDataLoader(CalendarView.MonthDataLoader)},
+ * which loads the months around the current one from it in the background.
+ * <p>
+ * The file is a header, a table of where the days of each month start, then the days having
+ * events sorted by epoch day next to their count, 8 bytes each:
+ * <pre>
+ * magic, version, log generation, first month, month count
+ * index of the first day of each month, then the day count
+ * epoch day, event count
+ * ...
+ * </pre>
+ * It is mapped rather than read, so opening it parses the header only and loading a month reads
+ * the days of that month right from the mapping.
+ * <p>
+ * Events added later are appended to a log next to the file, replayed in memory when opening the
+ * store, until {@link #compact()} merges them into the file. The log starts with the generation of
+ * the file it applies to, and a compacted file gets the next generation, so a log left over by a
+ * crash after its events were merged is ignored rather than counted twice.
+ */
+public final class EventStore implements CalendarView.MonthDataLoader, Closeable {
+
+    private static final int MAGIC = 0x43414c45;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 5 * 4;
+    private static final int LOG_HEADER_SIZE = 4;
+    private static final int RECORD_SIZE = 2 * 4;
+    private static final String LOG_SUFFIX = ".log";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File mFile;
+    private final File mLogFile;
+    // event count changes of the log by epoch day
+    private final TreeMap<Integer, Integer> mLog = new TreeMap<>();
+    private RandomAccessFile mLogOutput;
+    private FileChannel mChannel;
+    private MappedByteBuffer mBuffer;
+    private int mLogGeneration;
+    private int mFirstMonth;
+    private int mMonthCount;
+
+    private EventStore(File file) {
+        mFile = file;
+        mLogFile = new File(file.getPath() + LOG_SUFFIX);
+    }
+
+    /**
+     * Open the store kept in {@code file}, empty when the file does not exist yet.
+     *
+     * @throws IOException when the file cannot be read or is not a store.
+     */
+    public static EventStore open(File file) throws IOException {
+        if (!file.exists()) {
+            write(file, new EventIndex.Builder().build());
+        }
+        EventStore store = new EventStore(file);
+        try {
+            store.map();
+            store.readLog();
+        } catch (IOException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Replace the content of {@code file} with the events of {@code eventIndex}, typically built
+     * once from the database.
+     */
+    public static void write(File file, EventIndex eventIndex) throws IOException {
+        int dayCount = eventIndex.getDayCount();
+        int[] days = new int[dayCount];
+        int[] counts = new int[dayCount];
+        for (int i = 0; i < dayCount; i++) {
+            days[i] = eventIndex.getDayAt(i);
+            counts[i] = eventIndex.getCountAt(i);
+        }
+        // the log was relative to the replaced content, the new generation leaves it out
+        File logFile = new File(file.getPath() + LOG_SUFFIX);
+        write(file, days, counts, dayCount, readLogGeneration(logFile) + 1);
+        deleteLog(logFile);
+    }
+
+    /**
+     * Add {@code count} events on {@code dayOfMonth} of {@code month} of {@code year}, appended to
+     * the log. A negative count removes events.
+     *
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     */
+    public void add(int year, int month, int dayOfMonth, int count) throws IOException {
+        addEpochDay(CalendarDates.epochDay(year, month, dayOfMonth), count);
+    }
+
+    synchronized void addEpochDay(int epochDay, int count) throws IOException {
+        if (mLogOutput == null) {
+            mLogOutput = new RandomAccessFile(mLogFile, "rw");
+            long length = mLogOutput.length();
+            if (length < LOG_HEADER_SIZE || mLogOutput.readInt() != mLogGeneration) {
+                // left over from a file merged since, or not written yet
+                mLogOutput.setLength(0);
+                mLogOutput.writeInt(mLogGeneration);
+            } else {
+                // over a record cut by a crash
+                mLogOutput.seek(length - (length - LOG_HEADER_SIZE) % RECORD_SIZE);
+            }
+        }
+        mLogOutput.writeInt(epochDay);
+        mLogOutput.writeInt(count);
+        addToLog(epochDay, count);
+    }
+
+    /**
+     * Merge the log into the file, written aside then renamed over it. The store keeps reading
+     * the previous file when the merge fails.
+     */
+    public synchronized void compact() throws IOException {
+        int recordCount = getRecordCount();
+        int[] days = new int[recordCount + mLog.size()];
+        int[] counts = new int[days.length];
+        int size = 0;
+        int record = 0;
+        // both sorted by day
+        for (Map.Entry<Integer, Integer> change : mLog.entrySet()) {
+            int day = change.getKey();
+            while (record < recordCount && getRecordDay(record) < day) {
+                days[size] = getRecordDay(record);
+                counts[size++] = getRecordCount(record++);
+            }
+            int count = change.getValue();
+            if (record < recordCount && getRecordDay(record) == day) {
+                count += getRecordCount(record++);
+            }
+            if (count > 0) {
+                days[size] = day;
+                counts[size++] = count;
+            }
+        }
+        while (record < recordCount) {
+            days[size] = getRecordDay(record);
+            counts[size++] = getRecordCount(record++);
+        }
+
+        try {
+            closeFiles();
+            // the log is left out from the renaming on, whether deleted or not
+            write(mFile, days, counts, size, mLogGeneration + 1);
+            mLog.clear();
+        } finally {
+            // the merged file, or the previous one when the merge failed
+            map();
+        }
+        deleteLog(mLogFile);
+    }
+
+    /**
+     * @return number of events on {@code dayOfMonth} of {@code month} of {@code year}.
+     */
+    public int getEventCount(int year, int month, int dayOfMonth) {
+        return getEventCount(CalendarDates.epochDay(year, month, dayOfMonth));
+    }
+
+    synchronized int getEventCount(int epochDay) {
+        int eventCount = 0;
+        int monthIndex = CalendarDates.yearMonthOfEpochDay(epochDay) - mFirstMonth;
+        if (monthIndex >= 0 && monthIndex < mMonthCount) {
+            // binary search within the days of the month
+            int low = getMonthStart(monthIndex);
+            int high = getMonthStart(monthIndex + 1) - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int day = getRecordDay(middle);
+                if (day < epochDay) {
+                    low = middle + 1;
+                } else if (day > epochDay) {
+                    high = middle - 1;
+                } else {
+                    eventCount = getRecordCount(middle);
+                    break;
+                }
+            }
+        }
+        Integer change = mLog.get(epochDay);
+        return change != null ? Math.max(0, eventCount + change) : eventCount;
+    }
+
+    @Override
+    public synchronized int[] loadMonth(int year, int month) {
+        int yearMonth = CalendarDates.yearMonth(year, month);
+        int firstDay = CalendarDates.firstEpochDay(yearMonth);
+        int[] counts = null;
+        int monthIndex = yearMonth - mFirstMonth;
+        if (monthIndex >= 0 && monthIndex < mMonthCount) {
+            for (int record = getMonthStart(monthIndex), end = getMonthStart(monthIndex + 1); record < end; record++) {
+                if (counts == null) {
+                    counts = new int[CalendarDates.daysInMonth(yearMonth)];
+                }
+                counts[getRecordDay(record) - firstDay] = getRecordCount(record);
+            }
+        }
+        SortedMap<Integer, Integer> changes = mLog.subMap(firstDay, firstDay + CalendarDates.daysInMonth(yearMonth));
+        if (!changes.isEmpty()) {
+            if (counts == null) {
+                counts = new int[CalendarDates.daysInMonth(yearMonth)];
+            }
+            for (Map.Entry<Integer, Integer> change : changes.entrySet()) {
+                int index = change.getKey() - firstDay;
+                counts[index] = Math.max(0, counts[index] + change.getValue());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeFiles();
+    }
+
+    private void closeFiles() throws IOException {
+        mBuffer = null;
+        try {
+            if (mChannel != null) {
+                mChannel.close();
+            }
+        } finally {
+            mChannel = null;
+            if (mLogOutput != null) {
+                mLogOutput.close();
+                mLogOutput = null;
+            }
+        }
+    }
+
+    private void map() throws IOException {
+        FileInputStream input = new FileInputStream(mFile);
+        mChannel = input.getChannel();
+        long size = mChannel.size();
+        if (size < HEADER_SIZE + 4) {
+            throw new IOException(mFile + " is not an event store");
+        }
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (mBuffer.getInt(0) != MAGIC || mBuffer.getInt(4) != VERSION) {
+            throw new IOException(mFile + " is not an event store of version " + VERSION);
+        }
+        mLogGeneration = mBuffer.getInt(8);
+        mFirstMonth = mBuffer.getInt(12);
+        mMonthCount = mBuffer.getInt(16);
+        if (mMonthCount < 0 || getRecordsStart() + (long) getRecordCount() * RECORD_SIZE != size) {
+            throw new IOException(mFile + " is truncated");
+        }
+    }
+
+    private void readLog() throws IOException {
+        if (readLogGeneration(mLogFile) != mLogGeneration) {
+            // missing, or already merged into the file
+            return;
+        }
+        RandomAccessFile log = new RandomAccessFile(mLogFile, "r");
+        try {
+            ByteBuffer buffer = log.getChannel().map(FileChannel.MapMode.READ_ONLY, LOG_HEADER_SIZE,
+                    log.length() - LOG_HEADER_SIZE);
+            // a record cut by a crash is ignored
+            while (buffer.remaining() >= RECORD_SIZE) {
+                addToLog(buffer.getInt(), buffer.getInt());
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * @return generation of the file {@code logFile} applies to, or {@code -1} when missing.
+     */
+    private static int readLogGeneration(File logFile) throws IOException {
+        if (logFile.length() < LOG_HEADER_SIZE) {
+            return -1;
+        }
+        RandomAccessFile log = new RandomAccessFile(logFile, "r");
+        try {
+            return log.readInt();
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * Delete a log whose events are merged. Failing to is harmless, the log having another
+     * generation than the file, and only frees its space.
+     */
+    private static void deleteLog(File logFile) {
+        //noinspection ResultOfMethodCallIgnored
+        logFile.delete();
+    }
+
+    private void addToLog(int epochDay, int count) {
+        Integer change = mLog.get(epochDay);
+        mLog.put(epochDay, change == null ? count : change + count);
+    }
+
+    private int getMonthStart(int monthIndex) {
+        return mBuffer.getInt(HEADER_SIZE + 4 * monthIndex);
+    }
+
+    private int getRecordsStart() {
+        return HEADER_SIZE + 4 * (mMonthCount + 1);
+    }
+
+    private int getRecordCount() {
+        return getMonthStart(mMonthCount);
+    }
+
+    private int getRecordDay(int record) {
+        return mBuffer.getInt(getRecordsStart() + RECORD_SIZE * record);
+    }
+
+    private int getRecordCount(int record) {
+        return mBuffer.getInt(getRecordsStart() + RECORD_SIZE * record + 4);
+    }
+
+    /**
+     * @param days          Days sorted without duplicates, {@code size} first ones written.
+     * @param logGeneration Generation of the log applying to the file.
+     */
+    private static void write(File file, int[] days, int[] counts, int size, int logGeneration) throws IOException {
+        int firstMonth = size == 0 ? 0 : CalendarDates.yearMonthOfEpochDay(days[0]);
+        int monthCount = size == 0 ? 0 : CalendarDates.yearMonthOfEpochDay(days[size - 1]) - firstMonth + 1;
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        FileOutputStream fileOutput = new FileOutputStream(tempFile);
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(logGeneration);
+            output.writeInt(firstMonth);
+            output.writeInt(monthCount);
+            int record = 0;
+            for (int month = firstMonth; month < firstMonth + monthCount; month++) {
+                output.writeInt(record);
+                int nextFirstDay = CalendarDates.firstEpochDay(month + 1);
+                while (record < size && days[record] < nextFirstDay) {
+                    record++;
+                }
+            }
+            output.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                output.writeInt(days[i]);
+                output.writeInt(counts[i]);
+            }
+            output.flush();
+            fileOutput.getFD().sync();
+        } finally {
+            output.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Cannot rename " + tempFile + " to " + file);
+        }
+    }
+}
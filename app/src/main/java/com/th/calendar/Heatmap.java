@@ -0,0 +1,372 @@
+package com.th.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Intensity of each day, like bookings or activity, shown as the background color of the days of
+ * {@link CalendarView}. Pass it to {@link CalendarView#setHeatmap(Heatmap)}.
+ * <p>
+ * Values come in a primitive array indexed by day from a first day, typically the first day of the
+ * range of the calendar. Each value is quantized once into a level of a scale, and each level has
+ * its color in a table interpolated from a low and a high color, so binding a day is two array
+ * reads. Days whose value is not positive, or out of the array, are not colored.
+ * <p>
+ * A hash of the colors of each month is kept. Changing the values or the scale only rebinds the
+ * months whose hash changed. Main thread only.
+ */
+public final class Heatmap {
+
+    /**
+     * Levels evenly spread from the smallest positive value to the largest one.
+     */
+    public static final int SCALE_LINEAR = 0;
+    /**
+     * Levels evenly spread on the logarithm of the values, for values spanning orders of
+     * magnitude.
+     */
+    public static final int SCALE_LOG = 1;
+    /**
+     * Levels holding about as many days each, see {@link #setQuantiles(float...)}.
+     */
+    public static final int SCALE_QUANTILE = 2;
+
+    private static final int DEFAULT_LEVEL_COUNT = 5;
+    private static final int MAX_LEVEL_COUNT = 255;
+    private static final int NO_COLOR = 0;
+
+    private final List<Listener> mListeners = new ArrayList<>();
+    private int mLowColor;
+    private int mHighColor;
+    private int mScale = SCALE_LINEAR;
+    private int mLevelCount = DEFAULT_LEVEL_COUNT;
+    // fractions of the days below each level but the first, quantile scale only
+    private float[] mQuantiles;
+    // values of the lowest and highest levels instead of the smallest and largest values, NaN when not set
+    private float mMinValue = Float.NaN;
+    private float mMaxValue = Float.NaN;
+    // color of each level, level 0 being the days not colored
+    private int[] mColors;
+    private int mFirstDay;
+    private float[] mValues = new float[0];
+    // level of each value, unsigned
+    private byte[] mLevels = new byte[0];
+    private int mFirstMonth;
+    // hash of the colors of each month from mFirstMonth, 0 for a month without color
+    private int[] mMonthHashes = new int[0];
+
+    /**
+     * @param lowColor  Color of the lowest level, in ARGB.
+     * @param highColor Color of the highest level, in ARGB.
+     */
+    public Heatmap(int lowColor, int highColor) {
+        mLowColor = lowColor;
+        mHighColor = highColor;
+        mColors = createColors(lowColor, highColor, mLevelCount);
+    }
+
+    /**
+     * Color the levels from {@code lowColor} to {@code highColor}.
+     */
+    public void setColors(int lowColor, int highColor) {
+        if (mLowColor != lowColor || mHighColor != highColor) {
+            mLowColor = lowColor;
+            mHighColor = highColor;
+            update(mFirstDay, mValues);
+        }
+    }
+
+    /**
+     * @param scale      {@link #SCALE_LINEAR}, {@link #SCALE_LOG} or {@link #SCALE_QUANTILE}.
+     * @param levelCount Number of colors, from {@code 1} to {@code 255}.
+     */
+    public void setScale(int scale, int levelCount) {
+        if (scale < SCALE_LINEAR || scale > SCALE_QUANTILE) {
+            throw new IllegalArgumentException("Unknown scale " + scale);
+        }
+        if (levelCount < 1 || levelCount > MAX_LEVEL_COUNT) {
+            throw new IllegalArgumentException("Level count " + levelCount + " is not between 1 and " + MAX_LEVEL_COUNT);
+        }
+        mScale = scale;
+        mLevelCount = levelCount;
+        mQuantiles = null;
+        update(mFirstDay, mValues);
+    }
+
+    /**
+     * Use the quantile scale with a level above each of {@code quantiles}: {@code 0.5f, 0.9f}
+     * colors the lower half of the days with the low color, the days up to the 90th percentile
+     * with the color between, and the others with the high color.
+     *
+     * @param quantiles Increasing fractions of the days, between {@code 0} and {@code 1}.
+     */
+    public void setQuantiles(float... quantiles) {
+        if (quantiles.length + 1 > MAX_LEVEL_COUNT) {
+            throw new IllegalArgumentException(quantiles.length + " quantiles, more than " + (MAX_LEVEL_COUNT - 1));
+        }
+        for (int i = 0; i < quantiles.length; i++) {
+            if (!(quantiles[i] >= 0 && quantiles[i] <= 1) || i > 0 && quantiles[i] < quantiles[i - 1]) {
+                throw new IllegalArgumentException("Quantiles " + Arrays.toString(quantiles) + " are not increasing fractions");
+            }
+        }
+        mScale = SCALE_QUANTILE;
+        mLevelCount = quantiles.length + 1;
+        mQuantiles = quantiles.clone();
+        update(mFirstDay, mValues);
+    }
+
+    /**
+     * Spread the levels of the linear and log scales between {@code minValue} and
+     * {@code maxValue} rather than the smallest and largest values, keeping the colors of a value
+     * when others change. Values out of it take the lowest or highest level.
+     *
+     * @param minValue Value of the lowest level, positive for the log scale, or {@link Float#NaN}
+     *                 for the smallest value.
+     * @param maxValue Value of the highest level, or {@link Float#NaN} for the largest value.
+     */
+    public void setValueRange(float minValue, float maxValue) {
+        mMinValue = minValue;
+        mMaxValue = maxValue;
+        update(mFirstDay, mValues);
+    }
+
+    /**
+     * Set the value of each day from {@code dayOfMonth} of {@code month} of {@code year}, and
+     * rebind the months whose colors changed.
+     *
+     * @param month  Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     * @param values Value of each day, index {@code 0} being the first day. Not copied, call this
+     *               again after changing it.
+     */
+    public void setValues(int year, int month, int dayOfMonth, float[] values) {
+        update(CalendarDates.epochDay(year, month, dayOfMonth), values);
+    }
+
+    /**
+     * @param first  First day, in the time zone of {@code first}.
+     * @param values Value of each day, index {@code 0} being the first day. Not copied, call this
+     *               again after changing it.
+     * @see #setValues(int, int, int, float[])
+     */
+    public void setValues(Calendar first, float[] values) {
+        update(CalendarDates.epochDay(first), values);
+    }
+
+    /**
+     * @param first  First day, in the time zone of {@code first}.
+     * @param values Value of each day, index {@code 0} being the first day.
+     * @see #setValues(int, int, int, float[])
+     */
+    public void setValues(Calendar first, int[] values) {
+        float[] floatValues = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            floatValues[i] = values[i];
+        }
+        update(CalendarDates.epochDay(first), floatValues);
+    }
+
+    public void clear() {
+        update(0, new float[0]);
+    }
+
+    /**
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     * @return color of {@code dayOfMonth} of {@code month} of {@code year}, or {@code 0} when not
+     * colored.
+     */
+    public int getColor(int year, int month, int dayOfMonth) {
+        return getColor(CalendarDates.epochDay(year, month, dayOfMonth));
+    }
+
+    int getColor(int epochDay) {
+        return mColors[getLevel(epochDay)];
+    }
+
+    /**
+     * @return level of {@code epochDay}, from {@code 1} to the level count, or {@code 0} when not
+     * colored.
+     */
+    int getLevel(int epochDay) {
+        int index = epochDay - mFirstDay;
+        return index >= 0 && index < mLevels.length ? mLevels[index] & 0xFF : 0;
+    }
+
+    /**
+     * @return hash of the colors of the days of {@code yearMonth}, {@code 0} when none is colored.
+     */
+    int getMonthHash(int yearMonth) {
+        int index = yearMonth - mFirstMonth;
+        return index >= 0 && index < mMonthHashes.length ? mMonthHashes[index] : 0;
+    }
+
+    void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Quantize {@code values} from {@code firstDay}, then notify the months whose hash changed.
+     */
+    private void update(int firstDay, float[] values) {
+        int[] colors = createColors(mLowColor, mHighColor, mLevelCount);
+        float[] thresholds = createThresholds(values);
+        byte[] levels = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            levels[i] = (byte) quantize(values[i], thresholds);
+        }
+
+        int firstMonth = CalendarDates.yearMonthOfEpochDay(firstDay);
+        int monthCount = values.length == 0 ? 0
+                : CalendarDates.yearMonthOfEpochDay(firstDay + values.length - 1) - firstMonth + 1;
+        int[] monthHashes = new int[monthCount];
+        for (int i = 0; i < monthCount; i++) {
+            // every day of the month, for the hash to change when colors move within it
+            int monthFirstDay = CalendarDates.firstEpochDay(firstMonth + i);
+            int monthLastDay = monthFirstDay + CalendarDates.daysInMonth(firstMonth + i) - 1;
+            int hash = 0;
+            for (int day = monthFirstDay; day <= monthLastDay; day++) {
+                int index = day - firstDay;
+                hash = 31 * hash + (index >= 0 && index < levels.length ? colors[levels[index] & 0xFF] : NO_COLOR);
+            }
+            monthHashes[i] = hash;
+        }
+
+        int oldFirstMonth = mFirstMonth;
+        int[] oldMonthHashes = mMonthHashes;
+        mColors = colors;
+        mFirstDay = firstDay;
+        mValues = values;
+        mLevels = levels;
+        mFirstMonth = firstMonth;
+        mMonthHashes = monthHashes;
+
+        for (int i = 0; i < monthCount; i++) {
+            int oldIndex = firstMonth + i - oldFirstMonth;
+            int oldHash = oldIndex >= 0 && oldIndex < oldMonthHashes.length ? oldMonthHashes[oldIndex] : 0;
+            if (monthHashes[i] != oldHash) {
+                notifyMonthChanged(firstMonth + i);
+            }
+        }
+        // months no longer having values
+        for (int i = 0; i < oldMonthHashes.length; i++) {
+            int index = oldFirstMonth + i - firstMonth;
+            if ((index < 0 || index >= monthCount) && oldMonthHashes[i] != 0) {
+                notifyMonthChanged(oldFirstMonth + i);
+            }
+        }
+    }
+
+    /**
+     * @return smallest value of each level but the first, increasing.
+     */
+    private float[] createThresholds(float[] values) {
+        float[] thresholds = new float[mLevelCount - 1];
+        if (mScale == SCALE_QUANTILE) {
+            float[] sorted = new float[values.length];
+            int size = 0;
+            for (float value : values) {
+                if (value > 0) {
+                    sorted[size++] = value;
+                }
+            }
+            if (size == 0) {
+                return thresholds;
+            }
+            Arrays.sort(sorted, 0, size);
+            for (int i = 0; i < thresholds.length; i++) {
+                float quantile = mQuantiles != null ? mQuantiles[i] : (float) (i + 1) / mLevelCount;
+                thresholds[i] = sorted[Math.min((int) (quantile * size), size - 1)];
+            }
+            return thresholds;
+        }
+
+        float min = mMinValue;
+        float max = mMaxValue;
+        if (Float.isNaN(min) || Float.isNaN(max)) {
+            float smallest = Float.POSITIVE_INFINITY;
+            float largest = 0;
+            for (float value : values) {
+                if (value > 0) {
+                    smallest = Math.min(smallest, value);
+                    largest = Math.max(largest, value);
+                }
+            }
+            if (Float.isNaN(min)) {
+                min = smallest;
+            }
+            if (Float.isNaN(max)) {
+                max = largest;
+            }
+        }
+        for (int i = 0; i < thresholds.length; i++) {
+            float fraction = (float) (i + 1) / mLevelCount;
+            if (mScale == SCALE_LOG) {
+                double logMin = Math.log(min);
+                thresholds[i] = (float) Math.exp(logMin + (Math.log(max) - logMin) * fraction);
+            } else {
+                thresholds[i] = min + (max - min) * fraction;
+            }
+        }
+        return thresholds;
+    }
+
+    /**
+     * @return {@code 1} plus the number of thresholds not above {@code value}, or {@code 0} when
+     * {@code value} is not positive.
+     */
+    static int quantize(float value, float[] thresholds) {
+        if (!(value > 0)) {
+            return 0;
+        }
+        // first threshold above the value
+        int low = 0;
+        int high = thresholds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (thresholds[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return 1 + low;
+    }
+
+    /**
+     * @return {@code 0} then the color of each level, interpolated channel by channel.
+     */
+    static int[] createColors(int lowColor, int highColor, int levelCount) {
+        int[] colors = new int[levelCount + 1];
+        colors[0] = NO_COLOR;
+        for (int level = 1; level <= levelCount; level++) {
+            float fraction = levelCount == 1 ? 1 : (float) (level - 1) / (levelCount - 1);
+            int color = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                int low = lowColor >>> shift & 0xFF;
+                int high = highColor >>> shift & 0xFF;
+                color |= Math.round(low + (high - low) * fraction) << shift;
+            }
+            colors[level] = color;
+        }
+        return colors;
+    }
+
+    private void notifyMonthChanged(int yearMonth) {
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onHeatmapMonthChanged(yearMonth);
+        }
+    }
+
+    interface Listener {
+
+        /**
+         * Called for each month whose colors changed.
+         */
+        void onHeatmapMonthChanged(int yearMonth);
+    }
+}
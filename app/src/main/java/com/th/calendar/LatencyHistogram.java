@@ -0,0 +1,98 @@
+package com.th.calendar;
+
+/**
+ * Durations counted in fixed buckets, each bucket twice as wide as the previous one: under 1 us,
+ * under 2 us, under 4 us... up to the last bucket taking everything from about 262 ms.
+ * <p>
+ * Buckets are a primitive array allocated once, so that recording is a few arithmetic operations
+ * without allocation, cheap enough to run for every bind.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 20;
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private final int[] mBuckets = new int[BUCKET_COUNT];
+    private int mCount;
+    private long mTotalNanos;
+    private long mMaxNanos;
+
+    LatencyHistogram() {
+    }
+
+    void record(long nanos) {
+        long micros = Math.max(nanos, 0) / NANOS_PER_MICRO;
+        // bucket i holds durations under 2^i us
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+        mBuckets[bucket]++;
+        mCount++;
+        mTotalNanos += nanos;
+        mMaxNanos = Math.max(mMaxNanos, nanos);
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets[i] = 0;
+        }
+        mCount = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+    }
+
+    /**
+     * @return number of durations recorded.
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    public long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    public long getMaxNanos() {
+        return mMaxNanos;
+    }
+
+    public long getMeanNanos() {
+        return mCount == 0 ? 0 : mTotalNanos / mCount;
+    }
+
+    public int getBucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    /**
+     * @return number of durations in {@code bucket}.
+     */
+    public int getCountInBucket(int bucket) {
+        return mBuckets[bucket];
+    }
+
+    /**
+     * @return exclusive upper bound of the durations in {@code bucket}, {@link Long#MAX_VALUE} for
+     * the last one.
+     */
+    public long getBucketUpperBoundNanos(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) * NANOS_PER_MICRO;
+    }
+
+    /**
+     * @param percentile Between {@code 0} and {@code 100}.
+     * @return upper bound of the bucket holding the given percentile, or {@code 0} when empty.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * mCount);
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += mBuckets[i];
+            if (count >= rank && count > 0) {
+                return Math.min(getBucketUpperBoundNanos(i), mMaxNanos);
+            }
+        }
+        return mMaxNanos;
+    }
+}
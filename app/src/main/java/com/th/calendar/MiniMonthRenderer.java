@@ -0,0 +1,57 @@
+package com.th.calendar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
+
+/**
+ * Draws the weekday titles and day numbers of a month into an {@link Bitmap.Config#ALPHA_8}
+ * bitmap, a quarter of the memory of a color one, tinted by the paint drawing it.
+ * <p>
+ * Rendering runs on a background thread, the renderer being only used by that thread once
+ * created. The grid is 7 rows of 7 columns, the weekday titles then the 6 weeks, placed with the
+ * {@link MonthTable} columns the 49 items layout uses.
+ */
+class MiniMonthRenderer {
+
+    static final int ROW_COUNT = 1 + 6;
+    private static final float TEXT_HEIGHT_RATIO = 0.55f;
+    // two digits fit in a column
+    private static final float TEXT_WIDTH_RATIO = 0.45f;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    MiniMonthRenderer() {
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    /**
+     * @param monthTable  Table holding the month, not changed anymore.
+     * @param monthOffset Offset of the month in {@code monthTable}.
+     */
+    Bitmap render(MonthTable monthTable, int monthOffset, CalendarLabels labels, int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(bitmap);
+        float columnWidth = (float) width / DAY_PER_WEEK;
+        float rowHeight = (float) height / ROW_COUNT;
+        mTextPaint.setTextSize(Math.min(rowHeight * TEXT_HEIGHT_RATIO, columnWidth * TEXT_WIDTH_RATIO));
+        Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+        float textCenterOffset = -(fontMetrics.ascent + fontMetrics.descent) / 2;
+
+        for (int column = 0; column < DAY_PER_WEEK; column++) {
+            canvas.drawText(labels.getWeekdayTitle(column), columnWidth * column + columnWidth / 2,
+                    rowHeight / 2 + textCenterOffset, mTextPaint);
+        }
+        int firstDayColumn = monthTable.getFirstDayColumn(monthOffset);
+        for (int day = 1, daysInMonth = monthTable.getDaysInMonth(monthOffset); day <= daysInMonth; day++) {
+            int dayPosition = firstDayColumn + day - 1;
+            int row = 1 + dayPosition / DAY_PER_WEEK;
+            int column = dayPosition % DAY_PER_WEEK;
+            canvas.drawText(labels.getDayLabel(day), columnWidth * column + columnWidth / 2,
+                    rowHeight * row + rowHeight / 2 + textCenterOffset, mTextPaint);
+        }
+        return bitmap;
+    }
+}
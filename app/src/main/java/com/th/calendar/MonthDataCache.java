@@ -0,0 +1,92 @@
+package com.th.calendar;
+
+import java.util.Arrays;
+
+/**
+ * Least recently used cache of per-day data keyed by packed year-month.
+ * <p>
+ * Holds a handful of months, so entries live in parallel arrays scanned linearly: no boxing of the
+ * month key and no allocation on {@link #get(int)}, which the adapter calls for every bound cell.
+ */
+class MonthDataCache {
+
+    static final int NO_MONTH = Integer.MIN_VALUE;
+
+    private final int[] mMonths;
+    private final int[][] mData;
+    // access stamp of each entry, the smallest being the least recently used
+    private final long[] mLastAccess;
+    private long mAccessCount;
+
+    MonthDataCache(int capacity) {
+        mMonths = new int[capacity];
+        mData = new int[capacity][];
+        mLastAccess = new long[capacity];
+        Arrays.fill(mMonths, NO_MONTH);
+    }
+
+    /**
+     * @return data of {@code month}, or {@code null} when not cached.
+     */
+    int[] get(int month) {
+        int index = indexOf(month);
+        if (index < 0) {
+            return null;
+        }
+        mLastAccess[index] = ++mAccessCount;
+        return mData[index];
+    }
+
+    boolean contains(int month) {
+        return indexOf(month) >= 0;
+    }
+
+    void put(int month, int[] data) {
+        int index = indexOf(month);
+        if (index < 0) {
+            index = 0;
+            for (int i = 1; i < mMonths.length; i++) {
+                if (mLastAccess[i] < mLastAccess[index]) {
+                    index = i;
+                }
+            }
+        }
+        mMonths[index] = month;
+        mData[index] = data;
+        mLastAccess[index] = ++mAccessCount;
+    }
+
+    void clear() {
+        Arrays.fill(mMonths, NO_MONTH);
+        Arrays.fill(mData, null);
+        Arrays.fill(mLastAccess, 0);
+    }
+
+    int getCapacity() {
+        return mMonths.length;
+    }
+
+    /**
+     * @return month of the entry at {@code index}, or {@link #NO_MONTH} when empty. Does not count
+     * as an access.
+     */
+    int getMonthAt(int index) {
+        return mMonths[index];
+    }
+
+    /**
+     * @return data of the entry at {@code index}, see {@link #getMonthAt(int)}.
+     */
+    int[] getDataAt(int index) {
+        return mData[index];
+    }
+
+    private int indexOf(int month) {
+        for (int i = 0; i < mMonths.length; i++) {
+            if (mMonths[i] == month) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,140 @@
+package com.th.calendar;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Loads month data in the background around the current month.
+ * <p>
+ * Every time the current month changes, the months within {@code prefetchMonths} of it that are
+ * neither cached nor loading are submitted to the background executor, and the loads of months
+ * further away are cancelled. Results are delivered on the main executor, kept in a
+ * {@link MonthDataCache} and reported month by month to the {@link Listener}. Every method but
+ * the loading itself runs on the main thread.
+ */
+class MonthDataScheduler {
+
+    private final CalendarView.MonthDataLoader mLoader;
+    private final ExecutorService mBackgroundExecutor;
+    private final Executor mMainExecutor;
+    private final Listener mListener;
+    private final int mPrefetchMonths;
+    private final MonthDataCache mCache;
+    private final Map<Integer, Future<?>> mLoads = new HashMap<>();
+
+    private int mMinMonth = CalendarDates.MIN_MONTH;
+    private int mMaxMonth = CalendarDates.MAX_MONTH;
+    private int mCurrentMonth;
+    private boolean mReleased;
+
+    MonthDataScheduler(CalendarView.MonthDataLoader loader, int prefetchMonths, ExecutorService backgroundExecutor,
+                       Executor mainExecutor, Listener listener) {
+        mLoader = loader;
+        mPrefetchMonths = prefetchMonths;
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
+        mListener = listener;
+        // twice the prefetch window and no less than a year, so that going back and forth does not reload
+        mCache = new MonthDataCache(Math.max(2 * (2 * prefetchMonths + 1), 12));
+    }
+
+    /**
+     * @return loaded data of {@code month}, or {@code null} when not loaded yet.
+     */
+    int[] getMonthData(int month) {
+        return mCache.get(month);
+    }
+
+    void setRange(int minMonth, int maxMonth) {
+        mMinMonth = minMonth;
+        mMaxMonth = maxMonth;
+    }
+
+    /**
+     * Prefetch around {@code month} and cancel the loads of the months scrolled past.
+     */
+    void setCurrentMonth(int month) {
+        if (mReleased) {
+            return;
+        }
+        mCurrentMonth = month;
+        Iterator<Map.Entry<Integer, Future<?>>> iterator = mLoads.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Future<?>> load = iterator.next();
+            if (!isPrefetched(load.getKey())) {
+                load.getValue().cancel(true);
+                iterator.remove();
+            }
+        }
+
+        // nearest months first
+        load(month);
+        for (int distance = 1; distance <= mPrefetchMonths; distance++) {
+            load(month + distance);
+            load(month - distance);
+        }
+    }
+
+    int getLoadingCount() {
+        return mLoads.size();
+    }
+
+    /**
+     * Cancel every load, results still on their way are dropped.
+     */
+    void release() {
+        mReleased = true;
+        for (Future<?> load : mLoads.values()) {
+            load.cancel(true);
+        }
+        mLoads.clear();
+        mCache.clear();
+    }
+
+    private boolean isPrefetched(int month) {
+        return Math.abs(month - mCurrentMonth) <= mPrefetchMonths;
+    }
+
+    private void load(final int month) {
+        if (month < mMinMonth || month > mMaxMonth || mCache.contains(month) || mLoads.containsKey(month)) {
+            return;
+        }
+        mLoads.put(month, mBackgroundExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final int[] data = mLoader.loadMonth(CalendarDates.year(month), CalendarDates.month(month));
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(month, data);
+                    }
+                });
+            }
+        }));
+    }
+
+    private void deliver(int month, int[] data) {
+        Future<?> load = mLoads.remove(month);
+        if (mReleased || load == null || load.isCancelled()) {
+            return;
+        }
+        mCache.put(month, data != null ? data : new int[0]);
+        mListener.onMonthLoaded(month);
+    }
+
+    interface Listener {
+
+        /**
+         * Called on the main thread once the data of {@code month} is available from
+         * {@link #getMonthData(int)}.
+         */
+        void onMonthLoaded(int month);
+    }
+}
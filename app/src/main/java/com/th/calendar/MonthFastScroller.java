@@ -0,0 +1,142 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+
+/**
+ * Thumb on the right edge of a vertical calendar, dragged to go through the whole range of months
+ * rather than the window of months mapped to positions.
+ * <p>
+ * The thumb stands for a fraction of the range, the first month being at the bottom like in the
+ * calendar. Drawing it and following a drag only maps that fraction from and to a scroll offset
+ * through its {@link Host}, a few multiplications whatever the number of months.
+ */
+class MonthFastScroller extends RecyclerView.ItemDecoration implements RecyclerView.OnItemTouchListener {
+
+    private static final float THUMB_WIDTH_DP = 6;
+    private static final float THUMB_HEIGHT_DP = 48;
+    // wider than the thumb, to be easy to grab
+    private static final float TOUCH_WIDTH_DP = 32;
+
+    private final Host mHost;
+    private final Paint mThumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mThumbRect = new RectF();
+    private final float mThumbWidth;
+    private final int mThumbHeight;
+    private final float mTouchWidth;
+
+    private boolean mDragging;
+    // from the touch to the top of the thumb when the drag started
+    private float mDragOffset;
+
+    MonthFastScroller(Context context, Host host) {
+        mHost = host;
+        float density = context.getResources().getDisplayMetrics().density;
+        mThumbWidth = THUMB_WIDTH_DP * density;
+        mThumbHeight = Math.round(THUMB_HEIGHT_DP * density);
+        mTouchWidth = TOUCH_WIDTH_DP * density;
+        mThumbPaint.setColor(ContextCompat.getColor(context, R.color.colorAccent));
+    }
+
+    /**
+     * @param fraction    Fraction of the range scrolled, {@code 0} showing the first month.
+     * @param trackLength Height the thumb moves in.
+     * @return top of the thumb from the top of the track.
+     */
+    static float getThumbTop(float fraction, int trackLength, int thumbLength) {
+        return (1 - fraction) * Math.max(0, trackLength - thumbLength);
+    }
+
+    /**
+     * Inverse of {@link #getThumbTop(float, int, int)}, clamped to the range.
+     */
+    static float getFraction(float thumbTop, int trackLength, int thumbLength) {
+        int travel = trackLength - thumbLength;
+        if (travel <= 0) {
+            return 0;
+        }
+        return 1 - Math.max(0, Math.min(thumbTop / travel, 1));
+    }
+
+    @Override
+    public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        if (!isShown(parent)) {
+            return;
+        }
+        float top = parent.getPaddingTop() + getThumbTop(mHost.getScrollFraction(), getTrackLength(parent), mThumbHeight);
+        float right = parent.getWidth() - parent.getPaddingRight();
+        mThumbRect.set(right - mThumbWidth, top, right, top + mThumbHeight);
+        canvas.drawRoundRect(mThumbRect, mThumbWidth / 2, mThumbWidth / 2, mThumbPaint);
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(RecyclerView parent, MotionEvent event) {
+        if (event.getActionMasked() != MotionEvent.ACTION_DOWN || !isShown(parent)
+                || event.getX() < parent.getWidth() - parent.getPaddingRight() - mTouchWidth) {
+            return false;
+        }
+        float top = parent.getPaddingTop() + getThumbTop(mHost.getScrollFraction(), getTrackLength(parent), mThumbHeight);
+        float y = event.getY();
+        if (y < top - mThumbHeight / 2 || y > top + mThumbHeight * 3 / 2) {
+            return false;
+        }
+        mDragging = true;
+        // grabbed off the thumb, the thumb centers on the touch
+        mDragOffset = y >= top && y <= top + mThumbHeight ? y - top : mThumbHeight / 2;
+        parent.stopScroll();
+        return true;
+    }
+
+    @Override
+    public void onTouchEvent(RecyclerView parent, MotionEvent event) {
+        if (!mDragging) {
+            return;
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                float thumbTop = event.getY() - mDragOffset - parent.getPaddingTop();
+                mHost.scrollToFraction(getFraction(thumbTop, getTrackLength(parent), mThumbHeight));
+                parent.invalidate();
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mDragging = false;
+                break;
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+    }
+
+    boolean isDragging() {
+        return mDragging;
+    }
+
+    private boolean isShown(RecyclerView parent) {
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        return layoutManager != null && layoutManager.canScrollVertically() && getTrackLength(parent) > mThumbHeight;
+    }
+
+    private static int getTrackLength(RecyclerView parent) {
+        return parent.getHeight() - parent.getPaddingTop() - parent.getPaddingBottom();
+    }
+
+    interface Host {
+
+        /**
+         * @return fraction of the whole range scrolled, {@code 0} showing the first month.
+         */
+        float getScrollFraction();
+
+        /**
+         * Scroll to {@code fraction} of the whole range, moving the month window when needed.
+         */
+        void scrollToFraction(float fraction);
+    }
+}
@@ -0,0 +1,226 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.v4.content.ContextCompat;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
+
+/**
+ * A whole month drawn on a single {@link View}: the weekday titles on the first row and the 6
+ * weeks below, sized like the cells of the 49 items layout (a title row takes half the height of a
+ * week row).
+ * <p>
+ * Nothing is allocated while drawing, the paints and text metrics are computed once, and changing
+ * the month only invalidates the view since its size never depends on its content.
+ */
+class MonthGridView extends View {
+
+    private static final int WEEK_PER_MONTH = 6;
+    // in half week rows, the title row being one of them
+    private static final int ROW_UNITS = 1 + WEEK_PER_MONTH * 2;
+    private static final float TEXT_SIZE_SP = 14;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mDisabledTextPaint;
+    private final Paint mEventPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int mAccentColor;
+    private final Paint mSelectedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTodayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mHeatPaint = new Paint();
+    private final float mEventRadius;
+    // gap between the heatmap colors of neighbor days
+    private final float mHeatInset;
+    // distance from the vertical center of a cell to the text baseline
+    private final float mTextCenterOffset;
+
+    private CalendarLabels mLabels;
+    private int mFirstDayColumn;
+    private int mDaysInMonth;
+    // event count of each day of the month
+    private final int[] mEventCounts = new int[31];
+    // event dot color of each day of the month, 0 for the accent color
+    private final int[] mEventColors = new int[31];
+    // heatmap color of each day of the month, 0 for none
+    private final int[] mHeatColors = new int[31];
+    // bit d - 1 for day d, like DayMasks
+    private int mSelectedMask;
+    private int mDisabledMask;
+    // day of month of today, 0 when in another month
+    private int mToday;
+    private float mCellWidth;
+    private float mRowUnitHeight;
+
+    private OnDayClickListener mOnDayClickListener;
+
+    MonthGridView(Context context) {
+        super(context);
+        TypedArray a = context.obtainStyledAttributes(new int[]{android.R.attr.textColorPrimary});
+        mTextPaint.setColor(a.getColor(0, Color.BLACK));
+        a.recycle();
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP,
+                context.getResources().getDisplayMetrics()));
+        Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+        mTextCenterOffset = -(fontMetrics.ascent + fontMetrics.descent) / 2;
+        mDisabledTextPaint = new Paint(mTextPaint);
+        mDisabledTextPaint.setAlpha(0x61);
+        mAccentColor = ContextCompat.getColor(context, R.color.colorAccent);
+        mEventRadius = context.getResources().getDisplayMetrics().density * 2;
+        mHeatInset = context.getResources().getDisplayMetrics().density;
+        DayView.initDayStatePaints(context, mSelectedPaint, mTodayPaint);
+    }
+
+    /**
+     * @param labels Day numbers and weekday titles, the first column being their week start.
+     */
+    void setLabels(CalendarLabels labels) {
+        if (mLabels != labels) {
+            mLabels = labels;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param firstDayColumn Column of the first day of the month, {@code 0} being the week start.
+     * @param daysInMonth    Number of days in the month.
+     */
+    void setMonth(int firstDayColumn, int daysInMonth) {
+        if (mFirstDayColumn != firstDayColumn || mDaysInMonth != daysInMonth) {
+            mFirstDayColumn = firstDayColumn;
+            mDaysInMonth = daysInMonth;
+            invalidate();
+        }
+    }
+
+    void setEventCount(int dayOfMonth, int eventCount) {
+        if (mEventCounts[dayOfMonth - 1] != eventCount) {
+            mEventCounts[dayOfMonth - 1] = eventCount;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param eventColor Color of the event dots of the day, or {@code 0} for the accent color.
+     */
+    void setEventColor(int dayOfMonth, int eventColor) {
+        if (mEventColors[dayOfMonth - 1] != eventColor) {
+            mEventColors[dayOfMonth - 1] = eventColor;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param heatColor Heatmap color of the day, or {@code 0} for none.
+     */
+    void setHeatColor(int dayOfMonth, int heatColor) {
+        if (mHeatColors[dayOfMonth - 1] != heatColor) {
+            mHeatColors[dayOfMonth - 1] = heatColor;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param selectedMask Selected days, bit {@code d - 1} standing for day {@code d}.
+     * @param disabledMask Disabled days, bit {@code d - 1} standing for day {@code d}.
+     * @param today        Day of month of today, or {@code 0} when in another month.
+     */
+    void setDayState(int selectedMask, int disabledMask, int today) {
+        if (mSelectedMask != selectedMask || mDisabledMask != disabledMask || mToday != today) {
+            mSelectedMask = selectedMask;
+            mDisabledMask = disabledMask;
+            mToday = today;
+            invalidate();
+        }
+    }
+
+    void setOnDayClickListener(OnDayClickListener onDayClickListener) {
+        mOnDayClickListener = onDayClickListener;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mCellWidth = (float) w / DAY_PER_WEEK;
+        mRowUnitHeight = (float) h / ROW_UNITS;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float titleBaseline = mRowUnitHeight / 2 + mTextCenterOffset;
+        for (int i = 0; i < DAY_PER_WEEK; i++) {
+            canvas.drawText(mLabels.getWeekdayTitle(i), mCellWidth * i + mCellWidth / 2, titleBaseline, mTextPaint);
+        }
+
+        for (int day = 1; day <= mDaysInMonth; day++) {
+            int dayPosition = day - 1 + mFirstDayColumn;
+            int week = dayPosition / DAY_PER_WEEK;
+            int column = dayPosition % DAY_PER_WEEK;
+            float x = mCellWidth * column + mCellWidth / 2;
+            float centerY = mRowUnitHeight * (1 + week * 2 + 1);
+            if (mHeatColors[day - 1] != 0) {
+                mHeatPaint.setColor(mHeatColors[day - 1]);
+                canvas.drawRect(mCellWidth * column + mHeatInset, centerY - mRowUnitHeight + mHeatInset,
+                        mCellWidth * (column + 1) - mHeatInset, centerY + mRowUnitHeight - mHeatInset, mHeatPaint);
+            }
+            boolean selected = (mSelectedMask >>> (day - 1) & 1) != 0;
+            if (selected || day == mToday) {
+                DayView.drawDayState(canvas, mSelectedPaint, mTodayPaint, x, centerY,
+                        Math.min(mCellWidth, mRowUnitHeight * 2) * 0.4f, selected, day == mToday);
+            }
+            float y = centerY + mTextCenterOffset;
+            boolean disabled = (mDisabledMask >>> (day - 1) & 1) != 0;
+            canvas.drawText(mLabels.getDayLabel(day), x, y, disabled ? mDisabledTextPaint : mTextPaint);
+            if (mEventCounts[day - 1] > 0) {
+                mEventPaint.setColor(mEventColors[day - 1] != 0 ? mEventColors[day - 1] : mAccentColor);
+                DayView.drawEventDots(canvas, mEventPaint, x, mRowUnitHeight * (1 + week * 2 + 2) - mEventRadius * 4,
+                        mEventRadius, mEventCounts[day - 1]);
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mOnDayClickListener == null) {
+            return super.onTouchEvent(event);
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                return getDayAt(event.getX(), event.getY()) != 0;
+            case MotionEvent.ACTION_UP:
+                int day = getDayAt(event.getX(), event.getY());
+                if (day != 0 && (mDisabledMask >>> (day - 1) & 1) == 0) {
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    mOnDayClickListener.onDayClick(this, day);
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return day of month drawn at the given coordinates, or {@code 0} when there is none.
+     */
+    int getDayAt(float x, float y) {
+        if (mCellWidth == 0 || mRowUnitHeight == 0 || x < 0 || y < mRowUnitHeight) {
+            return 0;
+        }
+        int column = Math.min((int) (x / mCellWidth), DAY_PER_WEEK - 1);
+        int week = Math.min((int) ((y - mRowUnitHeight) / (mRowUnitHeight * 2)), WEEK_PER_MONTH - 1);
+        int day = week * DAY_PER_WEEK + column - mFirstDayColumn + 1;
+        return day >= 1 && day <= mDaysInMonth ? day : 0;
+    }
+
+    interface OnDayClickListener {
+
+        void onDayClick(MonthGridView view, int dayOfMonth);
+    }
+}
@@ -0,0 +1,214 @@
+package com.th.calendar;
+
+import java.util.Calendar;
+
+/**
+ * When a recurring event happens: every few days, weeks on some days of the week, months on the
+ * day of the month it starts, or years on the day it starts, from its start date until an optional
+ * end date.
+ * <p>
+ * Occurrences are never listed up front, {@link RecurringEvents} asks each rule for the ones of a
+ * single month, computed with integer arithmetic on epoch days. Build one with {@link Builder}.
+ */
+public final class RecurrenceRule {
+
+    public static final int DAILY = 0;
+    /**
+     * Weeks start on Sunday when counting the interval, see {@link Builder#setInterval(int)}.
+     */
+    public static final int WEEKLY = 1;
+    /**
+     * Months without the day of the month of the start, like the 31st, are skipped.
+     */
+    public static final int MONTHLY = 2;
+    /**
+     * Years without the day of the start, that is February 29th, are skipped.
+     */
+    public static final int YEARLY = 3;
+
+    private static final int NO_END = Integer.MAX_VALUE;
+
+    private final int mFrequency;
+    private final int mInterval;
+    private final int mStartDay;
+    private final int mEndDay;
+    // days of the week of a weekly rule, bit 0 being Sunday
+    private final int mDaysOfWeek;
+    private final int mStartMonth;
+    private final int mDayOfMonth;
+
+    private RecurrenceRule(Builder builder) {
+        mFrequency = builder.mFrequency;
+        mInterval = builder.mInterval;
+        mStartDay = builder.mStartDay;
+        mEndDay = builder.mEndDay;
+        mDaysOfWeek = builder.mDaysOfWeek != 0 ? builder.mDaysOfWeek : 1 << CalendarDates.dayOfWeek(mStartDay);
+        mStartMonth = CalendarDates.yearMonthOfEpochDay(mStartDay);
+        mDayOfMonth = CalendarDates.dayOfMonth(mStartDay);
+    }
+
+    public int getFrequency() {
+        return mFrequency;
+    }
+
+    public int getInterval() {
+        return mInterval;
+    }
+
+    int getStartDay() {
+        return mStartDay;
+    }
+
+    int getEndDay() {
+        return mEndDay;
+    }
+
+    /**
+     * @param dayOfWeek From {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}.
+     */
+    boolean happensOnDayOfWeek(int dayOfWeek) {
+        return (mDaysOfWeek & 1 << (dayOfWeek - Calendar.SUNDAY)) != 0;
+    }
+
+    /**
+     * Add {@code delta} to the count of each day of {@code yearMonth} the rule happens on.
+     *
+     * @param counts Counts of the days of the month, index {@code 0} being the first day.
+     * @return number of occurrences in the month.
+     */
+    int addOccurrences(int yearMonth, int[] counts, int delta) {
+        int firstDay = CalendarDates.firstEpochDay(yearMonth);
+        int daysInMonth = CalendarDates.daysInMonth(yearMonth);
+        int from = Math.max(firstDay, mStartDay);
+        int to = Math.min(firstDay + daysInMonth - 1, mEndDay);
+        if (from > to) {
+            return 0;
+        }
+        switch (mFrequency) {
+            case DAILY:
+                return addDaily(from, to, firstDay, counts, delta);
+            case WEEKLY:
+                return addWeekly(from, to, firstDay, counts, delta);
+            case MONTHLY:
+                return addOn(yearMonth - mStartMonth, from, to, firstDay, daysInMonth, counts, delta);
+            default:
+                if (CalendarDates.month(yearMonth) != CalendarDates.month(mStartMonth)) {
+                    return 0;
+                }
+                return addOn(CalendarDates.year(yearMonth) - CalendarDates.year(mStartMonth), from, to, firstDay,
+                        daysInMonth, counts, delta);
+        }
+    }
+
+    private int addDaily(int from, int to, int firstDay, int[] counts, int delta) {
+        int remainder = (from - mStartDay) % mInterval;
+        int occurrences = 0;
+        for (int day = remainder == 0 ? from : from + mInterval - remainder; day <= to; day += mInterval) {
+            counts[day - firstDay] += delta;
+            occurrences++;
+        }
+        return occurrences;
+    }
+
+    private int addWeekly(int from, int to, int firstDay, int[] counts, int delta) {
+        int firstWeekDay = mStartDay - CalendarDates.dayOfWeek(mStartDay);
+        int occurrences = 0;
+        for (int day = from; day <= to; day++) {
+            int dayOfWeek = CalendarDates.dayOfWeek(day);
+            if ((mDaysOfWeek & 1 << dayOfWeek) != 0 && (day - dayOfWeek - firstWeekDay) / CalendarDates.DAY_PER_WEEK % mInterval == 0) {
+                counts[day - firstDay] += delta;
+                occurrences++;
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * @param periods Months or years since the start month, which happens if a multiple of the
+     *                interval.
+     */
+    private int addOn(int periods, int from, int to, int firstDay, int daysInMonth, int[] counts, int delta) {
+        if (periods % mInterval != 0 || mDayOfMonth > daysInMonth) {
+            return 0;
+        }
+        int day = firstDay + mDayOfMonth - 1;
+        if (day < from || day > to) {
+            return 0;
+        }
+        counts[day - firstDay] += delta;
+        return 1;
+    }
+
+    public static final class Builder {
+
+        private final int mFrequency;
+        private final int mStartDay;
+        private int mInterval = 1;
+        private int mEndDay = NO_END;
+        private int mDaysOfWeek;
+
+        /**
+         * @param frequency {@link #DAILY}, {@link #WEEKLY}, {@link #MONTHLY} or {@link #YEARLY}.
+         * @param month     Month of the year of the first occurrence, {@code 0} being
+         *                  {@link Calendar#JANUARY}.
+         */
+        public Builder(int frequency, int year, int month, int dayOfMonth) {
+            this(frequency, CalendarDates.epochDay(year, month, dayOfMonth));
+        }
+
+        /**
+         * @param frequency {@link #DAILY}, {@link #WEEKLY}, {@link #MONTHLY} or {@link #YEARLY}.
+         * @param start     Day of the first occurrence, in the time zone of {@code start}.
+         */
+        public Builder(int frequency, Calendar start) {
+            this(frequency, CalendarDates.epochDay(start));
+        }
+
+        Builder(int frequency, int startDay) {
+            if (frequency < DAILY || frequency > YEARLY) {
+                throw new IllegalArgumentException("Unknown frequency " + frequency);
+            }
+            mFrequency = frequency;
+            mStartDay = startDay;
+        }
+
+        /**
+         * Happen every {@code interval} days, weeks, months or years rather than every one.
+         */
+        public Builder setInterval(int interval) {
+            if (interval < 1) {
+                throw new IllegalArgumentException("Interval " + interval + " is not positive");
+            }
+            mInterval = interval;
+            return this;
+        }
+
+        /**
+         * Stop after the day of {@code end}, in the time zone of {@code end}.
+         *
+         * @param end Last day an occurrence can be on, or {@code null} to never stop.
+         */
+        public Builder setEnd(Calendar end) {
+            mEndDay = end == null ? NO_END : CalendarDates.epochDay(end);
+            return this;
+        }
+
+        /**
+         * Happen on {@code daysOfWeek} of a weekly rule, the day of the week of the start by default.
+         *
+         * @param daysOfWeek Days of the week, from {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}.
+         */
+        public Builder setDaysOfWeek(int... daysOfWeek) {
+            int mask = 0;
+            for (int dayOfWeek : daysOfWeek) {
+                mask |= 1 << (dayOfWeek - Calendar.SUNDAY);
+            }
+            mDaysOfWeek = mask;
+            return this;
+        }
+
+        public RecurrenceRule build() {
+            return new RecurrenceRule(this);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.th.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Recurring events by id, shown as dots under the days of {@link CalendarView} along with the
+ * {@link EventIndex} ones. Pass it to {@link CalendarView#setRecurringEvents(RecurringEvents)}.
+ * <p>
+ * Occurrences are expanded a month at a time, the first time the calendar binds the month, and the
+ * counts kept in a {@link MonthDataCache} of a couple of years. Changing or removing a rule only
+ * updates the cached months with the occurrences of that rule, the others are not expanded again.
+ * Main thread only.
+ */
+public final class RecurringEvents {
+
+    private static final int DEFAULT_CACHE_MONTHS = 24;
+
+    private final MonthDataCache mCache;
+    private final List<Listener> mListeners = new ArrayList<>();
+    // rules sorted by id, for binary search by id and plain iteration when expanding
+    private int[] mIds = new int[16];
+    private RecurrenceRule[] mRules = new RecurrenceRule[16];
+    private int mSize;
+
+    public RecurringEvents() {
+        this(DEFAULT_CACHE_MONTHS);
+    }
+
+    /**
+     * @param cacheMonths Number of months whose counts are kept, no less than the months showing
+     *                    at once.
+     */
+    public RecurringEvents(int cacheMonths) {
+        mCache = new MonthDataCache(cacheMonths);
+    }
+
+    /**
+     * Add the rule {@code id}, or replace it.
+     */
+    public void put(int id, RecurrenceRule rule) {
+        int index = Arrays.binarySearch(mIds, 0, mSize, id);
+        RecurrenceRule oldRule = null;
+        if (index >= 0) {
+            oldRule = mRules[index];
+            mRules[index] = rule;
+        } else {
+            index = ~index;
+            if (mSize == mIds.length) {
+                mIds = Arrays.copyOf(mIds, mSize * 2);
+                mRules = Arrays.copyOf(mRules, mSize * 2);
+            }
+            System.arraycopy(mIds, index, mIds, index + 1, mSize - index);
+            System.arraycopy(mRules, index, mRules, index + 1, mSize - index);
+            mIds[index] = id;
+            mRules[index] = rule;
+            mSize++;
+        }
+        updateCachedMonths(oldRule, rule);
+    }
+
+    /**
+     * Remove the rule {@code id}, if any.
+     */
+    public void remove(int id) {
+        int index = Arrays.binarySearch(mIds, 0, mSize, id);
+        if (index < 0) {
+            return;
+        }
+        RecurrenceRule oldRule = mRules[index];
+        System.arraycopy(mIds, index + 1, mIds, index, mSize - index - 1);
+        System.arraycopy(mRules, index + 1, mRules, index, mSize - index - 1);
+        mRules[--mSize] = null;
+        updateCachedMonths(oldRule, null);
+    }
+
+    public void clear() {
+        Arrays.fill(mRules, 0, mSize, null);
+        mSize = 0;
+        for (int i = 0; i < mCache.getCapacity(); i++) {
+            int month = mCache.getMonthAt(i);
+            if (month != MonthDataCache.NO_MONTH) {
+                notifyMonthChanged(month);
+            }
+        }
+        mCache.clear();
+    }
+
+    public int getRuleCount() {
+        return mSize;
+    }
+
+    /**
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     * @return number of occurrences on {@code dayOfMonth} of {@code month} of {@code year}.
+     */
+    public int getEventCount(int year, int month, int dayOfMonth) {
+        return getMonthCounts(CalendarDates.yearMonth(year, month))[dayOfMonth - 1];
+    }
+
+    /**
+     * @return occurrence count of each day of {@code yearMonth}, index {@code 0} being the first
+     * day, expanded on the first call for the month. Not to be changed.
+     */
+    int[] getMonthCounts(int yearMonth) {
+        int[] counts = mCache.get(yearMonth);
+        if (counts == null) {
+            counts = expandMonth(yearMonth);
+            mCache.put(yearMonth, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * @return occurrence count of each day of {@code yearMonth}, from every rule.
+     */
+    int[] expandMonth(int yearMonth) {
+        int[] counts = new int[CalendarDates.daysInMonth(yearMonth)];
+        int firstDay = CalendarDates.firstEpochDay(yearMonth);
+        int lastDay = firstDay + counts.length - 1;
+        for (int i = 0; i < mSize; i++) {
+            RecurrenceRule rule = mRules[i];
+            // most rules of a long range are over or not started yet
+            if (rule.getStartDay() <= lastDay && rule.getEndDay() >= firstDay) {
+                rule.addOccurrences(yearMonth, counts, 1);
+            }
+        }
+        return counts;
+    }
+
+    void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Take the occurrences of {@code oldRule} out of the cached months and add the ones of
+     * {@code newRule}, rather than expanding the months again, then notify the months having
+     * occurrences of either. Months not cached are not showing, they get expanded when bound.
+     */
+    private void updateCachedMonths(RecurrenceRule oldRule, RecurrenceRule newRule) {
+        for (int i = 0; i < mCache.getCapacity(); i++) {
+            int month = mCache.getMonthAt(i);
+            if (month == MonthDataCache.NO_MONTH) {
+                continue;
+            }
+            int[] counts = mCache.getDataAt(i);
+            int occurrences = 0;
+            if (oldRule != null) {
+                occurrences += oldRule.addOccurrences(month, counts, -1);
+            }
+            if (newRule != null) {
+                occurrences += newRule.addOccurrences(month, counts, 1);
+            }
+            if (occurrences > 0) {
+                notifyMonthChanged(month);
+            }
+        }
+    }
+
+    private void notifyMonthChanged(int yearMonth) {
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onRecurringEventsMonthChanged(yearMonth);
+        }
+    }
+
+    interface Listener {
+
+        /**
+         * Called for each cached month whose counts changed.
+         */
+        void onRecurringEventsMonthChanged(int yearMonth);
+    }
+}
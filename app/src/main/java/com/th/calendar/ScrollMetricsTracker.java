@@ -0,0 +1,115 @@
+package com.th.calendar;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Records the scroll side of the {@link CalendarMetrics}: frame durations while the calendar
+ * scrolls and the time a fling takes to settle, then reports them once the scroll is idle.
+ * <p>
+ * Only attached while a {@link CalendarView.MetricsListener} is set, so that a calendar without one
+ * pays nothing.
+ */
+class ScrollMetricsTracker extends RecyclerView.OnScrollListener {
+
+    private static final float DEFAULT_REFRESH_RATE = 60;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final CalendarView mCalendarView;
+    private final CalendarMetrics mMetrics;
+    private final CalendarView.MetricsListener mListener;
+    // Choreographer is API 16, the counter class is only loaded above
+    private final FrameCounter mFrameCounter;
+    private long mFlingStartNanos;
+
+    ScrollMetricsTracker(CalendarView calendarView, CalendarMetrics metrics, CalendarView.MetricsListener listener) {
+        mCalendarView = calendarView;
+        mMetrics = metrics;
+        mListener = listener;
+        mFrameCounter = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                ? new FrameCounter(metrics, getFrameIntervalNanos(calendarView.getContext())) : null;
+    }
+
+    /**
+     * Called by the snap helper when a fling starts settling on a month.
+     */
+    void onFling() {
+        mFlingStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState != RecyclerView.SCROLL_STATE_IDLE) {
+            if (mFrameCounter != null) {
+                mFrameCounter.start();
+            }
+            return;
+        }
+        stop();
+        if (mFlingStartNanos != 0) {
+            mMetrics.onSnapSettled(System.nanoTime() - mFlingStartNanos);
+            mFlingStartNanos = 0;
+        }
+        mListener.onScrollMetrics(mCalendarView, mMetrics);
+    }
+
+    /**
+     * Stop counting frames, until the next scroll.
+     */
+    void stop() {
+        if (mFrameCounter != null) {
+            mFrameCounter.stop();
+        }
+    }
+
+    private static long getFrameIntervalNanos(Context context) {
+        float refreshRate = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay().getRefreshRate();
+        return (long) (NANOS_PER_SECOND / (refreshRate >= 1 ? refreshRate : DEFAULT_REFRESH_RATE));
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameCounter implements Choreographer.FrameCallback {
+
+        private final CalendarMetrics mMetrics;
+        private final long mFrameIntervalNanos;
+        private boolean mRunning;
+        private long mLastFrameNanos;
+
+        FrameCounter(CalendarMetrics metrics, long frameIntervalNanos) {
+            mMetrics = metrics;
+            mFrameIntervalNanos = frameIntervalNanos;
+        }
+
+        void start() {
+            if (!mRunning) {
+                mRunning = true;
+                mLastFrameNanos = 0;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        void stop() {
+            if (mRunning) {
+                mRunning = false;
+                Choreographer.getInstance().removeFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mRunning) {
+                return;
+            }
+            // the first frame only gives the start time
+            if (mLastFrameNanos != 0) {
+                mMetrics.onScrollFrame(frameTimeNanos - mLastFrameNanos, mFrameIntervalNanos);
+            }
+            mLastFrameNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
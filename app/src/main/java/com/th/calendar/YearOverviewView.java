@@ -0,0 +1,335 @@
+package com.th.calendar;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.content.ContextCompat;
+import android.util.AttributeSet;
+import android.util.LruCache;
+import android.util.SparseBooleanArray;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+
+import java.util.Calendar;
+import java.util.concurrent.Executor;
+
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
+import static com.th.calendar.CalendarDates.MONTH_PER_YEAR;
+
+/**
+ * The 12 months of a year on a single {@link View}, 3 columns of 4 rows of mini months.
+ * <p>
+ * Each mini month but its title is a bitmap drawn by a {@link MiniMonthRenderer} on a background
+ * thread and kept in an {@link LruCache} bounded by its bytes, so that drawing the year is 12
+ * bitmaps and 12 titles whatever its content. The bitmaps of the years before and after are
+ * rendered along with the year shown, for the next/prev jumps to show right away.
+ */
+class YearOverviewView extends View {
+
+    private static final int COLUMN_COUNT = 3;
+    private static final int ROW_COUNT = MONTH_PER_YEAR / COLUMN_COUNT;
+    // of the height of a mini month
+    private static final float TITLE_HEIGHT_RATIO = 0.15f;
+    // of the width of a mini month, on each side
+    private static final float PADDING_RATIO = 0.04f;
+    // a sixteenth of the heap, alpha only bitmaps keeping a few years in it
+    private static final int CACHE_DIVIDER = 16;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final MiniMonthRenderer mRenderer = new MiniMonthRenderer();
+    private final LruCache<Integer, Bitmap> mCache;
+    private final Paint mBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Paint mTitlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTodayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    // drawDayState takes both, nothing is selected here
+    private final Paint mSelectedPaint = new Paint();
+    // the bitmaps of mYear, null until rendered
+    private final Bitmap[] mBitmaps = new Bitmap[MONTH_PER_YEAR];
+    // months being rendered, by packed year-month
+    private final SparseBooleanArray mRendering = new SparseBooleanArray();
+
+    private Executor mExecutor;
+    private CalendarLabels mLabels;
+    private int mYear;
+    // months of mYear, replaced rather than rebuilt since renders in progress read it
+    private MonthTable mMonthTable;
+    private int mToday = CalendarAdapter.NO_DAY;
+    private float mMonthWidth;
+    private float mMonthHeight;
+    private float mPadding;
+    private float mTitleHeight;
+    // distance from the vertical center of a title to its baseline
+    private float mTitleCenterOffset;
+    private int mBitmapWidth;
+    private int mBitmapHeight;
+    // changed whenever the rendered bitmaps no longer match the size or labels, read by renders
+    private volatile int mGeneration;
+
+    private OnMonthClickListener mOnMonthClickListener;
+
+    YearOverviewView(Context context) {
+        this(context, null);
+    }
+
+    public YearOverviewView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        TypedArray a = context.obtainStyledAttributes(new int[]{android.R.attr.textColorPrimary});
+        mBitmapPaint.setColor(a.getColor(0, Color.BLACK));
+        a.recycle();
+        int accentColor = ContextCompat.getColor(context, R.color.colorAccent);
+        mTitlePaint.setColor(accentColor);
+        mTitlePaint.setTextAlign(Paint.Align.CENTER);
+        DayView.initDayStatePaints(context, mSelectedPaint, mTodayPaint);
+
+        int cacheSize = (int) Math.min(Runtime.getRuntime().maxMemory() / CACHE_DIVIDER, Integer.MAX_VALUE);
+        mCache = new LruCache<Integer, Bitmap>(cacheSize) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * @param executor Single thread executor running the renders.
+     */
+    void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Show the mini months with {@code labels}, rendering them again if they changed.
+     */
+    void setLabels(CalendarLabels labels) {
+        if (mLabels != labels) {
+            mLabels = labels;
+            if (mMonthTable != null) {
+                mMonthTable = createYearTable(mYear);
+            }
+            invalidateBitmaps();
+        }
+    }
+
+    int getYear() {
+        return mYear;
+    }
+
+    /**
+     * Show the months of {@code year}, their bitmaps coming from the cache when rendered already.
+     */
+    void setYear(int year) {
+        if (mMonthTable != null && mYear == year) {
+            return;
+        }
+        mYear = year;
+        mMonthTable = createYearTable(year);
+        for (int month = 0; month < MONTH_PER_YEAR; month++) {
+            mBitmaps[month] = null;
+        }
+        requestBitmaps();
+        invalidate();
+    }
+
+    /**
+     * @param epochDay Day circled as today, see {@link CalendarDates#epochDay(int, int, int)}.
+     */
+    void setToday(int epochDay) {
+        if (mToday != epochDay) {
+            mToday = epochDay;
+            invalidate();
+        }
+    }
+
+    void setOnMonthClickListener(OnMonthClickListener onMonthClickListener) {
+        mOnMonthClickListener = onMonthClickListener;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mMonthWidth = (float) w / COLUMN_COUNT;
+        mMonthHeight = (float) h / ROW_COUNT;
+        mPadding = mMonthWidth * PADDING_RATIO;
+        mTitleHeight = mMonthHeight * TITLE_HEIGHT_RATIO;
+        mTitlePaint.setTextSize(mTitleHeight * 0.7f);
+        Paint.FontMetrics fontMetrics = mTitlePaint.getFontMetrics();
+        mTitleCenterOffset = -(fontMetrics.ascent + fontMetrics.descent) / 2;
+        int bitmapWidth = (int) (mMonthWidth - mPadding * 2);
+        int bitmapHeight = (int) (mMonthHeight - mTitleHeight - mPadding);
+        if (bitmapWidth != mBitmapWidth || bitmapHeight != mBitmapHeight) {
+            mBitmapWidth = bitmapWidth;
+            mBitmapHeight = bitmapHeight;
+            invalidateBitmaps();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        requestBitmaps();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // renders in progress are dropped, the cached bitmaps kept for when the view comes back
+        mGeneration++;
+        mRendering.clear();
+        mHandler.removeCallbacksAndMessages(null);
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mMonthTable == null || mLabels == null) {
+            return;
+        }
+        for (int month = 0; month < MONTH_PER_YEAR; month++) {
+            float left = mMonthWidth * (month % COLUMN_COUNT);
+            float top = mMonthHeight * (month / COLUMN_COUNT);
+            canvas.drawText(mLabels.getMonthName(month), left + mMonthWidth / 2, top + mTitleHeight / 2 + mTitleCenterOffset, mTitlePaint);
+            if (mBitmaps[month] != null) {
+                // alpha only, tinted by the paint
+                canvas.drawBitmap(mBitmaps[month], left + mPadding, top + mTitleHeight, mBitmapPaint);
+            }
+        }
+        drawToday(canvas);
+    }
+
+    private void drawToday(Canvas canvas) {
+        if (mToday == CalendarAdapter.NO_DAY || CalendarDates.year(CalendarDates.yearMonthOfEpochDay(mToday)) != mYear) {
+            return;
+        }
+        int month = CalendarDates.month(CalendarDates.yearMonthOfEpochDay(mToday));
+        int monthOffset = MONTH_PER_YEAR - 1 - month;
+        int dayPosition = mMonthTable.getFirstDayColumn(monthOffset) + CalendarDates.dayOfMonth(mToday) - 1;
+        float columnWidth = (float) mBitmapWidth / DAY_PER_WEEK;
+        float rowHeight = (float) mBitmapHeight / MiniMonthRenderer.ROW_COUNT;
+        float x = mMonthWidth * (month % COLUMN_COUNT) + mPadding + columnWidth * (dayPosition % DAY_PER_WEEK + 0.5f);
+        float y = mMonthHeight * (month / COLUMN_COUNT) + mTitleHeight + rowHeight * (1 + dayPosition / DAY_PER_WEEK + 0.5f);
+        DayView.drawDayState(canvas, mSelectedPaint, mTodayPaint, x, y, Math.min(columnWidth, rowHeight) * 0.5f, false, true);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mOnMonthClickListener == null || mMonthWidth == 0 || mMonthHeight == 0) {
+            return super.onTouchEvent(event);
+        }
+        if (event.getActionMasked() == MotionEvent.ACTION_UP) {
+            int column = Math.min((int) (event.getX() / mMonthWidth), COLUMN_COUNT - 1);
+            int row = Math.min((int) (event.getY() / mMonthHeight), ROW_COUNT - 1);
+            if (column >= 0 && row >= 0) {
+                playSoundEffect(SoundEffectConstants.CLICK);
+                mOnMonthClickListener.onMonthClick(this, CalendarDates.yearMonth(mYear, Calendar.JANUARY + row * COLUMN_COUNT + column));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drop the bitmaps and render them again, after their size or labels changed.
+     */
+    private void invalidateBitmaps() {
+        mGeneration++;
+        mRendering.clear();
+        mCache.evictAll();
+        for (int month = 0; month < MONTH_PER_YEAR; month++) {
+            mBitmaps[month] = null;
+        }
+        requestBitmaps();
+        invalidate();
+    }
+
+    /**
+     * Take the bitmaps of the year from the cache, and render the ones of the year and of the
+     * years around missing from it.
+     */
+    private void requestBitmaps() {
+        if (mMonthTable == null || mLabels == null || mExecutor == null || mBitmapWidth <= 0 || mBitmapHeight <= 0) {
+            return;
+        }
+        for (int month = 0; month < MONTH_PER_YEAR; month++) {
+            if (mBitmaps[month] == null) {
+                mBitmaps[month] = mCache.get(CalendarDates.yearMonth(mYear, month));
+            }
+            if (mBitmaps[month] == null) {
+                render(mMonthTable, mYear, month);
+            }
+        }
+        prefetchYear(mYear + 1);
+        prefetchYear(mYear - 1);
+    }
+
+    private void prefetchYear(int year) {
+        MonthTable monthTable = null;
+        for (int month = 0; month < MONTH_PER_YEAR; month++) {
+            if (mCache.get(CalendarDates.yearMonth(year, month)) == null) {
+                if (monthTable == null) {
+                    monthTable = createYearTable(year);
+                }
+                render(monthTable, year, month);
+            }
+        }
+    }
+
+    private void render(final MonthTable monthTable, int year, int month) {
+        final int yearMonth = CalendarDates.yearMonth(year, month);
+        if (mRendering.get(yearMonth)) {
+            return;
+        }
+        mRendering.put(yearMonth, true);
+        final int generation = mGeneration;
+        final int monthOffset = MONTH_PER_YEAR - 1 - month;
+        final CalendarLabels labels = mLabels;
+        final int width = mBitmapWidth;
+        final int height = mBitmapHeight;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // resized, relabelled or detached since, not worth rendering anymore
+                if (generation != mGeneration) {
+                    return;
+                }
+                final Bitmap bitmap = mRenderer.render(monthTable, monthOffset, labels, width, height);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onRendered(generation, yearMonth, bitmap);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onRendered(int generation, int yearMonth, Bitmap bitmap) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mRendering.delete(yearMonth);
+        mCache.put(yearMonth, bitmap);
+        if (CalendarDates.year(yearMonth) == mYear) {
+            mBitmaps[CalendarDates.month(yearMonth)] = bitmap;
+            invalidate();
+        }
+    }
+
+    private MonthTable createYearTable(int year) {
+        MonthTable monthTable = new MonthTable();
+        monthTable.setWeekStart(mLabels != null ? mLabels.getWeekStart() : 0);
+        monthTable.build(CalendarDates.yearMonth(year, Calendar.JANUARY), CalendarDates.yearMonth(year, Calendar.DECEMBER));
+        return monthTable;
+    }
+
+    interface OnMonthClickListener {
+
+        /**
+         * @param yearMonth Packed year-month, see {@link CalendarDates#yearMonth(int, int)}.
+         */
+        void onMonthClick(YearOverviewView view, int yearMonth);
+    }
+}
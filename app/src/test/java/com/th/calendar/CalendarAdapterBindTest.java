@@ -0,0 +1,113 @@
+package com.th.calendar;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Binds the items of 3 months through {@link CalendarAdapter#onBindViewHolder(RecyclerView.ViewHolder, int, List)},
+ * as {@link RecyclerView} does, with events, an event overlay, a heatmap, a selection and today to
+ * show, and checks that binding them again allocates nothing.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class CalendarAdapterBindTest {
+
+    private static final int FIRST_MONTH = CalendarDates.yearMonth(2017, Calendar.MAY);
+    private static final int MONTH_COUNT = 3;
+    private static final List<Object> NO_PAYLOADS = Collections.emptyList();
+
+    private final com.sun.management.ThreadMXBean mThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private FrameLayout mParent;
+    private CalendarAdapter mAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mParent = new FrameLayout(activity);
+        mAdapter = new CalendarAdapter();
+        mAdapter.setDimensions(100);
+        mAdapter.centerWindow(FIRST_MONTH);
+
+        int firstDay = CalendarDates.firstEpochDay(FIRST_MONTH);
+        int dayCount = CalendarDates.firstEpochDay(FIRST_MONTH + MONTH_COUNT) - firstDay;
+        Random random = new Random(3);
+        EventIndex.Builder events = new EventIndex.Builder();
+        float[] heat = new float[dayCount];
+        for (int i = 0; i < dayCount; i++) {
+            events.addEpochDay(firstDay + random.nextInt(dayCount));
+            heat[i] = random.nextInt(10);
+        }
+        Heatmap heatmap = new Heatmap(0xFFE0F2F1, 0xFF00695C);
+        heatmap.setValues(2017, Calendar.MAY, 1, heat);
+        EventIndex eventIndex = events.build();
+        EventOverlay overlay = new EventOverlay();
+        overlay.putSource(0, eventIndex, 0xFF1E88E5, 0);
+        mAdapter.setEventIndex(eventIndex);
+        mAdapter.setEventOverlay(overlay);
+        mAdapter.setHeatmap(heatmap);
+        mAdapter.setSelectedDay(firstDay + 20);
+        mAdapter.setToday(firstDay + 40);
+    }
+
+    @Test
+    public void dayCells_bindWithoutAllocating() throws Exception {
+        assertBindsWithoutAllocating();
+    }
+
+    @Test
+    public void monthGrids_bindWithoutAllocating() throws Exception {
+        mAdapter.setMonthGridMode(true);
+        assertBindsWithoutAllocating();
+    }
+
+    private void assertBindsWithoutAllocating() {
+        int firstPosition = mAdapter.getMonthOffset(FIRST_MONTH + MONTH_COUNT - 1) * mAdapter.getItemPerMonth();
+        RecyclerView.ViewHolder[] holders = new RecyclerView.ViewHolder[MONTH_COUNT * mAdapter.getItemPerMonth()];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = mAdapter.onCreateViewHolder(mParent, mAdapter.getItemViewType(firstPosition + i));
+        }
+        List<Object> eventsPayload = Collections.singletonList(CalendarAdapter.PAYLOAD_EVENTS);
+        List<Object> dayStatePayload = Collections.singletonList(CalendarAdapter.PAYLOAD_DAY_STATE);
+        List<Object> heatmapPayload = Collections.singletonList(CalendarAdapter.PAYLOAD_HEATMAP);
+        // the first binds look up the labels and set up the views, titles included
+        for (int pass = 0; pass < 2; pass++) {
+            bind(holders, firstPosition, NO_PAYLOADS);
+            bind(holders, firstPosition, eventsPayload);
+            bind(holders, firstPosition, dayStatePayload);
+            bind(holders, firstPosition, heatmapPayload);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = mThreadBean.getThreadAllocatedBytes(threadId);
+        bind(holders, firstPosition, NO_PAYLOADS);
+        bind(holders, firstPosition, eventsPayload);
+        bind(holders, firstPosition, dayStatePayload);
+        bind(holders, firstPosition, heatmapPayload);
+        long allocated = mThreadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertEquals("bytes allocated while binding " + holders.length + " items", 0, allocated);
+    }
+
+    private void bind(RecyclerView.ViewHolder[] holders, int firstPosition, List<Object> payloads) {
+        for (int i = 0; i < holders.length; i++) {
+            mAdapter.onBindViewHolder(holders[i], firstPosition + i, payloads);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.th.calendar;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class CalendarLabelsTest {
+
+    private static final int MONDAY = Calendar.MONDAY - Calendar.SUNDAY;
+
+    private Locale mDefaultLocale;
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        mDefaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Locale.setDefault(mDefaultLocale);
+    }
+
+    @Test
+    public void labels_areBuiltOncePerWeekStart() throws Exception {
+        CalendarLabels labels = CalendarLabels.get(mContext, MONDAY);
+        assertSame(labels, CalendarLabels.get(mContext, MONDAY));
+        assertNotSame(labels, CalendarLabels.get(mContext, 0));
+
+        assertEquals("1", labels.getDayLabel(1));
+        assertEquals("31", labels.getDayLabel(31));
+        assertEquals("Mon", labels.getWeekdayTitle(0));
+        assertEquals("Sun", labels.getWeekdayTitle(6));
+        assertEquals("Sun", CalendarLabels.get(mContext, 0).getWeekdayTitle(0));
+        assertEquals("January", labels.getMonthName(Calendar.JANUARY));
+        assertEquals("December", labels.getMonthName(Calendar.DECEMBER));
+    }
+
+    @Test
+    public void labels_areRebuiltWhenTheLocaleChanges() throws Exception {
+        CalendarLabels labels = CalendarLabels.get(mContext, MONDAY);
+        Locale.setDefault(Locale.FRANCE);
+        assertNotSame(labels, CalendarLabels.get(mContext, MONDAY));
+    }
+
+    @Test
+    public void monthTitles_areCached() throws Exception {
+        CalendarLabels labels = CalendarLabels.get(mContext, 0);
+        int month = CalendarDates.yearMonth(2015, Calendar.MARCH);
+        String title = labels.getMonthTitle(month);
+        assertTrue(title, title.contains("March") && title.contains("2015"));
+        assertSame(title, labels.getMonthTitle(month));
+
+        int currentMonth = CalendarDates.yearMonth(Calendar.getInstance());
+        assertTrue(!labels.getMonthTitle(currentMonth).contains(String.valueOf(CalendarDates.year(currentMonth))));
+    }
+}
@@ -0,0 +1,99 @@
+package com.th.calendar;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Grows and shrinks the range of a {@link CalendarView} showing June 2017, which has to stay on
+ * the same views without being bound again while months are inserted and removed around it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class CalendarViewRangeTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+    private static final int JUNE_15 = CalendarDates.epochDay(2017, Calendar.JUNE, 15);
+
+    private CalendarView mCalendarView;
+    private RecyclerView mRecyclerView;
+    private CalendarAdapter mAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mCalendarView = new CalendarView(activity);
+        mCalendarView.setDateRange(calendar(2017, Calendar.JANUARY, 1), calendar(2017, Calendar.DECEMBER, 31));
+        mCalendarView.setCurrentMonth(2017, Calendar.JUNE);
+        layout(mCalendarView);
+        mRecyclerView = (RecyclerView) mCalendarView.findViewById(R.id.days);
+        mAdapter = (CalendarAdapter) mRecyclerView.getAdapter();
+    }
+
+    @Test
+    public void growingRange_insertsMonthsAroundTheCurrentOne() throws Exception {
+        View dayView = findDayView(JUNE_15);
+        int bindCount = mAdapter.getBindCount();
+
+        // two more years after, and one before
+        mCalendarView.setMaxDate(calendar(2019, Calendar.DECEMBER, 31));
+        mCalendarView.setMinDate(calendar(2016, Calendar.JANUARY, 1));
+        layout(mCalendarView);
+
+        assertEquals(CalendarDates.yearMonth(2019, Calendar.DECEMBER), mAdapter.getEndMonth());
+        assertEquals(CalendarDates.yearMonth(2016, Calendar.JANUARY), mAdapter.getStartMonth());
+        assertEquals(2017, mCalendarView.getCurrentYear());
+        assertEquals(Calendar.JUNE, mCalendarView.getCurrentMonth());
+        assertSame(dayView, findDayView(JUNE_15));
+        assertEquals(bindCount, mAdapter.getBindCount());
+    }
+
+    @Test
+    public void shrinkingRange_removesMonthsAroundTheCurrentOne() throws Exception {
+        View dayView = findDayView(JUNE_15);
+        int bindCount = mAdapter.getBindCount();
+
+        mCalendarView.setDateRange(calendar(2017, Calendar.MAY, 1), calendar(2017, Calendar.AUGUST, 15));
+        layout(mCalendarView);
+
+        assertEquals(4 * mAdapter.getItemPerMonth(), mAdapter.getItemCount());
+        assertEquals(Calendar.JUNE, mCalendarView.getCurrentMonth());
+        assertSame(dayView, findDayView(JUNE_15));
+        assertEquals(bindCount, mAdapter.getBindCount());
+
+        // the current month leaving the range, the calendar goes to the closest one left
+        mCalendarView.setMaxDate(calendar(2017, Calendar.MAY, 31));
+        layout(mCalendarView);
+        assertEquals(Calendar.MAY, mCalendarView.getCurrentMonth());
+    }
+
+    private View findDayView(int epochDay) {
+        return mRecyclerView.getLayoutManager().findViewByPosition(mAdapter.getDayPosition(epochDay));
+    }
+
+    private static Calendar calendar(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth);
+        return calendar;
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
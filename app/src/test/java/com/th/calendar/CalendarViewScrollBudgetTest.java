@@ -0,0 +1,282 @@
+package com.th.calendar;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scrolls a whole {@link CalendarView} across 24 months with next/prev taps and flings, failing as
+ * soon as a month transition costs more view creations, binds, layout passes or allocations than
+ * the budgets checked in {@code scroll_budgets.properties}. Going through every scroll, it also
+ * fails when a budget leaves more than {@link #HEADROOM_PERCENT} over the costliest transition, so
+ * that the budgets stay set from measured costs.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class CalendarViewScrollBudgetTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+    private static final int MONTH_COUNT = 24;
+    private static final int FRAME_MS = 16;
+    // 10 seconds, far more than any settling scroll
+    private static final int MAX_FRAMES = 600;
+    private static final int FLING_VELOCITY = 8000;
+    // room left in the budgets over the measured costs, for the noise between runs and machines
+    private static final int HEADROOM_PERCENT = 50;
+
+    private static final String CREATES = "creates.per.month";
+    private static final String BINDS = "binds.per.month";
+    private static final String LAYOUTS = "layouts.per.month";
+    private static final String GLOBAL_LAYOUTS = "global.layouts.per.month";
+    private static final String ALLOCATED_BYTES = "allocated.bytes.per.month";
+    private static final String[] BUDGETS = {CREATES, BINDS, LAYOUTS, GLOBAL_LAYOUTS, ALLOCATED_BYTES};
+
+    private final com.sun.management.ThreadMXBean mThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Properties mBudgets = new Properties();
+    // costliest transition for each budget, per month
+    private final Map<String, Long> mMaxCounts = new HashMap<>();
+
+    private CalendarView mCalendarView;
+    private RecyclerView mRecyclerView;
+    private int mGlobalLayoutCount;
+
+    // counts at the start of the transition being measured
+    private int mCreateCount;
+    private int mBindCount;
+    private int mLayoutCount;
+    private int mGlobalLayoutStartCount;
+    private long mAllocatedBytes;
+    // binds of every transition of the test, for the budgets not to pass on counters left at 0
+    private int mTotalBindCount;
+
+    @Before
+    public void setUp() throws Exception {
+        InputStream budgets = getClass().getResourceAsStream("scroll_budgets.properties");
+        try {
+            mBudgets.load(budgets);
+        } finally {
+            budgets.close();
+        }
+
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).create();
+        Activity activity = controller.get();
+        mCalendarView = new CalendarView(activity);
+        activity.setContentView(mCalendarView, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        mCalendarView.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+            @Override
+            public void onGlobalLayout() {
+                mGlobalLayoutCount++;
+            }
+        });
+        controller.start().resume().visible();
+        mRecyclerView = (RecyclerView) mCalendarView.findViewById(R.id.days);
+
+        mCalendarView.setCurrentMonth(2017, Calendar.JANUARY);
+        runFrames();
+        // warm up a transition both ways, the first pages inflate their holders anyway
+        tap(R.id.next);
+        tap(R.id.prev);
+        assertMonth(2017, Calendar.JANUARY);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        assertTrue("no bind counted over the transitions", mTotalBindCount > 0);
+    }
+
+    @Test
+    public void nextTaps() throws Exception {
+        scrollNextTaps();
+    }
+
+    @Test
+    public void prevTaps() throws Exception {
+        scrollPrevTaps();
+    }
+
+    @Test
+    public void flings() throws Exception {
+        scrollFlings();
+    }
+
+    @Test
+    public void rapidTaps() throws Exception {
+        scrollRapidTaps();
+    }
+
+    @Test
+    public void budgets_keepTheirHeadroomOnly() throws Exception {
+        scrollNextTaps();
+        resetMonth();
+        scrollPrevTaps();
+        resetMonth();
+        scrollFlings();
+        resetMonth();
+        scrollRapidTaps();
+
+        for (String key : BUDGETS) {
+            long budget = Long.parseLong(mBudgets.getProperty(key));
+            long measured = mMaxCounts.get(key);
+            // + 1 for the counts of a few units, where a percentage rounds to nothing
+            long ceiling = measured + measured * HEADROOM_PERCENT / 100 + 1;
+            assertTrue(key + " budget of " + budget + " leaves more than " + HEADROOM_PERCENT
+                    + "% over the measured " + measured + ", set it to " + ceiling + " at most", budget <= ceiling);
+        }
+    }
+
+    private void scrollNextTaps() {
+        for (int i = 1; i <= MONTH_COUNT; i++) {
+            startTransition();
+            tap(R.id.next);
+            endTransition("next tap " + i, 1);
+        }
+        assertMonth(2019, Calendar.JANUARY);
+    }
+
+    private void scrollPrevTaps() {
+        for (int i = 1; i <= MONTH_COUNT; i++) {
+            startTransition();
+            tap(R.id.prev);
+            endTransition("prev tap " + i, 1);
+        }
+        assertMonth(2015, Calendar.JANUARY);
+    }
+
+    private void scrollFlings() {
+        for (int i = 1; i <= MONTH_COUNT; i++) {
+            startTransition();
+            fling(1);
+            endTransition("forward fling " + i, 1);
+        }
+        assertMonth(2019, Calendar.JANUARY);
+
+        for (int i = 1; i <= MONTH_COUNT; i++) {
+            startTransition();
+            fling(-1);
+            endTransition("backward fling " + i, 1);
+        }
+        assertMonth(2017, Calendar.JANUARY);
+    }
+
+    private void scrollRapidTaps() {
+        // taps coalesced into a single navigation, budgeted as a couple of transitions at most
+        startTransition();
+        View nextView = mCalendarView.findViewById(R.id.next);
+        for (int i = 0; i < MONTH_COUNT; i++) {
+            nextView.performClick();
+        }
+        runFrames();
+        endTransition("24 rapid next taps", 2);
+        assertMonth(2019, Calendar.JANUARY);
+    }
+
+    private void resetMonth() {
+        mCalendarView.setCurrentMonth(2017, Calendar.JANUARY);
+        runFrames();
+        assertMonth(2017, Calendar.JANUARY);
+    }
+
+    private void tap(int id) {
+        mCalendarView.findViewById(id).performClick();
+        runFrames();
+    }
+
+    /**
+     * Drag a tenth of a page then fling, the velocity only picking the direction since the snap
+     * helper moves one month per fling.
+     *
+     * @param direction {@code 1} towards the next month, {@code -1} towards the previous one.
+     */
+    private void fling(int direction) {
+        mRecyclerView.scrollBy(direction * WIDTH / 10, 0);
+        mRecyclerView.fling(direction * FLING_VELOCITY, 0);
+        runFrames();
+    }
+
+    /**
+     * Run animation frames until the scroll has been idle for two frames.
+     */
+    private void runFrames() {
+        int idleFrames = 0;
+        for (int frame = 0; frame < MAX_FRAMES && idleFrames < 2; frame++) {
+            ShadowLooper.idleMainLooper(FRAME_MS, TimeUnit.MILLISECONDS);
+            idleFrames = mRecyclerView.getScrollState() == RecyclerView.SCROLL_STATE_IDLE ? idleFrames + 1 : 0;
+        }
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, mRecyclerView.getScrollState());
+    }
+
+    private void startTransition() {
+        mCreateCount = getAdapter().getCreateCount();
+        mBindCount = getAdapter().getBindCount();
+        mLayoutCount = getLayoutManager().getLayoutCount();
+        mGlobalLayoutStartCount = mGlobalLayoutCount;
+        mAllocatedBytes = mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Check the counts since {@link #startTransition()} against {@code transitions} times the
+     * budgets.
+     */
+    private void endTransition(String name, int transitions) {
+        long allocatedBytes = mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - mAllocatedBytes;
+        int creates = getAdapter().getCreateCount() - mCreateCount;
+        int binds = getAdapter().getBindCount() - mBindCount;
+        int layouts = getLayoutManager().getLayoutCount() - mLayoutCount;
+        int globalLayouts = mGlobalLayoutCount - mGlobalLayoutStartCount;
+        mTotalBindCount += binds;
+
+        assertBudget(name, CREATES, creates, transitions);
+        assertBudget(name, BINDS, binds, transitions);
+        assertBudget(name, LAYOUTS, layouts, transitions);
+        assertBudget(name, GLOBAL_LAYOUTS, globalLayouts, transitions);
+        assertBudget(name, ALLOCATED_BYTES, allocatedBytes, transitions);
+    }
+
+    private void assertBudget(String name, String key, long count, int transitions) {
+        long perMonth = (count + transitions - 1) / transitions;
+        Long maxCount = mMaxCounts.get(key);
+        if (maxCount == null || perMonth > maxCount) {
+            mMaxCounts.put(key, perMonth);
+        }
+        long budget = Long.parseLong(mBudgets.getProperty(key)) * transitions;
+        assertTrue(name + ": " + count + " over the " + key + " budget of " + budget, count <= budget);
+    }
+
+    private void assertMonth(int year, int month) {
+        assertEquals(year, mCalendarView.getCurrentYear());
+        assertEquals(month, mCalendarView.getCurrentMonth());
+    }
+
+    private CalendarAdapter getAdapter() {
+        return (CalendarAdapter) mRecyclerView.getAdapter();
+    }
+
+    private CalendarLayoutManager getLayoutManager() {
+        return (CalendarLayoutManager) mRecyclerView.getLayoutManager();
+    }
+}
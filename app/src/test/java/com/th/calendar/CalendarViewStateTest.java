@@ -0,0 +1,105 @@
+package com.th.calendar;
+
+import android.app.Activity;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the first layout pass of a {@link CalendarView} already shows its month, and that
+ * recreating it from its saved state shows the same month without scrolling.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class CalendarViewStateTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+    private static final int CALENDAR_ID = 1;
+
+    private Activity mActivity;
+
+    @Before
+    public void setUp() throws Exception {
+        mActivity = Robolectric.setupActivity(Activity.class);
+    }
+
+    @Test
+    public void firstLayout_showsCurrentMonth() throws Exception {
+        CalendarView calendarView = new CalendarView(mActivity);
+        layout(calendarView);
+
+        RecyclerView recyclerView = (RecyclerView) calendarView.findViewById(R.id.days);
+        CalendarLayoutManager layoutManager = (CalendarLayoutManager) recyclerView.getLayoutManager();
+        assertEquals(1, layoutManager.getLayoutCount());
+        assertEquals(CalendarSnapHelper.ITEM_PER_MONTH, recyclerView.getChildCount());
+        assertEquals(recyclerView.getWidth() / 7, recyclerView.getChildAt(1).getLayoutParams().width);
+        Calendar today = Calendar.getInstance();
+        assertEquals(today.get(Calendar.YEAR), calendarView.getCurrentYear());
+        assertEquals(today.get(Calendar.MONTH), calendarView.getCurrentMonth());
+    }
+
+    @Test
+    public void recreation_restoresMonthWithoutScrolling() throws Exception {
+        CalendarView calendarView = new CalendarView(mActivity);
+        calendarView.setId(CALENDAR_ID);
+        layout(calendarView);
+        calendarView.setCurrentMonth(2015, Calendar.MARCH);
+        layout(calendarView);
+        SparseArray<Parcelable> container = parcel(save(calendarView));
+
+        CalendarView restoredView = new CalendarView(mActivity);
+        restoredView.setId(CALENDAR_ID);
+        restoredView.restoreHierarchyState(container);
+        layout(restoredView);
+
+        RecyclerView recyclerView = (RecyclerView) restoredView.findViewById(R.id.days);
+        assertEquals(1, ((CalendarLayoutManager) recyclerView.getLayoutManager()).getLayoutCount());
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, recyclerView.getScrollState());
+        assertEquals(2015, restoredView.getCurrentYear());
+        assertEquals(Calendar.MARCH, restoredView.getCurrentMonth());
+    }
+
+    private static SparseArray<Parcelable> save(View view) {
+        SparseArray<Parcelable> container = new SparseArray<>();
+        view.saveHierarchyState(container);
+        // the children are not saved, their ids being the same in every calendar
+        assertEquals(1, container.size());
+        return container;
+    }
+
+    /**
+     * Round trip the saved state through a parcel, as when the process is recreated.
+     */
+    private static SparseArray<Parcelable> parcel(SparseArray<Parcelable> container) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeParcelable(container.get(CALENDAR_ID), 0);
+            parcel.setDataPosition(0);
+            SparseArray<Parcelable> result = new SparseArray<>();
+            result.put(CALENDAR_ID, parcel.<Parcelable>readParcelable(CalendarView.class.getClassLoader()));
+            return result;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
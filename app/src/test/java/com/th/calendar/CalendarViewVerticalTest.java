@@ -0,0 +1,156 @@
+package com.th.calendar;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the vertical orientation of a {@link CalendarView}: months start at the top when jumped
+ * to, the fast scroll thumb reaches both ends of the range, beyond the month window, and the
+ * months ahead of the scroll are prefetched.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class CalendarViewVerticalTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+
+    private CalendarView mCalendarView;
+    private RecyclerView mRecyclerView;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mCalendarView = new CalendarView(activity);
+        mCalendarView.setCurrentMonth(2015, Calendar.MARCH);
+        layout(mCalendarView);
+        mCalendarView.setOrientation(CalendarView.ORIENTATION_VERTICAL);
+        layout(mCalendarView);
+        mRecyclerView = (RecyclerView) mCalendarView.findViewById(R.id.days);
+    }
+
+    @Test
+    public void orientation_keepsMonthStartingAtTheTop() throws Exception {
+        assertEquals(2015, mCalendarView.getCurrentYear());
+        assertEquals(Calendar.MARCH, mCalendarView.getCurrentMonth());
+
+        CalendarLayoutManager layoutManager = (CalendarLayoutManager) mRecyclerView.getLayoutManager();
+        assertTrue(layoutManager.isVertical());
+        // more than one month shows at once
+        assertTrue(mRecyclerView.getChildCount() > CalendarSnapHelper.ITEM_PER_MONTH);
+        // the weekday title of the first column of March is at the top
+        int position = CalendarSnapHelper.ITEM_PER_MONTH * layoutManager.getCurrentMonth() + CalendarSnapHelper.ITEM_PER_MONTH - 1;
+        assertEquals(mRecyclerView.getPaddingTop(), layoutManager.findViewByPosition(position).getTop());
+    }
+
+    @Test
+    public void fastScroll_reachesBothEndsOfTheRange() throws Exception {
+        mCalendarView.setFastScrollEnabled(true);
+
+        drag(HEIGHT * 2);
+        assertEquals(2100, mCalendarView.getCurrentYear());
+        drag(-HEIGHT);
+        assertEquals(1900, mCalendarView.getCurrentYear());
+        assertEquals(Calendar.JANUARY, mCalendarView.getCurrentMonth());
+    }
+
+    @Test
+    public void prefetch_registersWholeMonthsAheadOfTheScroll() throws Exception {
+        CalendarLayoutManager layoutManager = (CalendarLayoutManager) mRecyclerView.getLayoutManager();
+        int firstMonth = layoutManager.getPosition(mRecyclerView.getChildAt(0)) / CalendarSnapHelper.ITEM_PER_MONTH;
+        int lastMonth = layoutManager.getPosition(mRecyclerView.getChildAt(mRecyclerView.getChildCount() - 1))
+                / CalendarSnapHelper.ITEM_PER_MONTH;
+        mCalendarView.setPrefetchMonths(2);
+
+        // scrolling down goes towards the later months, at the bottom
+        List<int[]> positions = collectPrefetchPositions(layoutManager, 10);
+        assertEquals(2 * CalendarSnapHelper.ITEM_PER_MONTH, positions.size());
+        assertEquals((firstMonth - 1) * CalendarSnapHelper.ITEM_PER_MONTH, positions.get(0)[0]);
+        assertEquals((firstMonth - 2) * CalendarSnapHelper.ITEM_PER_MONTH, positions.get(CalendarSnapHelper.ITEM_PER_MONTH)[0]);
+        assertTrue(positions.get(0)[1] < positions.get(CalendarSnapHelper.ITEM_PER_MONTH)[1]);
+
+        positions = collectPrefetchPositions(layoutManager, -10);
+        assertEquals((lastMonth + 1) * CalendarSnapHelper.ITEM_PER_MONTH, positions.get(0)[0]);
+
+        // a fling settling on the next month prefetches nothing past it
+        layoutManager.setTargetMonth(firstMonth - 1);
+        assertEquals(CalendarSnapHelper.ITEM_PER_MONTH, collectPrefetchPositions(layoutManager, 10).size());
+        layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+        assertEquals(2 * CalendarSnapHelper.ITEM_PER_MONTH, collectPrefetchPositions(layoutManager, 10).size());
+
+        mCalendarView.setPrefetchMonths(0);
+        assertTrue(collectPrefetchPositions(layoutManager, 10).isEmpty());
+    }
+
+    /**
+     * @return positions registered for a scroll by {@code dy}, next to their distance.
+     */
+    private static List<int[]> collectPrefetchPositions(CalendarLayoutManager layoutManager, int dy) {
+        final List<int[]> positions = new ArrayList<>();
+        layoutManager.collectAdjacentPrefetchPositions(0, dy, new RecyclerView.State(),
+                new RecyclerView.LayoutManager.LayoutPrefetchRegistry() {
+                    @Override
+                    public void addPosition(int layoutPosition, int pixelDistance) {
+                        positions.add(new int[]{layoutPosition, pixelDistance});
+                    }
+                });
+        return positions;
+    }
+
+    /**
+     * Grab the thumb, wherever it is, and drag it by {@code dy}.
+     */
+    private void drag(int dy) {
+        float x = mRecyclerView.getWidth() - 1;
+        float y = 0;
+        // find the thumb by trying along the edge
+        boolean grabbed = false;
+        for (; y < mRecyclerView.getHeight() && !grabbed; y += 8) {
+            grabbed = touch(MotionEvent.ACTION_DOWN, x, y);
+            if (!grabbed) {
+                touch(MotionEvent.ACTION_CANCEL, x, y);
+            }
+        }
+        assertTrue(grabbed);
+        for (int i = 1; i <= 10; i++) {
+            touch(MotionEvent.ACTION_MOVE, x, y + dy * i / 10);
+            layout(mCalendarView);
+        }
+        touch(MotionEvent.ACTION_UP, x, y + dy);
+        layout(mCalendarView);
+    }
+
+    private boolean touch(int action, float x, float y) {
+        long time = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(time, time, action, x, y, 0);
+        try {
+            mRecyclerView.dispatchTouchEvent(event);
+            return mCalendarView.getFastScroller().isDragging();
+        } finally {
+            event.recycle();
+        }
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
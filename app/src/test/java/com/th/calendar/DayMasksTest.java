@@ -0,0 +1,123 @@
+package com.th.calendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DayMasksTest {
+
+    private static final int START_MONTH = CalendarDates.yearMonth(2016, Calendar.JANUARY);
+    private static final int END_MONTH = CalendarDates.yearMonth(2018, Calendar.DECEMBER);
+
+    private final MonthTable mMonthTable = new MonthTable();
+    private final List<Integer> mChangedMonths = new ArrayList<>();
+    private DayMasks mDayMasks;
+
+    @Before
+    public void setUp() throws Exception {
+        mMonthTable.build(START_MONTH, END_MONTH);
+        mDayMasks = new DayMasks(new DayMasks.Listener() {
+            @Override
+            public void onMonthMaskChanged(int monthOffset) {
+                mChangedMonths.add(monthOffset);
+            }
+        });
+        mDayMasks.build(mMonthTable);
+    }
+
+    @Test
+    public void disabledRules_matchEveryDay() throws Exception {
+        int minDay = CalendarDates.epochDay(2016, Calendar.MARCH, 15);
+        int maxDay = CalendarDates.epochDay(2018, Calendar.OCTOBER, 3);
+        int[] blackoutDays = {
+                CalendarDates.epochDay(2017, Calendar.DECEMBER, 25),
+                CalendarDates.epochDay(2017, Calendar.JANUARY, 1),
+                CalendarDates.epochDay(2020, Calendar.JANUARY, 1),
+        };
+        // Sundays and Saturdays
+        int daysOfWeek = 1 | 1 << 6;
+        mDayMasks.setDayRange(minDay, maxDay);
+        mDayMasks.setBlackoutDays(blackoutDays);
+        mDayMasks.setDisabledDaysOfWeek(daysOfWeek);
+
+        for (int i = 0; i < mMonthTable.getMonthCount(); i++) {
+            for (int day = 1; day <= mMonthTable.getDaysInMonth(i); day++) {
+                int epochDay = mMonthTable.getFirstEpochDay(i) + day - 1;
+                boolean disabled = epochDay < minDay || epochDay > maxDay
+                        || (daysOfWeek >>> CalendarDates.dayOfWeek(epochDay) & 1) != 0
+                        || epochDay == blackoutDays[0] || epochDay == blackoutDays[1];
+                assertEquals("day " + epochDay, disabled, mDayMasks.isDisabled(i, day));
+            }
+        }
+    }
+
+    @Test
+    public void blackoutDay_changesItsMonthOnly() throws Exception {
+        int day = CalendarDates.epochDay(2017, Calendar.JULY, 4);
+        mDayMasks.setBlackoutDays(new int[]{day});
+
+        assertEquals(1, mChangedMonths.size());
+        assertEquals(END_MONTH - CalendarDates.yearMonth(2017, Calendar.JULY), (int) mChangedMonths.get(0));
+        assertTrue(mDayMasks.isDisabled(mChangedMonths.get(0), 4));
+    }
+
+    @Test
+    public void dayRange_changesBoundaryMonthsOnly() throws Exception {
+        mDayMasks.setDayRange(CalendarDates.epochDay(2016, Calendar.MARCH, 15), DayMasks.NO_LIMIT_MAX);
+        // January and February entirely, and March up to the 14th
+        assertEquals(3, mChangedMonths.size());
+    }
+
+    @Test
+    public void dragRangeAcrossTwelveMonths_changesOneMonthPerDay() throws Exception {
+        int start = CalendarDates.epochDay(2017, Calendar.JANUARY, 10);
+        int end = CalendarDates.epochDay(2018, Calendar.JANUARY, 10);
+        mDayMasks.setRange(start, start);
+        assertEquals(1, mChangedMonths.size());
+
+        for (int day = start + 1; day <= end; day++) {
+            mChangedMonths.clear();
+            mDayMasks.setRange(start, day);
+            // the month of the new end only, the other ones keep their mask
+            assertEquals(1, mChangedMonths.size());
+            assertEquals(END_MONTH - CalendarDates.yearMonthOfEpochDay(day), (int) mChangedMonths.get(0));
+        }
+        assertRange(start, end);
+
+        // dragging back by a year at once changes the 13 months between both ends
+        mChangedMonths.clear();
+        mDayMasks.setRange(start, start);
+        assertEquals(13, mChangedMonths.size());
+        assertRange(start, start);
+    }
+
+    @Test
+    public void rangeEnds_canBeSwappedAndCleared() throws Exception {
+        int start = CalendarDates.epochDay(2017, Calendar.MARCH, 20);
+        int end = CalendarDates.epochDay(2017, Calendar.MAY, 2);
+        mDayMasks.setRange(end, start);
+        assertEquals(start, mDayMasks.getRangeStart());
+        assertEquals(end, mDayMasks.getRangeEnd());
+        assertRange(start, end);
+
+        mChangedMonths.clear();
+        mDayMasks.setRange(CalendarAdapter.NO_DAY, CalendarAdapter.NO_DAY);
+        assertEquals(3, mChangedMonths.size());
+        assertRange(1, 0);
+    }
+
+    private void assertRange(int start, int end) {
+        for (int i = 0; i < mMonthTable.getMonthCount(); i++) {
+            for (int day = 1; day <= mMonthTable.getDaysInMonth(i); day++) {
+                int epochDay = mMonthTable.getFirstEpochDay(i) + day - 1;
+                assertEquals("day " + epochDay, epochDay >= start && epochDay <= end, mDayMasks.isInRange(i, day));
+            }
+        }
+    }
+}
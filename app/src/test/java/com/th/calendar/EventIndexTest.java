@@ -0,0 +1,102 @@
+package com.th.calendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventIndexTest {
+
+    private static final int EVENT_COUNT = 50000;
+    // events spread over 10 years from 2015
+    private static final int FIRST_DAY = CalendarDates.epochDay(2015, Calendar.JANUARY, 1);
+    private static final int DAY_RANGE = 3652;
+
+    private int[] mExpectedCounts;
+    private EventIndex mEventIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        Random random = new Random(50000);
+        mExpectedCounts = new int[DAY_RANGE];
+        EventIndex.Builder builder = new EventIndex.Builder();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            int day = random.nextInt(DAY_RANGE);
+            mExpectedCounts[day]++;
+            builder.addEpochDay(FIRST_DAY + day);
+        }
+        mEventIndex = builder.build();
+    }
+
+    @Test
+    public void getEventCount_countsEventsPerDay() throws Exception {
+        int dayCount = 0;
+        for (int day = 0; day < DAY_RANGE; day++) {
+            assertEquals(mExpectedCounts[day], mEventIndex.getEventCount(FIRST_DAY + day));
+            if (mExpectedCounts[day] > 0) {
+                dayCount++;
+            }
+        }
+        assertEquals(dayCount, mEventIndex.getDayCount());
+        assertEquals(0, mEventIndex.getEventCount(FIRST_DAY - 1));
+        assertEquals(0, mEventIndex.getEventCount(FIRST_DAY + DAY_RANGE));
+    }
+
+    @Test
+    public void add_acceptsDatesAndCalendars() throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2017, Calendar.JULY, 15, 23, 59);
+        EventIndex eventIndex = new EventIndex.Builder()
+                .add(2017, Calendar.JULY, 15)
+                .add(calendar)
+                .add(2017, Calendar.JULY, 16)
+                .build();
+
+        assertEquals(2, eventIndex.getEventCount(2017, Calendar.JULY, 15));
+        assertEquals(1, eventIndex.getEventCount(2017, Calendar.JULY, 16));
+        assertEquals(0, eventIndex.getEventCount(2017, Calendar.JULY, 17));
+        assertEquals(2, eventIndex.getDayCount());
+    }
+
+    @Test
+    public void memoryPerEvent() throws Exception {
+        double bytesPerEvent = (double) mEventIndex.getSizeInBytes() / EVENT_COUNT;
+        // 8 bytes per day having events at most
+        assertEquals(8L * mEventIndex.getDayCount(), mEventIndex.getSizeInBytes());
+        assertTrue(bytesPerEvent <= 8);
+        // more than one event a day on average, so under a byte per event
+        assertTrue(bytesPerEvent < 1);
+    }
+
+    @Test
+    public void decoratedCellBindCost() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int lookups = DAY_RANGE * 100;
+        int checksum = 0;
+
+        // warm up so that the measured loop runs compiled code
+        for (int i = 0; i < lookups; i++) {
+            checksum += mEventIndex.getEventCount(FIRST_DAY + i % DAY_RANGE);
+        }
+
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            checksum += mEventIndex.getEventCount(FIRST_DAY + i % DAY_RANGE);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // both loops went over every day 100 times
+        assertEquals(2 * 100 * EVENT_COUNT, checksum);
+        assertEquals(0, allocated);
+        // a binary search over a few thousand days, far below a frame budget even for 42 cells
+        assertTrue(elapsed / lookups < 2000);
+    }
+}
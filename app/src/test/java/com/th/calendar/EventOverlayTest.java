@@ -0,0 +1,229 @@
+package com.th.calendar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Merges three sources of random events over two years on a pool of threads, the summaries being
+ * delivered through a queue standing for the main thread.
+ */
+public class EventOverlayTest {
+
+    private static final int PERSONAL = 1;
+    private static final int TEAM = 2;
+    private static final int HOLIDAYS = 3;
+    private static final int PERSONAL_COLOR = 0xFF0000FF;
+    private static final int TEAM_COLOR = 0xFF00FF00;
+    private static final int HOLIDAYS_COLOR = 0xFFFF0000;
+    // 2017 and 2018
+    private static final int FIRST_MONTH = CalendarDates.yearMonth(2017, Calendar.JANUARY);
+    private static final int MONTH_COUNT = 24;
+    private static final int FIRST_DAY = CalendarDates.firstEpochDay(FIRST_MONTH);
+    private static final int DAY_COUNT = CalendarDates.firstEpochDay(FIRST_MONTH + MONTH_COUNT) - FIRST_DAY;
+
+    private final BlockingQueue<Runnable> mMainQueue = new LinkedBlockingQueue<>();
+    private final List<Integer> mChangedMonths = new ArrayList<>();
+    private ExecutorService mBackgroundExecutor;
+    private EventOverlay mOverlay;
+    private EventIndex mPersonal;
+    private EventIndex mTeam;
+    private EventIndex mHolidays;
+
+    @Before
+    public void setUp() throws Exception {
+        Random random = new Random(24);
+        mPersonal = randomEvents(random, 400);
+        mTeam = randomEvents(random, 300);
+        mHolidays = randomEvents(random, 20);
+        mBackgroundExecutor = Executors.newFixedThreadPool(3);
+        mOverlay = new EventOverlay(MONTH_COUNT);
+        mOverlay.setExecutors(mBackgroundExecutor, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mMainQueue.add(command);
+            }
+        });
+        mOverlay.addListener(new EventOverlay.Listener() {
+            @Override
+            public void onOverlayMonthChanged(int yearMonth) {
+                mChangedMonths.add(yearMonth);
+            }
+        });
+        mOverlay.putSource(PERSONAL, mPersonal, PERSONAL_COLOR, 0);
+        mOverlay.putSource(TEAM, mTeam, TEAM_COLOR, 0);
+        mOverlay.putSource(HOLIDAYS, mHolidays, HOLIDAYS_COLOR, 10);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBackgroundExecutor.shutdownNow();
+    }
+
+    @Test
+    public void summary_sumsEnabledSources() throws Exception {
+        requestAllMonths();
+        for (int day = FIRST_DAY; day < FIRST_DAY + DAY_COUNT; day++) {
+            assertEquals(mPersonal.getEventCount(day) + mTeam.getEventCount(day) + mHolidays.getEventCount(day),
+                    getEventCount(day));
+        }
+        assertNull(mOverlay.getMonthSummary(FIRST_MONTH - 1));
+    }
+
+    @Test
+    public void color_isTheOneOfTheHighestPriority() throws Exception {
+        requestAllMonths();
+        for (int day = FIRST_DAY; day < FIRST_DAY + DAY_COUNT; day++) {
+            int expectedColor = mHolidays.getEventCount(day) > 0 ? HOLIDAYS_COLOR
+                    // the first added between equal priorities
+                    : mPersonal.getEventCount(day) > 0 ? PERSONAL_COLOR
+                    : mTeam.getEventCount(day) > 0 ? TEAM_COLOR : 0;
+            assertEquals(expectedColor, getColor(day));
+        }
+    }
+
+    @Test
+    public void disablingSource_patchesItsMonthsOnly() throws Exception {
+        requestAllMonths();
+        mChangedMonths.clear();
+
+        mOverlay.setSourceEnabled(HOLIDAYS, false);
+        assertFalse(mOverlay.isSourceEnabled(HOLIDAYS));
+        assertEquals(0, mOverlay.getMergingCount());
+        List<Integer> holidayMonths = new ArrayList<>();
+        for (int i = 0; i < mHolidays.getDayCount(); i++) {
+            int month = CalendarDates.yearMonthOfEpochDay(mHolidays.getDayAt(i));
+            if (!holidayMonths.contains(month)) {
+                holidayMonths.add(month);
+            }
+        }
+        assertTrue(holidayMonths.size() < MONTH_COUNT);
+        Collections.sort(mChangedMonths);
+        assertEquals(holidayMonths, mChangedMonths);
+        for (int day = FIRST_DAY; day < FIRST_DAY + DAY_COUNT; day++) {
+            assertEquals(mPersonal.getEventCount(day) + mTeam.getEventCount(day), getEventCount(day));
+            assertTrue(getColor(day) != HOLIDAYS_COLOR);
+        }
+
+        mOverlay.setSourceEnabled(HOLIDAYS, true);
+        for (int day = FIRST_DAY; day < FIRST_DAY + DAY_COUNT; day++) {
+            assertEquals(mPersonal.getEventCount(day) + mTeam.getEventCount(day) + mHolidays.getEventCount(day),
+                    getEventCount(day));
+        }
+    }
+
+    @Test
+    public void disablingSourceWhileMerging_isAppliedOnDelivery() throws Exception {
+        mOverlay.setCurrentMonth(FIRST_MONTH + 6);
+        mOverlay.setSourceEnabled(PERSONAL, false);
+        drainMainQueue();
+        int firstDay = CalendarDates.firstEpochDay(FIRST_MONTH + 6);
+        for (int day = firstDay; day < firstDay + 31; day++) {
+            assertEquals(mTeam.getEventCount(day) + mHolidays.getEventCount(day), getEventCount(day));
+        }
+    }
+
+    @Test
+    public void removingSource_mergesAgainAroundTheCurrentMonth() throws Exception {
+        mOverlay.setCurrentMonth(FIRST_MONTH + 6);
+        drainMainQueue();
+        assertNotNull(mOverlay.getMonthSummary(FIRST_MONTH + 4));
+
+        mOverlay.removeSource(TEAM);
+        assertEquals(2, mOverlay.getSourceCount());
+        assertNull(mOverlay.getMonthSummary(FIRST_MONTH + 6));
+        drainMainQueue();
+        int firstDay = CalendarDates.firstEpochDay(FIRST_MONTH + 6);
+        for (int day = firstDay; day < firstDay + 31; day++) {
+            assertEquals(mPersonal.getEventCount(day) + mHolidays.getEventCount(day), getEventCount(day));
+        }
+    }
+
+    @Test
+    public void summarizeMonth_mergesSortedSources() throws Exception {
+        EventIndex first = new EventIndex.Builder()
+                .add(2017, Calendar.FEBRUARY, 28)
+                .add(2017, Calendar.MARCH, 1)
+                .add(2017, Calendar.MARCH, 1)
+                .add(2017, Calendar.MARCH, 31)
+                .build();
+        EventIndex second = new EventIndex.Builder()
+                .add(2017, Calendar.MARCH, 1)
+                .add(2017, Calendar.MARCH, 2)
+                .add(2017, Calendar.APRIL, 1)
+                .build();
+        EventIndex empty = new EventIndex.Builder().build();
+        int[] summary = EventOverlay.summarizeMonth(CalendarDates.yearMonth(2017, Calendar.MARCH),
+                new EventIndex[]{first, empty, second}, 0b101);
+        int[] expected = new int[62];
+        expected[0] = 3;
+        expected[1] = 1;
+        expected[30] = 1;
+        expected[31] = 0b101;
+        expected[32] = 0b100;
+        expected[61] = 0b001;
+        assertArrayEquals(expected, summary);
+
+        // disabled sources still mark their days
+        summary = EventOverlay.summarizeMonth(CalendarDates.yearMonth(2017, Calendar.MARCH),
+                new EventIndex[]{first, empty, second}, 0b001);
+        assertEquals(2, summary[0]);
+        assertEquals(0, summary[1]);
+        assertEquals(0b100, summary[32]);
+    }
+
+    private void requestAllMonths() throws Exception {
+        for (int month = FIRST_MONTH; month < FIRST_MONTH + MONTH_COUNT; month++) {
+            mOverlay.requestMonth(month);
+        }
+        drainMainQueue();
+        for (int month = FIRST_MONTH; month < FIRST_MONTH + MONTH_COUNT; month++) {
+            assertNotNull(mOverlay.getMonthSummary(month));
+        }
+    }
+
+    private void drainMainQueue() throws Exception {
+        while (mOverlay.getMergingCount() > 0) {
+            Runnable command = mMainQueue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(command);
+            command.run();
+        }
+    }
+
+    private int getEventCount(int epochDay) {
+        int[] summary = mOverlay.getMonthSummary(CalendarDates.yearMonthOfEpochDay(epochDay));
+        return summary[epochDay - CalendarDates.firstEpochDay(CalendarDates.yearMonthOfEpochDay(epochDay))];
+    }
+
+    private int getColor(int epochDay) {
+        int month = CalendarDates.yearMonthOfEpochDay(epochDay);
+        return mOverlay.getColor(mOverlay.getMonthSummary(month), epochDay - CalendarDates.firstEpochDay(month) + 1);
+    }
+
+    private static EventIndex randomEvents(Random random, int eventCount) {
+        EventIndex.Builder builder = new EventIndex.Builder();
+        for (int i = 0; i < eventCount; i++) {
+            builder.addEpochDay(FIRST_DAY + random.nextInt(DAY_COUNT));
+        }
+        return builder.build();
+    }
+}
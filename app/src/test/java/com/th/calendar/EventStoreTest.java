@@ -0,0 +1,220 @@
+package com.th.calendar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Calendar;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EventStoreTest {
+
+    private static final int EVENT_COUNT = 50000;
+    // events spread over 10 years from 2015
+    private static final int FIRST_DAY = CalendarDates.epochDay(2015, Calendar.JANUARY, 1);
+    private static final int DAY_RANGE = 3652;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mFile;
+    private EventIndex mEventIndex;
+    private EventStore mStore;
+
+    @Before
+    public void setUp() throws Exception {
+        Random random = new Random(50000);
+        EventIndex.Builder builder = new EventIndex.Builder();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            builder.addEpochDay(FIRST_DAY + random.nextInt(DAY_RANGE));
+        }
+        mEventIndex = builder.build();
+        mFile = new File(mFolder.getRoot(), "events");
+        EventStore.write(mFile, mEventIndex);
+        mStore = EventStore.open(mFile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mStore.close();
+    }
+
+    @Test
+    public void store_matchesTheIndexItWasWrittenFrom() throws Exception {
+        for (int day = FIRST_DAY - 40; day < FIRST_DAY + DAY_RANGE + 40; day++) {
+            assertEquals(mEventIndex.getEventCount(day), mStore.getEventCount(day));
+        }
+        int firstMonth = CalendarDates.yearMonthOfEpochDay(FIRST_DAY);
+        for (int month = firstMonth - 2; month < firstMonth + 122; month++) {
+            assertMonth(month);
+        }
+        assertEquals(5 * 4 + 4 * (120 + 1) + 8 * mEventIndex.getDayCount(), mFile.length());
+    }
+
+    @Test
+    public void emptyStore_isCreated() throws Exception {
+        File file = new File(mFolder.getRoot(), "new");
+        EventStore store = EventStore.open(file);
+        try {
+            assertTrue(file.exists());
+            assertNull(store.loadMonth(2017, Calendar.JULY));
+            store.add(2017, Calendar.JULY, 15, 2);
+            assertEquals(2, store.getEventCount(2017, Calendar.JULY, 15));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void appends_areReplayedThenCompacted() throws Exception {
+        int day = FIRST_DAY + 100;
+        int emptyDay = FIRST_DAY + DAY_RANGE + 400;
+        mStore.addEpochDay(day, 3);
+        mStore.addEpochDay(emptyDay, 1);
+        mStore.addEpochDay(emptyDay, 1);
+        mStore.addEpochDay(FIRST_DAY + 5, -mEventIndex.getEventCount(FIRST_DAY + 5));
+        mStore.close();
+
+        mStore = EventStore.open(mFile);
+        assertTrue(new File(mFile.getPath() + ".log").exists());
+        assertEquals(mEventIndex.getEventCount(day) + 3, mStore.getEventCount(day));
+        assertEquals(2, mStore.getEventCount(emptyDay));
+        assertEquals(0, mStore.getEventCount(FIRST_DAY + 5));
+        int[] before = mStore.loadMonth(2015, Calendar.APRIL);
+
+        mStore.compact();
+        assertFalse(new File(mFile.getPath() + ".log").exists());
+        assertEquals(mEventIndex.getEventCount(day) + 3, mStore.getEventCount(day));
+        assertEquals(2, mStore.getEventCount(emptyDay));
+        assertEquals(0, mStore.getEventCount(FIRST_DAY + 5));
+        assertArrayEquals(before, mStore.loadMonth(2015, Calendar.APRIL));
+
+        // and once more from the compacted file alone
+        mStore.close();
+        mStore = EventStore.open(mFile);
+        assertEquals(2, mStore.getEventCount(emptyDay));
+    }
+
+    @Test
+    public void logLeftByACrashAfterCompaction_isNotReplayed() throws Exception {
+        int day = FIRST_DAY + 100;
+        mStore.addEpochDay(day, 3);
+        mStore.close();
+        File logFile = new File(mFile.getPath() + ".log");
+        byte[] log = readFile(logFile);
+
+        mStore = EventStore.open(mFile);
+        mStore.compact();
+        mStore.close();
+        // as if the process died between the renaming and the log deletion
+        writeFile(logFile, log);
+
+        mStore = EventStore.open(mFile);
+        assertEquals(mEventIndex.getEventCount(day) + 3, mStore.getEventCount(day));
+        // the stale log is replaced by the next append
+        mStore.addEpochDay(day, 1);
+        mStore.close();
+        mStore = EventStore.open(mFile);
+        assertEquals(mEventIndex.getEventCount(day) + 4, mStore.getEventCount(day));
+    }
+
+    @Test
+    public void failedCompaction_keepsThePreviousFile() throws Exception {
+        int day = FIRST_DAY + 100;
+        mStore.addEpochDay(day, 3);
+        // the temporary file cannot be created
+        assertTrue(new File(mFile.getPath() + ".tmp").mkdir());
+        try {
+            mStore.compact();
+            fail();
+        } catch (IOException expected) {
+        }
+        assertEquals(mEventIndex.getEventCount(day) + 3, mStore.getEventCount(day));
+        assertMonth(CalendarDates.yearMonthOfEpochDay(FIRST_DAY + 40));
+
+        mStore.addEpochDay(day, 1);
+        mStore.close();
+        mStore = EventStore.open(mFile);
+        assertEquals(mEventIndex.getEventCount(day) + 4, mStore.getEventCount(day));
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFile_isRejected() throws Exception {
+        File file = mFolder.newFile("other");
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(new byte[64]);
+        } finally {
+            output.close();
+        }
+        EventStore.open(file);
+    }
+
+    @Test
+    public void coldMonthLoadCost() throws Exception {
+        mStore.close();
+        int firstMonth = CalendarDates.yearMonthOfEpochDay(FIRST_DAY);
+        int opens = 100;
+        int checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < opens; i++) {
+            // reopening parses the header only, the month reads its own days
+            mStore = EventStore.open(mFile);
+            int month = firstMonth + i % 120;
+            checksum += mStore.loadMonth(CalendarDates.year(month), CalendarDates.month(month)).length;
+            mStore.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        mStore = EventStore.open(mFile);
+
+        // every month of the range has events
+        assertTrue(checksum >= opens * 28);
+        // 5 ms per open and month load
+        assertTrue(elapsed / opens < 5000000);
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            byte[] content = new byte[(int) input.length()];
+            input.readFully(content);
+            return content;
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void writeFile(File file, byte[] content) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(content);
+        } finally {
+            output.close();
+        }
+    }
+
+    private void assertMonth(int month) {
+        int[] counts = mStore.loadMonth(CalendarDates.year(month), CalendarDates.month(month));
+        int firstDay = CalendarDates.firstEpochDay(month);
+        boolean hasEvents = false;
+        for (int i = 0; i < CalendarDates.daysInMonth(month); i++) {
+            int expected = mEventIndex.getEventCount(firstDay + i);
+            hasEvents |= expected > 0;
+            assertEquals(expected, counts == null ? 0 : counts[i]);
+        }
+        assertEquals(hasEvents, counts != null);
+    }
+}
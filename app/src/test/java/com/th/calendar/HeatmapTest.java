@@ -0,0 +1,148 @@
+package com.th.calendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HeatmapTest {
+
+    private static final int LOW_COLOR = 0xFF000000;
+    private static final int HIGH_COLOR = 0xFFFF8040;
+    // 1st of January 2017, and the 2 years after
+    private static final int FIRST_DAY = CalendarDates.epochDay(2017, Calendar.JANUARY, 1);
+    private static final int DAY_COUNT = CalendarDates.epochDay(2019, Calendar.JANUARY, 1) - FIRST_DAY;
+
+    private Heatmap mHeatmap;
+    private final List<Integer> mChangedMonths = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        mHeatmap = new Heatmap(LOW_COLOR, HIGH_COLOR);
+        mHeatmap.addListener(new Heatmap.Listener() {
+            @Override
+            public void onHeatmapMonthChanged(int yearMonth) {
+                mChangedMonths.add(yearMonth);
+            }
+        });
+    }
+
+    @Test
+    public void colors_interpolateChannels() throws Exception {
+        assertArrayEquals(new int[]{0, 0xFF000000, 0xFF804020, 0xFFFF8040}, Heatmap.createColors(LOW_COLOR, HIGH_COLOR, 3));
+        assertArrayEquals(new int[]{0, 0x80FFFFFF}, Heatmap.createColors(0, 0x80FFFFFF, 1));
+    }
+
+    @Test
+    public void linearScale_spreadsLevels() throws Exception {
+        // 0 and negative values are not colored
+        setValues(0, -1, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        assertEquals(0, mHeatmap.getLevel(FIRST_DAY));
+        assertEquals(0, mHeatmap.getLevel(FIRST_DAY + 1));
+        assertEquals(1, mHeatmap.getLevel(FIRST_DAY + 2));
+        assertEquals(3, mHeatmap.getLevel(FIRST_DAY + 7));
+        assertEquals(5, mHeatmap.getLevel(FIRST_DAY + 12));
+        assertEquals(0, mHeatmap.getLevel(FIRST_DAY + 13));
+        assertEquals(0, mHeatmap.getLevel(FIRST_DAY - 1));
+        assertEquals(LOW_COLOR, mHeatmap.getColor(2017, Calendar.JANUARY, 3));
+        assertEquals(HIGH_COLOR, mHeatmap.getColor(2017, Calendar.JANUARY, 13));
+
+        mHeatmap.setValueRange(0, 100);
+        assertEquals(1, mHeatmap.getLevel(FIRST_DAY + 12));
+    }
+
+    @Test
+    public void logScale_spreadsMagnitudes() throws Exception {
+        mHeatmap.setScale(Heatmap.SCALE_LOG, 3);
+        setValues(1, 5, 10, 50, 100);
+        assertEquals(1, mHeatmap.getLevel(FIRST_DAY));
+        assertEquals(2, mHeatmap.getLevel(FIRST_DAY + 1));
+        assertEquals(2, mHeatmap.getLevel(FIRST_DAY + 2));
+        assertEquals(3, mHeatmap.getLevel(FIRST_DAY + 3));
+        assertEquals(3, mHeatmap.getLevel(FIRST_DAY + 4));
+    }
+
+    @Test
+    public void quantileScale_balancesLevels() throws Exception {
+        // one outlier would put every other day in the lowest level of a linear scale
+        float[] values = new float[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        values[99] = 10000;
+        mHeatmap.setQuantiles(0.5f, 0.9f);
+        mHeatmap.setValues(2017, Calendar.JANUARY, 1, values);
+        int[] dayCounts = new int[4];
+        for (int i = 0; i < values.length; i++) {
+            dayCounts[mHeatmap.getLevel(FIRST_DAY + i)]++;
+        }
+        assertArrayEquals(new int[]{0, 50, 40, 10}, dayCounts);
+
+        mHeatmap.setScale(Heatmap.SCALE_QUANTILE, 4);
+        dayCounts = new int[5];
+        for (int i = 0; i < values.length; i++) {
+            dayCounts[mHeatmap.getLevel(FIRST_DAY + i)]++;
+        }
+        assertArrayEquals(new int[]{0, 25, 25, 25, 25}, dayCounts);
+    }
+
+    @Test
+    public void update_notifiesChangedMonthsOnly() throws Exception {
+        float[] values = new float[DAY_COUNT];
+        Arrays.fill(values, 1);
+        values[0] = 10;
+        mHeatmap.setValues(2017, Calendar.JANUARY, 1, values);
+        assertEquals(24, mChangedMonths.size());
+
+        // same colors, a value changing within its level
+        mChangedMonths.clear();
+        values[40] = 1.5f;
+        mHeatmap.setValues(2017, Calendar.JANUARY, 1, values);
+        assertTrue(mChangedMonths.isEmpty());
+
+        // a day of March 2018 changing level
+        values[CalendarDates.epochDay(2018, Calendar.MARCH, 3) - FIRST_DAY] = 5;
+        mHeatmap.setValues(2017, Calendar.JANUARY, 1, values);
+        assertEquals(Arrays.asList(CalendarDates.yearMonth(2018, Calendar.MARCH)), mChangedMonths);
+
+        // the colors of every month
+        mChangedMonths.clear();
+        mHeatmap.setColors(0xFF202020, HIGH_COLOR);
+        assertEquals(24, mChangedMonths.size());
+
+        // 2017 leaving the values, March 2018 now having the largest value
+        mChangedMonths.clear();
+        int secondYear = CalendarDates.epochDay(2018, Calendar.JANUARY, 1) - FIRST_DAY;
+        mHeatmap.setValues(2018, Calendar.JANUARY, 1, Arrays.copyOfRange(values, secondYear, DAY_COUNT));
+        assertEquals(13, mChangedMonths.size());
+        assertEquals(CalendarDates.yearMonth(2018, Calendar.MARCH), (int) mChangedMonths.get(0));
+        assertEquals(CalendarDates.yearMonth(2017, Calendar.JANUARY), (int) mChangedMonths.get(1));
+        assertEquals(0, mHeatmap.getMonthHash(CalendarDates.yearMonth(2017, Calendar.JUNE)));
+    }
+
+    @Test
+    public void movingFirstDay_notifiesItsMonth() throws Exception {
+        mHeatmap.setValues(2017, Calendar.JANUARY, 1, new float[]{5});
+        int hash = mHeatmap.getMonthHash(CalendarDates.yearMonth(2017, Calendar.JANUARY));
+        mChangedMonths.clear();
+
+        // the same colors, a day later
+        mHeatmap.setValues(2017, Calendar.JANUARY, 2, new float[]{5});
+        assertEquals(Arrays.asList(CalendarDates.yearMonth(2017, Calendar.JANUARY)), mChangedMonths);
+        assertTrue(hash != mHeatmap.getMonthHash(CalendarDates.yearMonth(2017, Calendar.JANUARY)));
+        assertEquals(0, mHeatmap.getColor(2017, Calendar.JANUARY, 1));
+        assertEquals(mHeatmap.getColor(FIRST_DAY + 1), mHeatmap.getColor(2017, Calendar.JANUARY, 2));
+        assertTrue(mHeatmap.getColor(FIRST_DAY + 1) != 0);
+    }
+
+    private void setValues(float... values) {
+        mHeatmap.setValues(2017, Calendar.JANUARY, 1, values);
+    }
+}
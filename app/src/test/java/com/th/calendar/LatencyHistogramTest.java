@@ -0,0 +1,86 @@
+package com.th.calendar;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void record_countsInPowerOfTwoBuckets() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+        histogram.record(1500);
+        histogram.record(3000);
+        histogram.record(3999);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(1, histogram.getCountInBucket(0));
+        assertEquals(1, histogram.getCountInBucket(1));
+        assertEquals(2, histogram.getCountInBucket(2));
+        assertEquals(1, histogram.getCountInBucket(histogram.getBucketCount() - 1));
+        assertEquals(5, histogram.getCount());
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMaxNanos());
+        assertEquals(4000, histogram.getBucketUpperBoundNanos(2));
+        assertEquals(Long.MAX_VALUE, histogram.getBucketUpperBoundNanos(histogram.getBucketCount() - 1));
+    }
+
+    @Test
+    public void percentile_isUpperBoundOfItsBucket() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1500);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(10000000);
+        }
+
+        assertEquals(2000, histogram.getPercentileNanos(50));
+        assertEquals(2000, histogram.getPercentileNanos(90));
+        // capped by the slowest duration rather than the bucket bound
+        assertEquals(10000000, histogram.getPercentileNanos(99));
+        assertEquals((90 * 1500 + 10 * 10000000) / 100, histogram.getMeanNanos());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getCountInBucket(1));
+    }
+
+    @Test
+    public void scrollFrame_overBudgetOnceAVsyncIsMissed() throws Exception {
+        CalendarMetrics metrics = new CalendarMetrics();
+        long interval = 16666667;
+        metrics.onScrollFrame(interval, interval);
+        metrics.onScrollFrame(interval * 3 / 2, interval);
+        metrics.onScrollFrame(interval * 2, interval);
+
+        assertEquals(3, metrics.getScrollFrameDurations().getCount());
+        assertEquals(1, metrics.getScrollFramesOverBudget());
+    }
+
+    @Test
+    public void record_allocatesNothing() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        CalendarMetrics metrics = new CalendarMetrics();
+        // warm up, the measuring calls themselves included
+        for (int i = 0; i < 100000; i++) {
+            metrics.onBindViewHolder(i);
+        }
+        threadBean.getThreadAllocatedBytes(threadId);
+
+        long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            metrics.onBindViewHolder(i * 1000L);
+            metrics.onCreateViewHolder(CalendarMetrics.VIEW_TYPE_DAY, i);
+            metrics.onScrollFrame(i * 1000L, 16666667);
+        }
+        allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+        assertEquals(0, allocatedBytes);
+        assertEquals(100000, metrics.getCreateCount(CalendarMetrics.VIEW_TYPE_DAY));
+    }
+}
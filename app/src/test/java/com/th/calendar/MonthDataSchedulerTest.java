@@ -0,0 +1,216 @@
+package com.th.calendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MonthDataSchedulerTest {
+
+    private static final int PREFETCH_MONTHS = 2;
+    private static final int JULY_2017 = CalendarDates.yearMonth(2017, Calendar.JULY);
+
+    private final QueueExecutor mBackground = new QueueExecutor();
+    private final QueueExecutor mMain = new QueueExecutor();
+    private final List<Integer> mLoadedMonths = new ArrayList<>();
+    private final List<Integer> mNotifiedMonths = new ArrayList<>();
+    private MonthDataScheduler mScheduler;
+
+    @Before
+    public void setUp() throws Exception {
+        mScheduler = new MonthDataScheduler(new CalendarView.MonthDataLoader() {
+            @Override
+            public int[] loadMonth(int year, int month) {
+                mLoadedMonths.add(CalendarDates.yearMonth(year, month));
+                return new int[]{year, month};
+            }
+        }, PREFETCH_MONTHS, mBackground, mMain, new MonthDataScheduler.Listener() {
+            @Override
+            public void onMonthLoaded(int month) {
+                mNotifiedMonths.add(month);
+            }
+        });
+    }
+
+    @Test
+    public void setCurrentMonth_prefetchesNearestMonthsFirst() throws Exception {
+        mScheduler.setCurrentMonth(JULY_2017);
+        assertEquals(2 * PREFETCH_MONTHS + 1, mScheduler.getLoadingCount());
+
+        mBackground.runAll();
+        assertEquals(list(JULY_2017, JULY_2017 + 1, JULY_2017 - 1, JULY_2017 + 2, JULY_2017 - 2), mLoadedMonths);
+        // nothing is delivered before the main thread runs
+        assertNull(mScheduler.getMonthData(JULY_2017));
+
+        mMain.runAll();
+        assertEquals(mLoadedMonths, mNotifiedMonths);
+        assertEquals(0, mScheduler.getLoadingCount());
+        assertArrayEquals(new int[]{2017, Calendar.JULY}, mScheduler.getMonthData(JULY_2017));
+    }
+
+    @Test
+    public void setCurrentMonth_cancelsMonthsScrolledPast() throws Exception {
+        mScheduler.setCurrentMonth(JULY_2017);
+        mScheduler.setCurrentMonth(JULY_2017 + 10);
+        mBackground.runAll();
+        mMain.runAll();
+
+        // the first window was cancelled before loading
+        for (int month : mLoadedMonths) {
+            assertTrue(Math.abs(month - (JULY_2017 + 10)) <= PREFETCH_MONTHS);
+        }
+        assertEquals(2 * PREFETCH_MONTHS + 1, mNotifiedMonths.size());
+        assertNull(mScheduler.getMonthData(JULY_2017));
+    }
+
+    @Test
+    public void setCurrentMonth_dropsResultsOfCancelledLoads() throws Exception {
+        mScheduler.setCurrentMonth(JULY_2017);
+        mBackground.runAll();
+        // loaded in the background but scrolled past before delivery
+        mScheduler.setCurrentMonth(JULY_2017 + 10);
+        mMain.runAll();
+
+        assertEquals(Collections.<Integer>emptyList(), mNotifiedMonths);
+        assertNull(mScheduler.getMonthData(JULY_2017));
+    }
+
+    @Test
+    public void setCurrentMonth_doesNotReloadCachedMonths() throws Exception {
+        mScheduler.setCurrentMonth(JULY_2017);
+        mBackground.runAll();
+        mMain.runAll();
+        mLoadedMonths.clear();
+        mNotifiedMonths.clear();
+
+        // one month forward only loads the month entering the window
+        mScheduler.setCurrentMonth(JULY_2017 + 1);
+        mBackground.runAll();
+        mMain.runAll();
+        assertEquals(list(JULY_2017 + 3), mLoadedMonths);
+        assertEquals(list(JULY_2017 + 3), mNotifiedMonths);
+
+        // and back again loads nothing
+        mScheduler.setCurrentMonth(JULY_2017);
+        assertEquals(0, mScheduler.getLoadingCount());
+    }
+
+    @Test
+    public void setCurrentMonth_staysInRange() throws Exception {
+        mScheduler.setRange(JULY_2017, JULY_2017 + 1);
+        mScheduler.setCurrentMonth(JULY_2017);
+        mBackground.runAll();
+        mMain.runAll();
+
+        assertEquals(list(JULY_2017, JULY_2017 + 1), mLoadedMonths);
+    }
+
+    @Test
+    public void cacheIsBounded() throws Exception {
+        for (int month = JULY_2017; month < JULY_2017 + 120; month++) {
+            mScheduler.setCurrentMonth(month);
+            mBackground.runAll();
+            mMain.runAll();
+        }
+
+        int cached = 0;
+        for (int month = JULY_2017 - PREFETCH_MONTHS; month < JULY_2017 + 120 + PREFETCH_MONTHS; month++) {
+            if (mScheduler.getMonthData(month) != null) {
+                cached++;
+            }
+        }
+        // the cache holds twice the prefetch window, and no less than a year
+        assertEquals(12, cached);
+        // every month was loaded and notified exactly once
+        assertEquals(120 + 2 * PREFETCH_MONTHS, mNotifiedMonths.size());
+        assertEquals(mLoadedMonths, mNotifiedMonths);
+    }
+
+    @Test
+    public void release_dropsPendingResults() throws Exception {
+        mScheduler.setCurrentMonth(JULY_2017);
+        mBackground.runAll();
+        mScheduler.release();
+        mMain.runAll();
+
+        assertEquals(Collections.<Integer>emptyList(), mNotifiedMonths);
+        assertEquals(0, mScheduler.getLoadingCount());
+    }
+
+    @Test
+    public void monthDataCache_evictsLeastRecentlyUsed() throws Exception {
+        MonthDataCache cache = new MonthDataCache(2);
+        int[] first = new int[1];
+        int[] second = new int[2];
+        cache.put(1, first);
+        cache.put(2, second);
+        // touching the first month makes the second one the least recently used
+        cache.get(1);
+        cache.put(3, new int[3]);
+
+        assertEquals(first, cache.get(1));
+        assertNull(cache.get(2));
+        assertTrue(cache.contains(3));
+    }
+
+    private static List<Integer> list(Integer... months) {
+        List<Integer> list = new ArrayList<>();
+        Collections.addAll(list, months);
+        return list;
+    }
+
+    /**
+     * Executor queuing tasks until {@link #runAll()}, standing for both the background and the main
+     * thread.
+     */
+    private static class QueueExecutor extends AbstractExecutorService implements Executor {
+
+        private final List<Runnable> mTasks = new ArrayList<>();
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                mTasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
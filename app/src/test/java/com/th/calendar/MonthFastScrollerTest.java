@@ -0,0 +1,30 @@
+package com.th.calendar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MonthFastScrollerTest {
+
+    private static final int TRACK = 1000;
+    private static final int THUMB = 100;
+
+    @Test
+    public void thumb_startsAtTheBottom() throws Exception {
+        assertEquals(900, MonthFastScroller.getThumbTop(0, TRACK, THUMB), 0);
+        assertEquals(0, MonthFastScroller.getThumbTop(1, TRACK, THUMB), 0);
+        assertEquals(450, MonthFastScroller.getThumbTop(0.5f, TRACK, THUMB), 0);
+    }
+
+    @Test
+    public void fraction_isTheInverseOfTheThumbTop() throws Exception {
+        for (float fraction = 0; fraction <= 1; fraction += 0.125f) {
+            float thumbTop = MonthFastScroller.getThumbTop(fraction, TRACK, THUMB);
+            assertEquals(fraction, MonthFastScroller.getFraction(thumbTop, TRACK, THUMB), 1e-6);
+        }
+        // dragged past the ends
+        assertEquals(1, MonthFastScroller.getFraction(-50, TRACK, THUMB), 0);
+        assertEquals(0, MonthFastScroller.getFraction(2000, TRACK, THUMB), 0);
+        assertEquals(0, MonthFastScroller.getFraction(0, THUMB, THUMB), 0);
+    }
+}
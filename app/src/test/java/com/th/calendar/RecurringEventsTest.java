@@ -0,0 +1,200 @@
+package com.th.calendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RecurringEventsTest {
+
+    private static final int RULE_COUNT = 1000;
+    private static final int FIRST_MONTH = CalendarDates.yearMonth(2015, Calendar.JANUARY);
+
+    private RecurringEvents mEvents;
+
+    @Before
+    public void setUp() throws Exception {
+        mEvents = new RecurringEvents();
+    }
+
+    @Test
+    public void rules_happenOnTheirDays() throws Exception {
+        // Wednesday
+        mEvents.put(1, new RecurrenceRule.Builder(RecurrenceRule.DAILY, 2017, Calendar.MARCH, 29).setInterval(3).build());
+        mEvents.put(2, new RecurrenceRule.Builder(RecurrenceRule.WEEKLY, 2017, Calendar.MARCH, 1)
+                .setInterval(2).setDaysOfWeek(Calendar.MONDAY, Calendar.WEDNESDAY).build());
+        mEvents.put(3, new RecurrenceRule.Builder(RecurrenceRule.MONTHLY, 2017, Calendar.JANUARY, 31).build());
+        mEvents.put(4, new RecurrenceRule.Builder(RecurrenceRule.YEARLY, 2016, Calendar.FEBRUARY, 29).build());
+
+        // every third day from the 29th of March
+        assertEquals(1, mEvents.getEventCount(2017, Calendar.APRIL, 1));
+        assertEquals(0, mEvents.getEventCount(2017, Calendar.APRIL, 2));
+        assertEquals(1, mEvents.getEventCount(2017, Calendar.APRIL, 4));
+        assertEquals(0, mEvents.getEventCount(2017, Calendar.MARCH, 26));
+        // Monday and Wednesday every other week: 1st, then 13th and 15th
+        assertEquals(1, mEvents.getEventCount(2017, Calendar.MARCH, 1));
+        assertEquals(0, mEvents.getEventCount(2017, Calendar.MARCH, 6));
+        assertEquals(0, mEvents.getEventCount(2017, Calendar.MARCH, 8));
+        assertEquals(1, mEvents.getEventCount(2017, Calendar.MARCH, 13));
+        assertEquals(1, mEvents.getEventCount(2017, Calendar.MARCH, 15));
+        // on the 31st, skipping shorter months
+        assertEquals(1, mEvents.getEventCount(2017, Calendar.MARCH, 31));
+        assertEquals(0, mEvents.getEventCount(2017, Calendar.APRIL, 30));
+        // on February 29th, leap years only
+        assertEquals(1, mEvents.getEventCount(2020, Calendar.FEBRUARY, 29));
+        assertEquals(0, mEvents.getEventCount(2017, Calendar.FEBRUARY, 28));
+    }
+
+    @Test
+    public void expansion_matchesCalendar() throws Exception {
+        Random random = new Random(1000);
+        RecurrenceRule[] rules = addRandomRules(random, 200);
+        for (int month = FIRST_MONTH; month < FIRST_MONTH + 36; month++) {
+            int[] expected = new int[CalendarDates.daysInMonth(month)];
+            for (RecurrenceRule rule : rules) {
+                countWithCalendar(rule, month, expected);
+            }
+            assertArrayEquals("month " + month, expected, mEvents.getMonthCounts(month));
+        }
+    }
+
+    @Test
+    public void months_areExpandedOnce() throws Exception {
+        addRandomRules(new Random(7), 10);
+        int[] counts = mEvents.getMonthCounts(FIRST_MONTH);
+        assertSame(counts, mEvents.getMonthCounts(FIRST_MONTH));
+    }
+
+    @Test
+    public void changedRule_updatesCachedMonths() throws Exception {
+        Random random = new Random(42);
+        addRandomRules(random, 100);
+        for (int month = FIRST_MONTH; month < FIRST_MONTH + 12; month++) {
+            mEvents.getMonthCounts(month);
+        }
+        final List<Integer> changedMonths = new ArrayList<>();
+        mEvents.addListener(new RecurringEvents.Listener() {
+            @Override
+            public void onRecurringEventsMonthChanged(int yearMonth) {
+                changedMonths.add(yearMonth);
+            }
+        });
+
+        // only the cached months the rule happens in
+        mEvents.put(1000, new RecurrenceRule.Builder(RecurrenceRule.YEARLY, 2015, Calendar.FEBRUARY, 1).build());
+        assertEquals(Collections.singletonList(FIRST_MONTH + 1), changedMonths);
+        changedMonths.clear();
+        mEvents.put(1001, new RecurrenceRule.Builder(RecurrenceRule.DAILY, 2020, Calendar.JANUARY, 1).build());
+        assertTrue(changedMonths.isEmpty());
+
+        mEvents.put(5, new RecurrenceRule.Builder(RecurrenceRule.DAILY, 2015, Calendar.MARCH, 3).setInterval(2).build());
+        mEvents.remove(17);
+        mEvents.put(1000, new RecurrenceRule.Builder(RecurrenceRule.WEEKLY, 2015, Calendar.JANUARY, 1).build());
+        assertTrue(changedMonths.contains(FIRST_MONTH));
+        for (int month : changedMonths) {
+            assertTrue(month >= FIRST_MONTH && month < FIRST_MONTH + 12);
+        }
+        for (int month = FIRST_MONTH; month < FIRST_MONTH + 12; month++) {
+            assertArrayEquals(mEvents.expandMonth(month), mEvents.getMonthCounts(month));
+        }
+    }
+
+    @Test
+    public void busyMonthExpansionCost() throws Exception {
+        addRandomRules(new Random(RULE_COUNT), RULE_COUNT);
+        int months = 240;
+        int warmUpChecksum = 0;
+        int checksum = 0;
+
+        // warm up so that the measured loop runs compiled code
+        for (int i = 0; i < months; i++) {
+            warmUpChecksum += mEvents.expandMonth(FIRST_MONTH + i % 36)[0];
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < months; i++) {
+            checksum += mEvents.expandMonth(FIRST_MONTH + i % 36)[0];
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(warmUpChecksum, checksum);
+        // a fraction of a frame, for the one bind of the month that expands it
+        assertTrue(elapsed / months < 3000000);
+    }
+
+    /**
+     * Add {@code count} rules of every frequency, starting in 2014 or 2015 and some ending in 2016.
+     */
+    private RecurrenceRule[] addRandomRules(Random random, int count) {
+        RecurrenceRule[] rules = new RecurrenceRule[count];
+        for (int i = 0; i < count; i++) {
+            int frequency = random.nextInt(4);
+            RecurrenceRule.Builder builder = new RecurrenceRule.Builder(frequency,
+                    2014 + random.nextInt(2), random.nextInt(12), 1 + random.nextInt(31))
+                    .setInterval(1 + random.nextInt(3));
+            if (frequency == RecurrenceRule.WEEKLY) {
+                builder.setDaysOfWeek(Calendar.SUNDAY + random.nextInt(7), Calendar.SUNDAY + random.nextInt(7));
+            }
+            if (random.nextBoolean()) {
+                Calendar end = Calendar.getInstance();
+                end.set(2016, random.nextInt(12), 1 + random.nextInt(28));
+                builder.setEnd(end);
+            }
+            rules[i] = builder.build();
+            mEvents.put(i, rules[i]);
+        }
+        return rules;
+    }
+
+    /**
+     * Count the occurrences of {@code rule} in {@code month} by stepping a {@link Calendar} from its
+     * start, the slow way the engine avoids.
+     */
+    private static void countWithCalendar(RecurrenceRule rule, int month, int[] counts) {
+        Calendar day = Calendar.getInstance();
+        day.clear();
+        int startMonth = CalendarDates.yearMonthOfEpochDay(rule.getStartDay());
+        day.set(CalendarDates.year(startMonth), CalendarDates.month(startMonth), CalendarDates.dayOfMonth(rule.getStartDay()));
+        Calendar start = (Calendar) day.clone();
+        int startDayOfMonth = day.get(Calendar.DAY_OF_MONTH);
+        int firstDay = CalendarDates.firstEpochDay(month);
+        for (int epochDay = rule.getStartDay(); epochDay < firstDay + counts.length && epochDay <= rule.getEndDay();
+             epochDay++, day.add(Calendar.DAY_OF_MONTH, 1)) {
+            if (epochDay < firstDay || !happensOn(rule, start, startDayOfMonth, day)) {
+                continue;
+            }
+            counts[epochDay - firstDay]++;
+        }
+    }
+
+    private static boolean happensOn(RecurrenceRule rule, Calendar start, int startDayOfMonth, Calendar day) {
+        int interval = rule.getInterval();
+        switch (rule.getFrequency()) {
+            case RecurrenceRule.DAILY:
+                return daysBetween(start, day) % interval == 0;
+            case RecurrenceRule.WEEKLY:
+                int weeks = (daysBetween(start, day) + start.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY) / 7;
+                return weeks % interval == 0 && rule.happensOnDayOfWeek(day.get(Calendar.DAY_OF_WEEK));
+            case RecurrenceRule.MONTHLY:
+                int months = (day.get(Calendar.YEAR) - start.get(Calendar.YEAR)) * 12 + day.get(Calendar.MONTH) - start.get(Calendar.MONTH);
+                return months % interval == 0 && day.get(Calendar.DAY_OF_MONTH) == startDayOfMonth;
+            default:
+                return (day.get(Calendar.YEAR) - start.get(Calendar.YEAR)) % interval == 0
+                        && day.get(Calendar.MONTH) == start.get(Calendar.MONTH)
+                        && day.get(Calendar.DAY_OF_MONTH) == startDayOfMonth;
+        }
+    }
+
+    private static int daysBetween(Calendar from, Calendar to) {
+        return CalendarDates.epochDay(to) - CalendarDates.epochDay(from);
+    }
+}
@@ -0,0 +1,88 @@
+package com.th.calendar;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that tapping a month of the year overview shows it in the pager without scrolling.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class YearOverviewTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1200;
+
+    private CalendarView mCalendarView;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mCalendarView = new CalendarView(activity);
+        mCalendarView.setCurrentMonth(2015, Calendar.MARCH);
+        layout(mCalendarView);
+    }
+
+    @Test
+    public void nextAndPrev_goThroughTheYears() throws Exception {
+        mCalendarView.setYearOverviewMode(true);
+        YearOverviewView overview = (YearOverviewView) mCalendarView.findViewById(R.id.year_overview);
+        assertEquals(2015, overview.getYear());
+
+        mCalendarView.findViewById(R.id.next).performClick();
+        mCalendarView.findViewById(R.id.next).performClick();
+        mCalendarView.findViewById(R.id.prev).performClick();
+        assertEquals(2016, overview.getYear());
+        // the pager stays on its month
+        assertEquals(2015, mCalendarView.getCurrentYear());
+    }
+
+    @Test
+    public void monthClick_showsMonthWithoutScrolling() throws Exception {
+        mCalendarView.setYearOverviewMode(true);
+        layout(mCalendarView);
+        View overview = mCalendarView.findViewById(R.id.year_overview);
+        // third row, second column: August
+        tap(overview, overview.getWidth() / 2, overview.getHeight() * 5 / 8);
+        layout(mCalendarView);
+
+        RecyclerView recyclerView = (RecyclerView) mCalendarView.findViewById(R.id.days);
+        assertFalse(mCalendarView.isYearOverviewMode());
+        assertTrue(recyclerView.getVisibility() == View.VISIBLE);
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, recyclerView.getScrollState());
+        assertEquals(2015, mCalendarView.getCurrentYear());
+        assertEquals(Calendar.AUGUST, mCalendarView.getCurrentMonth());
+    }
+
+    private static void tap(View view, float x, float y) {
+        long time = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, x, y, 0);
+        MotionEvent up = MotionEvent.obtain(time, time, MotionEvent.ACTION_UP, x, y, 0);
+        view.dispatchTouchEvent(down);
+        view.dispatchTouchEvent(up);
+        down.recycle();
+        up.recycle();
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
@@ -0,0 +1,48 @@
+package com.th.calendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the matrix rotation run by every {@code CalendarAdapter} constructor, and of filling the
+ * grids of 10 years through {@link MonthGrids}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalendarMatrixBenchmark {
+
+    private static final int GRID_MONTHS = 120;
+
+    private final int[] mCalendarMatrix = CalendarMatrix.create();
+    private final int[] mGrids = new int[GRID_MONTHS * MonthGrids.ITEM_PER_MONTH];
+
+    @Benchmark
+    public int[] create() {
+        return CalendarMatrix.create();
+    }
+
+    @Benchmark
+    public int[] invert() {
+        return CalendarMatrix.invert(mCalendarMatrix);
+    }
+
+    @Benchmark
+    public int[] fillGrids() {
+        MonthGrids.fill(2017, Calendar.JANUARY, GRID_MONTHS, Calendar.SUNDAY, mGrids, 0);
+        return mGrids;
+    }
+}
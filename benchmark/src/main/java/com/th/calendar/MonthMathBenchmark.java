@@ -0,0 +1,114 @@
+package com.th.calendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Month math of the adapter: the first day of the month of a position, the item count and the
+ * label of every cell of a month, next to the {@link Calendar} arithmetic the adapter started with.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MonthMathBenchmark {
+
+    private static final int ITEM_PER_MONTH = CalendarMatrix.ITEM_COUNT;
+    private static final int WINDOW_MONTH = 600;
+    private static final String[] DAY_LABELS = new String[32];
+
+    static {
+        for (int i = 1; i < DAY_LABELS.length; i++) {
+            DAY_LABELS[i] = String.valueOf(i);
+        }
+    }
+
+    private final MonthTable mMonthTable = new MonthTable();
+    private final int[] mCalendarMatrix = CalendarMatrix.create();
+    private Calendar mStartCalendar;
+    private Calendar mEndCalendar;
+    private int mEndMonth;
+    // walks the window so that every call looks at another month
+    private int mMonthOffset;
+
+    @Setup
+    public void setUp() {
+        mEndCalendar = Calendar.getInstance();
+        mEndCalendar.set(2100, Calendar.JANUARY, 1);
+        mStartCalendar = (Calendar) mEndCalendar.clone();
+        mStartCalendar.add(Calendar.MONTH, -(WINDOW_MONTH - 1));
+        mEndMonth = CalendarDates.yearMonth(mEndCalendar);
+        mMonthTable.build(mEndMonth - WINDOW_MONTH + 1, mEndMonth);
+    }
+
+    private int nextMonthOffset() {
+        mMonthOffset = mMonthOffset == WINDOW_MONTH - 1 ? 0 : mMonthOffset + 1;
+        return mMonthOffset;
+    }
+
+    @Benchmark
+    public int firstDayOfMonth_calendar() {
+        int monthOffset = nextMonthOffset();
+        Calendar calendar = (Calendar) mEndCalendar.clone();
+        calendar.add(Calendar.YEAR, -monthOffset / CalendarDates.MONTH_PER_YEAR);
+        calendar.add(Calendar.MONTH, -monthOffset % CalendarDates.MONTH_PER_YEAR);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        return calendar.get(Calendar.DAY_OF_WEEK) - 1 + calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+    }
+
+    @Benchmark
+    public int firstDayOfMonth_epochDay() {
+        int month = mEndMonth - nextMonthOffset();
+        return CalendarDates.dayOfWeek(CalendarDates.firstEpochDay(month)) + CalendarDates.daysInMonth(month);
+    }
+
+    @Benchmark
+    public int firstDayOfMonth_monthTable() {
+        int monthOffset = nextMonthOffset();
+        return mMonthTable.getFirstDayIndex(monthOffset) + mMonthTable.getDaysInMonth(monthOffset);
+    }
+
+    @Benchmark
+    public int itemCount_calendar() {
+        return ((mEndCalendar.get(Calendar.YEAR) - mStartCalendar.get(Calendar.YEAR)) * CalendarDates.MONTH_PER_YEAR
+                + mEndCalendar.get(Calendar.MONTH) - mStartCalendar.get(Calendar.MONTH) + 1) * ITEM_PER_MONTH;
+    }
+
+    @Benchmark
+    public int itemCount_monthTable() {
+        return mMonthTable.getMonthCount() * ITEM_PER_MONTH;
+    }
+
+    /**
+     * Labels of the 49 cells of a month, resolved through the calendar matrix as binding does.
+     */
+    @Benchmark
+    public void monthLabels(Blackhole blackhole) {
+        int monthOffset = nextMonthOffset();
+        for (int item = 0; item < ITEM_PER_MONTH; item++) {
+            if (item % CalendarDates.DAY_PER_WEEK != 0) {
+                blackhole.consume(DAY_LABELS[mMonthTable.getDayOfMonth(monthOffset, mCalendarMatrix[item])]);
+            }
+        }
+    }
+
+    @Benchmark
+    public MonthTable buildWindow() {
+        mMonthTable.build(mEndMonth - WINDOW_MONTH + 1, mEndMonth);
+        return mMonthTable;
+    }
+}
@@ -0,0 +1,98 @@
+package com.th.calendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arithmetic behind {@code CalendarSnapHelper}: the target of a fling, the distance to the snap
+ * page, and a burst of next/prev taps coalesced by {@link MonthNavigator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapBenchmark {
+
+    private static final int PAGE_WIDTH = 1080;
+    private static final int MONTH_COUNT = 600;
+    private static final int TAP_COUNT = 10;
+
+    private int mScrollOffset;
+    private int mCurrentMonth = MONTH_COUNT / 2;
+
+    private final MonthNavigator mNavigator = new MonthNavigator(new MonthNavigator.Host() {
+
+        @Override
+        public int getCurrentMonth() {
+            return mCurrentMonth;
+        }
+
+        @Override
+        public int getMonthCount() {
+            return MONTH_COUNT;
+        }
+
+        @Override
+        public void startListening() {
+        }
+
+        @Override
+        public void stopListening() {
+        }
+
+        @Override
+        public void smoothScrollToMonth(int month) {
+        }
+
+        @Override
+        public void scrollToMonth(int month) {
+            mCurrentMonth = month;
+        }
+    });
+
+    private int nextScrollOffset() {
+        // a third of a page further every call, wrapping at the last page
+        mScrollOffset = (mScrollOffset + PAGE_WIDTH / 3) % (PAGE_WIDTH * MONTH_COUNT);
+        return mScrollOffset;
+    }
+
+    @Benchmark
+    public int findTargetSnapPosition() {
+        int scrollOffset = nextScrollOffset();
+        int targetMonth = MonthNavigator.findTargetMonth(scrollOffset, PAGE_WIDTH, MONTH_COUNT, (scrollOffset & 1) == 0);
+        return MonthNavigator.getCenterPosition(targetMonth, CalendarMatrix.ITEM_COUNT);
+    }
+
+    @Benchmark
+    public int calculateDistanceToFinalSnap() {
+        int scrollOffset = nextScrollOffset();
+        return MonthNavigator.getSnapDistance(scrollOffset, PAGE_WIDTH, PAGE_WIDTH, (scrollOffset + PAGE_WIDTH / 2) / PAGE_WIDTH);
+    }
+
+    /**
+     * {@link #TAP_COUNT} next taps then as many prev taps, each burst settling once.
+     */
+    @Benchmark
+    public int nextPrevTaps() {
+        for (int i = 0; i < TAP_COUNT; i++) {
+            mNavigator.next();
+        }
+        mNavigator.onScrollIdle();
+        for (int i = 0; i < TAP_COUNT; i++) {
+            mNavigator.prev();
+        }
+        mNavigator.onScrollIdle();
+        return mCurrentMonth;
+    }
+}
@@ -0,0 +1,129 @@
+package com.th.calendar;
+
+import java.util.Calendar;
+
+/**
+ * Integer date arithmetic in the proleptic Gregorian calendar.
+ * <p>
+ * Months are handled as packed year-month values ({@code year * 12 + month}, month being
+ * {@link Calendar#JANUARY} based) and days as epoch days (days since 1970-01-01). Both are plain
+ * ints, so converting between adapter positions and dates never allocates nor looks up a time
+ * zone. {@link Calendar} is only used at the boundary, see {@link #yearMonth(Calendar)} and
+ * {@link #epochDay(Calendar)}.
+ */
+final class CalendarDates {
+
+    static final int MONTH_PER_YEAR = 12;
+    static final int DAY_PER_WEEK = 7;
+    // supported range, far beyond any calendar while keeping epoch days in an int
+    static final int MIN_MONTH = yearMonth(1, Calendar.JANUARY);
+    static final int MAX_MONTH = yearMonth(999999, Calendar.DECEMBER);
+    // no day, like no selection, below every supported epoch day
+    static final int NO_DAY = Integer.MIN_VALUE;
+
+    // days from 0000-03-01 to 1970-01-01
+    private static final int DAYS_0000_TO_1970 = 719468;
+    private static final int DAYS_PER_ERA = 146097;
+    private static final int YEAR_PER_ERA = 400;
+
+    private CalendarDates() {
+    }
+
+    static int yearMonth(int year, int month) {
+        return year * MONTH_PER_YEAR + month;
+    }
+
+    static int yearMonth(Calendar calendar) {
+        return yearMonth(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH));
+    }
+
+    static int year(int yearMonth) {
+        return floorDiv(yearMonth, MONTH_PER_YEAR);
+    }
+
+    static int month(int yearMonth) {
+        return floorMod(yearMonth, MONTH_PER_YEAR);
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int daysInMonth(int yearMonth) {
+        int month = month(yearMonth);
+        if (month == Calendar.FEBRUARY) {
+            return isLeapYear(year(yearMonth)) ? 29 : 28;
+        }
+        // 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 from March on
+        return month == Calendar.APRIL || month == Calendar.JUNE || month == Calendar.SEPTEMBER || month == Calendar.NOVEMBER ? 30 : 31;
+    }
+
+    static int epochDay(int year, int month, int dayOfMonth) {
+        // shift the year to start in March so that the leap day is the last day of the year
+        int y = month < Calendar.MARCH ? year - 1 : year;
+        int era = floorDiv(y, YEAR_PER_ERA);
+        int yearOfEra = y - era * YEAR_PER_ERA;
+        int dayOfYear = (153 * (month < Calendar.MARCH ? month + 10 : month - 2) + 2) / 5 + dayOfMonth - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    static int epochDay(Calendar calendar) {
+        return epochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    static int firstEpochDay(int yearMonth) {
+        return epochDay(year(yearMonth), month(yearMonth), 1);
+    }
+
+    /**
+     * @return index of the day in the week, {@code 0} being Sunday.
+     */
+    static int dayOfWeek(int epochDay) {
+        // 1970-01-01 was a Thursday
+        return floorMod(epochDay + 4, DAY_PER_WEEK);
+    }
+
+    static int yearMonthOfEpochDay(int epochDay) {
+        int dayOfEra = dayOfEra(epochDay);
+        int yearOfEra = yearOfEra(dayOfEra);
+        int shiftedMonth = shiftedMonth(dayOfEra, yearOfEra);
+        int month = shiftedMonth < 10 ? shiftedMonth + 2 : shiftedMonth - 10;
+        int year = yearOfEra + era(epochDay) * YEAR_PER_ERA + (month < Calendar.MARCH ? 1 : 0);
+        return yearMonth(year, month);
+    }
+
+    static int dayOfMonth(int epochDay) {
+        int dayOfEra = dayOfEra(epochDay);
+        int yearOfEra = yearOfEra(dayOfEra);
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        return dayOfYear - (153 * shiftedMonth(dayOfEra, yearOfEra) + 2) / 5 + 1;
+    }
+
+    private static int era(int epochDay) {
+        return floorDiv(epochDay + DAYS_0000_TO_1970, DAYS_PER_ERA);
+    }
+
+    private static int dayOfEra(int epochDay) {
+        return epochDay + DAYS_0000_TO_1970 - era(epochDay) * DAYS_PER_ERA;
+    }
+
+    private static int yearOfEra(int dayOfEra) {
+        return (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (DAYS_PER_ERA - 1)) / 365;
+    }
+
+    // month counted from March, 0 to 11
+    private static int shiftedMonth(int dayOfEra, int yearOfEra) {
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        return (5 * dayOfYear + 2) / 153;
+    }
+
+    static int floorDiv(int x, int y) {
+        int q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    static int floorMod(int x, int y) {
+        return x - floorDiv(x, y) * y;
+    }
+}
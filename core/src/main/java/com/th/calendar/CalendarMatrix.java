@@ -0,0 +1,59 @@
+package com.th.calendar;
+
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
+
+/**
+ * Mapping between the items of a month in the 49 items layout and the day positions of the month.
+ * <p>
+ * Items are laid out by column from the right, each column being a weekday title followed by the 6
+ * weeks of that weekday, while day positions count the days of the 6 weeks row by row from the
+ * Sunday of the first week.
+ */
+final class CalendarMatrix {
+
+    static final int ITEM_COUNT = DAY_PER_WEEK * DAY_PER_WEEK;
+    static final int DAY_POSITION_COUNT = DAY_PER_WEEK * 6;
+
+    private CalendarMatrix() {
+    }
+
+    /**
+     * @return day position of each item, {@code 0} for the weekday titles.
+     */
+    static int[] create() {
+        int[] calendarMatrix = new int[ITEM_COUNT];
+        int[][] matrix = new int[7][7];
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j < 7; j++) {
+                matrix[i][j] = i * 7 + j;
+            }
+        }
+
+        // rotate -90
+        int[][] rotateMatrix = new int[7][7];
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j < 7; j++) {
+                rotateMatrix[i][j] = matrix[j][6 - i];
+            }
+        }
+
+        // translate y + 1
+        for (int i = 0; i < 7; i++) {
+            System.arraycopy(rotateMatrix[i], 0, calendarMatrix, i * 7 + 1, 6);
+        }
+        return calendarMatrix;
+    }
+
+    /**
+     * @return item of each day position, the inverse of {@code calendarMatrix}.
+     */
+    static int[] invert(int[] calendarMatrix) {
+        int[] dayItems = new int[DAY_POSITION_COUNT];
+        for (int item = 0; item < calendarMatrix.length; item++) {
+            if (item % DAY_PER_WEEK != 0) {
+                dayItems[calendarMatrix[item]] = item;
+            }
+        }
+        return dayItems;
+    }
+}
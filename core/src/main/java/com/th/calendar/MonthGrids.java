@@ -0,0 +1,147 @@
+package com.th.calendar;
+
+import java.util.Calendar;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.th.calendar.CalendarDates.DAY_PER_WEEK;
+
+/**
+ * The month pages of {@code CalendarView} as plain ints, for jobs running without Android like
+ * exports rendering calendars or checks of event data.
+ * <p>
+ * A grid is the {@link #ITEM_PER_MONTH} items of a month page in adapter order: columns from the
+ * right, each being a weekday title followed by the 6 weeks of that weekday. Each item holds the
+ * day of month it shows, {@code 0} for the titles and the cells outside the month. Grids come from
+ * the same {@link CalendarMatrix} and {@link MonthTable} math as the adapter binds.
+ */
+public final class MonthGrids {
+
+    public static final int ITEM_PER_MONTH = CalendarMatrix.ITEM_COUNT;
+
+    // months filled by one fork/join task
+    private static final int SPLIT_MONTHS = 64;
+    private static final int[] CALENDAR_MATRIX = CalendarMatrix.create();
+
+    private MonthGrids() {
+    }
+
+    /**
+     * @return whether {@code item} is a weekday title rather than a day cell.
+     */
+    public static boolean isTitle(int item) {
+        return item % DAY_PER_WEEK == 0;
+    }
+
+    /**
+     * @param item           Item of the grid, {@code 0} to {@code ITEM_PER_MONTH - 1}.
+     * @param firstDayOfWeek Day of the week of the first column, like {@link Calendar#SUNDAY}.
+     * @return day of the week of the column of {@code item}, like {@link Calendar#MONDAY}.
+     */
+    public static int getDayOfWeek(int item, int firstDayOfWeek) {
+        // columns start from the right
+        return Calendar.SUNDAY + (firstDayOfWeek - Calendar.SUNDAY + DAY_PER_WEEK - 1 - item / DAY_PER_WEEK) % DAY_PER_WEEK;
+    }
+
+    /**
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     */
+    public static int getDaysInMonth(int year, int month) {
+        return CalendarDates.daysInMonth(CalendarDates.yearMonth(year, month));
+    }
+
+    /**
+     * @param month Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     * @return day of the week of the first day of the month, like {@link Calendar#MONDAY}.
+     */
+    public static int getFirstDayOfWeek(int year, int month) {
+        return Calendar.SUNDAY + CalendarDates.dayOfWeek(CalendarDates.epochDay(year, month, 1));
+    }
+
+    /**
+     * Fill {@code buffer} with the grids of {@code monthCount} months from {@code month} of
+     * {@code year} on, {@link #ITEM_PER_MONTH} ints each, without allocating.
+     *
+     * @param month          Month of the year, {@code 0} being {@link Calendar#JANUARY}.
+     * @param firstDayOfWeek Day of the week of the first column, like {@link Calendar#SUNDAY}.
+     * @param offset         Index of {@code buffer} receiving the first item of the first grid.
+     * @throws IllegalArgumentException when {@code buffer} is too small for the grids.
+     */
+    public static void fill(int year, int month, int monthCount, int firstDayOfWeek, int[] buffer, int offset) {
+        checkArguments(monthCount, firstDayOfWeek, buffer, offset);
+        fillMonths(CalendarDates.yearMonth(year, month), monthCount, firstDayOfWeek - Calendar.SUNDAY, buffer, offset);
+    }
+
+    /**
+     * Same as {@link #fill(int, int, int, int, int[], int)}, ranges of more than a few years
+     * being split across the threads of {@code pool}. Needs API level 21 on Android.
+     */
+    public static void fill(int year, int month, int monthCount, int firstDayOfWeek, int[] buffer, int offset,
+                            ForkJoinPool pool) {
+        checkArguments(monthCount, firstDayOfWeek, buffer, offset);
+        pool.invoke(new FillTask(CalendarDates.yearMonth(year, month), monthCount, firstDayOfWeek - Calendar.SUNDAY,
+                buffer, offset));
+    }
+
+    private static void checkArguments(int monthCount, int firstDayOfWeek, int[] buffer, int offset) {
+        if (monthCount < 0 || offset < 0 || offset + (long) monthCount * ITEM_PER_MONTH > buffer.length) {
+            throw new IllegalArgumentException(monthCount + " months from " + offset + " do not fit in "
+                    + buffer.length + " ints");
+        }
+        if (firstDayOfWeek < Calendar.SUNDAY || firstDayOfWeek > Calendar.SATURDAY) {
+            throw new IllegalArgumentException("Invalid day of the week " + firstDayOfWeek);
+        }
+    }
+
+    /**
+     * @param firstMonth Packed year-month, see {@link CalendarDates#yearMonth(int, int)}.
+     * @param weekStart  Day of the week of the first column, {@code 0} being Sunday.
+     */
+    static void fillMonths(int firstMonth, int monthCount, int weekStart, int[] buffer, int offset) {
+        int firstEpochDay = CalendarDates.firstEpochDay(firstMonth);
+        for (int i = 0; i < monthCount; i++) {
+            int daysInMonth = CalendarDates.daysInMonth(firstMonth + i);
+            int firstDayColumn = CalendarDates.floorMod(CalendarDates.dayOfWeek(firstEpochDay) - weekStart, DAY_PER_WEEK);
+            int start = offset + i * ITEM_PER_MONTH;
+            for (int item = 0; item < ITEM_PER_MONTH; item++) {
+                buffer[start + item] = isTitle(item) ? 0
+                        : MonthTable.dayOfMonth(CALENDAR_MATRIX[item], firstDayColumn, daysInMonth);
+            }
+            firstEpochDay += daysInMonth;
+        }
+    }
+
+    /**
+     * Fills its months, halving them between two tasks above {@link #SPLIT_MONTHS}.
+     */
+    private static final class FillTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int mFirstMonth;
+        private final int mMonthCount;
+        private final int mWeekStart;
+        private final int[] mBuffer;
+        private final int mOffset;
+
+        FillTask(int firstMonth, int monthCount, int weekStart, int[] buffer, int offset) {
+            mFirstMonth = firstMonth;
+            mMonthCount = monthCount;
+            mWeekStart = weekStart;
+            mBuffer = buffer;
+            mOffset = offset;
+        }
+
+        @Override
+        protected void compute() {
+            if (mMonthCount <= SPLIT_MONTHS) {
+                fillMonths(mFirstMonth, mMonthCount, mWeekStart, mBuffer, mOffset);
+                return;
+            }
+            int half = mMonthCount / 2;
+            invokeAll(new FillTask(mFirstMonth, half, mWeekStart, mBuffer, mOffset),
+                    new FillTask(mFirstMonth + half, mMonthCount - half, mWeekStart, mBuffer,
+                            mOffset + half * ITEM_PER_MONTH));
+        }
+    }
+}
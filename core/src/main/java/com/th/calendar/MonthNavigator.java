@@ -0,0 +1,185 @@
+package com.th.calendar;
+
+/**
+ * Coalesces next/prev taps into a single navigation towards a target month.
+ * <p>
+ * The first tap starts listening to the scroll through its {@link Host}, following taps only move
+ * the target, and the navigation ends when the scroll settles, so however fast the taps come there
+ * is at most one listener and one scroll in flight.
+ */
+class MonthNavigator {
+
+    private static final int NO_MONTH = -1;
+
+    private final Host mHost;
+    private int mTargetMonth = NO_MONTH;
+    // while jumping next to the target, stopping the scroll in flight reports an idle state
+    private boolean mJumping;
+
+    MonthNavigator(Host host) {
+        mHost = host;
+    }
+
+    /**
+     * @return adapter position of the middle item of the page of {@code month}.
+     */
+    static int getCenterPosition(int month, int itemPerMonth) {
+        return month * itemPerMonth + itemPerMonth / 2;
+    }
+
+    /**
+     * @param viewportSize Size of the view along the scroll, the page size when horizontal.
+     * @return scroll offset at which the page of {@code month} fills the view, or starts at the top
+     * of the view when vertical.
+     */
+    static int getSnapOffset(int month, int pageSize, int viewportSize) {
+        return Math.max(0, (month + 1) * pageSize - viewportSize);
+    }
+
+    /**
+     * @return distance left to scroll for the page of {@code month} to be at its snap offset.
+     */
+    static int getSnapDistance(int scrollOffset, int pageSize, int viewportSize, int month) {
+        return scrollOffset - getSnapOffset(month, pageSize, viewportSize);
+    }
+
+    /**
+     * @return distance left to scroll before the page of {@code month} starts showing, {@code 0}
+     * when it shows already.
+     */
+    static int getDistanceToMonth(int scrollOffset, int pageSize, int viewportSize, int month) {
+        long pageStart = (long) month * pageSize;
+        if (pageStart >= scrollOffset + viewportSize) {
+            return (int) (pageStart - scrollOffset - viewportSize);
+        }
+        return (int) Math.max(0, scrollOffset - (pageStart + pageSize));
+    }
+
+    /**
+     * @return month whose snap offset is the closest to {@code scrollOffset}.
+     */
+    static int findNearestMonth(int scrollOffset, int pageSize, int viewportSize, int monthCount) {
+        if (pageSize <= 0 || monthCount <= 0) {
+            return 0;
+        }
+        int month = (int) (((long) scrollOffset + viewportSize + pageSize / 2) / pageSize) - 1;
+        // the months whose start is below the top at offset 0 all snap to it, the latest of them
+        // being the closest when in between
+        int lowestMonth = Math.max(0, viewportSize / pageSize - 1);
+        if (month > lowestMonth && scrollOffset < Math.abs(getSnapOffset(month, pageSize, viewportSize) - scrollOffset)) {
+            month = lowestMonth;
+        }
+        return Math.max(0, Math.min(month, monthCount - 1));
+    }
+
+    /**
+     * Pages go from the first month on the right to the last one on the left, so the left most page
+     * shown is the one a fling started from.
+     *
+     * @param forward Whether the fling goes towards the first month.
+     * @return month a fling settles on, one page at most from the one it started from.
+     */
+    static int findTargetMonth(int scrollOffset, int pageWidth, int monthCount, boolean forward) {
+        int startMonth = (scrollOffset + pageWidth - 1) / pageWidth;
+        return Math.max(0, Math.min(forward ? startMonth - 1 : startMonth, monthCount - 1));
+    }
+
+    /**
+     * Navigate to the month after the current target, that is towards the first month of the adapter.
+     */
+    void next() {
+        navigate(-1);
+    }
+
+    /**
+     * Navigate to the month before the current target, that is towards the last month of the adapter.
+     */
+    void prev() {
+        navigate(1);
+    }
+
+    boolean isNavigating() {
+        return mTargetMonth != NO_MONTH;
+    }
+
+    /**
+     * @return month the navigation is heading to, or the current month when not navigating.
+     */
+    int getTargetMonth() {
+        return isNavigating() ? mTargetMonth : mHost.getCurrentMonth();
+    }
+
+    private void navigate(int monthDelta) {
+        int currentMonth = mHost.getCurrentMonth();
+        int targetMonth = Math.max(0, Math.min(getTargetMonth() + monthDelta, mHost.getMonthCount() - 1));
+        if (targetMonth == currentMonth) {
+            // at the ends of the range, or back to the month showing: no scroll would start to
+            // report its idle state
+            if (isNavigating()) {
+                finish(currentMonth);
+            }
+            return;
+        }
+        if (!isNavigating()) {
+            mHost.startListening();
+        }
+        mTargetMonth = targetMonth;
+        if (Math.abs(targetMonth - currentMonth) > 1) {
+            // jump next to the target rather than scrolling through the months in between
+            mJumping = true;
+            try {
+                mHost.scrollToMonth(targetMonth > currentMonth ? targetMonth - 1 : targetMonth + 1);
+            } finally {
+                mJumping = false;
+            }
+        }
+        mHost.smoothScrollToMonth(targetMonth);
+    }
+
+    /**
+     * Called once the scroll started by a navigation settles. Ignored for the scroll stopped by
+     * the navigation itself, when jumping next to its target.
+     */
+    void onScrollIdle() {
+        if (isNavigating() && !mJumping) {
+            finish(mTargetMonth);
+        }
+    }
+
+    /**
+     * Forget the navigation in progress, for instance when the user flings in between.
+     */
+    void cancel() {
+        if (isNavigating()) {
+            mTargetMonth = NO_MONTH;
+            mHost.stopListening();
+        }
+    }
+
+    private void finish(int month) {
+        mTargetMonth = NO_MONTH;
+        mHost.stopListening();
+        mHost.scrollToMonth(month);
+    }
+
+    interface Host {
+
+        /**
+         * @return month offset of the page currently shown.
+         */
+        int getCurrentMonth();
+
+        int getMonthCount();
+
+        /**
+         * Start reporting scroll idle to {@link #onScrollIdle()}.
+         */
+        void startListening();
+
+        void stopListening();
+
+        void smoothScrollToMonth(int month);
+
+        void scrollToMonth(int month);
+    }
+}
@@ -0,0 +1,111 @@
+package com.th.calendar;
+
+import java.util.Calendar;
+
+/**
+ * Geometry of every month between a start and an end month, stored in primitive arrays indexed
+ * by month offset from the end month (offset 0 is the end month, offset 1 the month before...).
+ * <p>
+ * The table is built once per range so that binding a day cell is a couple of array lookups
+ * instead of a {@link Calendar} clone and recalculation.
+ */
+class MonthTable {
+
+    private int mMonthCount;
+    private int[] mFirstEpochDay = new int[0];
+    private int[] mFirstDayIndex = new int[0];
+    private int[] mFirstDayColumn = new int[0];
+    private int[] mDaysInMonth = new int[0];
+    // day of the week of the first column, 0 being Sunday
+    private int mWeekStart;
+
+    /**
+     * Rebuild the table for the months from {@code startMonth} to {@code endMonth}, both
+     * inclusive.
+     *
+     * @param startMonth Packed year-month, see {@link CalendarDates#yearMonth(int, int)}.
+     * @param endMonth   Packed year-month, see {@link CalendarDates#yearMonth(int, int)}.
+     */
+    void build(int startMonth, int endMonth) {
+        mMonthCount = Math.max(endMonth - startMonth + 1, 0);
+        if (mFirstDayIndex.length < mMonthCount) {
+            mFirstEpochDay = new int[mMonthCount];
+            mFirstDayIndex = new int[mMonthCount];
+            mFirstDayColumn = new int[mMonthCount];
+            mDaysInMonth = new int[mMonthCount];
+        }
+
+        for (int i = 0; i < mMonthCount; i++) {
+            int yearMonth = endMonth - i;
+            mFirstEpochDay[i] = CalendarDates.firstEpochDay(yearMonth);
+            mFirstDayIndex[i] = CalendarDates.dayOfWeek(mFirstEpochDay[i]);
+            mFirstDayColumn[i] = CalendarDates.floorMod(mFirstDayIndex[i] - mWeekStart, CalendarDates.DAY_PER_WEEK);
+            mDaysInMonth[i] = CalendarDates.daysInMonth(yearMonth);
+        }
+    }
+
+    /**
+     * Start the weeks of the grid on {@code weekStart}, Sunday by default.
+     *
+     * @param weekStart Day of the week of the first column, {@code 0} being Sunday.
+     */
+    void setWeekStart(int weekStart) {
+        mWeekStart = weekStart;
+        for (int i = 0; i < mMonthCount; i++) {
+            mFirstDayColumn[i] = CalendarDates.floorMod(mFirstDayIndex[i] - weekStart, CalendarDates.DAY_PER_WEEK);
+        }
+    }
+
+    int getWeekStart() {
+        return mWeekStart;
+    }
+
+    int getMonthCount() {
+        return mMonthCount;
+    }
+
+    /**
+     * @return epoch day of the first day of the month, see {@link CalendarDates#epochDay(int, int, int)}.
+     */
+    int getFirstEpochDay(int monthOffset) {
+        return mFirstEpochDay[monthOffset];
+    }
+
+    /**
+     * @return index of the first day of the month in the week, {@code 0} being Sunday.
+     */
+    int getFirstDayIndex(int monthOffset) {
+        return mFirstDayIndex[monthOffset];
+    }
+
+    /**
+     * @return column of the first day of the month in the grid, {@code 0} being the week start.
+     */
+    int getFirstDayColumn(int monthOffset) {
+        return mFirstDayColumn[monthOffset];
+    }
+
+    int getDaysInMonth(int monthOffset) {
+        return mDaysInMonth[monthOffset];
+    }
+
+    /**
+     * Resolve the day of month shown at a day position of the month grid.
+     *
+     * @param monthOffset Month offset from the end calendar.
+     * @param dayPosition Position in the 6 weeks x 7 days grid, {@code week * 7 + column}.
+     * @return day of month, or {@code 0} when the position falls outside of the month.
+     */
+    int getDayOfMonth(int monthOffset, int dayPosition) {
+        return dayOfMonth(dayPosition, mFirstDayColumn[monthOffset], mDaysInMonth[monthOffset]);
+    }
+
+    /**
+     * @param firstDayColumn Column of the first day of the month, {@code 0} being the week start.
+     * @return day of month at {@code dayPosition}, or {@code 0} when outside of the month.
+     */
+    static int dayOfMonth(int dayPosition, int firstDayColumn, int daysInMonth) {
+        int day = dayPosition - firstDayColumn + 1;
+        return day >= 1 && day <= daysInMonth ? day : 0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.th.calendar;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link CalendarDates} against {@link java.util.Calendar} for every day of the range
+ * {@code CalendarView} shows.
+ */
+public class CalendarDatesTest {
+
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static GregorianCalendar utcCalendar() {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        return calendar;
+    }
+
+    @Test
+    public void everyDay_agreesWithCalendar() throws Exception {
+        GregorianCalendar calendar = utcCalendar();
+        calendar.set(1900, Calendar.JANUARY, 1);
+        while (calendar.get(Calendar.YEAR) <= 2100) {
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH);
+            int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+            int epochDay = (int) (calendar.getTimeInMillis() / MILLIS_PER_DAY);
+            String date = year + "-" + (month + 1) + "-" + dayOfMonth;
+
+            assertEquals(date, epochDay, CalendarDates.epochDay(year, month, dayOfMonth));
+            assertEquals(date, epochDay, CalendarDates.epochDay(calendar));
+            assertEquals(date, calendar.get(Calendar.DAY_OF_WEEK) - 1, CalendarDates.dayOfWeek(epochDay));
+            assertEquals(date, CalendarDates.yearMonth(year, month), CalendarDates.yearMonthOfEpochDay(epochDay));
+            assertEquals(date, dayOfMonth, CalendarDates.dayOfMonth(epochDay));
+
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    @Test
+    public void everyMonth_agreesWithCalendar() throws Exception {
+        GregorianCalendar calendar = utcCalendar();
+        calendar.set(1900, Calendar.JANUARY, 1);
+        while (calendar.get(Calendar.YEAR) <= 2100) {
+            int yearMonth = CalendarDates.yearMonth(calendar);
+            String month = calendar.get(Calendar.YEAR) + "-" + (calendar.get(Calendar.MONTH) + 1);
+
+            assertEquals(month, calendar.get(Calendar.YEAR), CalendarDates.year(yearMonth));
+            assertEquals(month, calendar.get(Calendar.MONTH), CalendarDates.month(yearMonth));
+            assertEquals(month, calendar.getActualMaximum(Calendar.DAY_OF_MONTH), CalendarDates.daysInMonth(yearMonth));
+            assertEquals(month, calendar.getTimeInMillis() / MILLIS_PER_DAY, CalendarDates.firstEpochDay(yearMonth));
+            assertEquals(month, calendar.isLeapYear(calendar.get(Calendar.YEAR)), CalendarDates.isLeapYear(CalendarDates.year(yearMonth)));
+
+            calendar.add(Calendar.MONTH, 1);
+        }
+    }
+
+    @Test
+    public void monthDistance_agreesWithCalendar() throws Exception {
+        Random random = new Random(1900);
+        GregorianCalendar calendar = utcCalendar();
+        for (int i = 0; i < 10000; i++) {
+            int year = 1900 + random.nextInt(201);
+            int month = random.nextInt(12);
+            int distance = random.nextInt(2 * 2412) - 2412;
+            calendar.clear();
+            calendar.set(year, month, 1);
+            calendar.add(Calendar.MONTH, distance);
+
+            assertEquals(CalendarDates.yearMonth(calendar), CalendarDates.yearMonth(year, month) + distance);
+        }
+    }
+
+    @Test
+    public void floorDivAndMod_roundTowardsNegativeInfinity() throws Exception {
+        assertEquals(-1, CalendarDates.floorDiv(-1, 12));
+        assertEquals(11, CalendarDates.floorMod(-1, 12));
+        assertEquals(-1, CalendarDates.floorDiv(-12, 12));
+        assertEquals(0, CalendarDates.floorMod(-12, 12));
+        assertEquals(1, CalendarDates.floorDiv(13, 12));
+        assertEquals(1, CalendarDates.floorMod(13, 12));
+        // 1969-12-31 was a Wednesday
+        assertEquals(Calendar.WEDNESDAY - 1, CalendarDates.dayOfWeek(-1));
+    }
+}
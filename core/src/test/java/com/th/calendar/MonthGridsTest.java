@@ -0,0 +1,104 @@
+package com.th.calendar;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MonthGridsTest {
+
+    // 1900 to 2099
+    private static final int MONTH_COUNT = 200 * 12;
+
+    @Test
+    public void fill_matchesTheAdapterMath() throws Exception {
+        int[] calendarMatrix = CalendarMatrix.create();
+        MonthTable monthTable = new MonthTable();
+        int firstMonth = CalendarDates.yearMonth(1900, Calendar.JANUARY);
+        monthTable.build(firstMonth, firstMonth + MONTH_COUNT - 1);
+        for (int weekStart = 0; weekStart < CalendarDates.DAY_PER_WEEK; weekStart++) {
+            monthTable.setWeekStart(weekStart);
+            int[] grids = new int[MONTH_COUNT * MonthGrids.ITEM_PER_MONTH];
+            MonthGrids.fill(1900, Calendar.JANUARY, MONTH_COUNT, Calendar.SUNDAY + weekStart, grids, 0);
+            for (int i = 0; i < MONTH_COUNT; i++) {
+                // the table counts months back from the end
+                int monthOffset = MONTH_COUNT - 1 - i;
+                for (int item = 0; item < MonthGrids.ITEM_PER_MONTH; item++) {
+                    int expected = MonthGrids.isTitle(item) ? 0 : monthTable.getDayOfMonth(monthOffset, calendarMatrix[item]);
+                    assertEquals(expected, grids[i * MonthGrids.ITEM_PER_MONTH + item]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fill_laysOutColumnsFromTheRight() throws Exception {
+        // August 2017 starts on a Tuesday
+        int[] grid = new int[MonthGrids.ITEM_PER_MONTH];
+        MonthGrids.fill(2017, Calendar.AUGUST, 1, Calendar.MONDAY, grid, 0);
+        assertEquals(Calendar.TUESDAY, MonthGrids.getFirstDayOfWeek(2017, Calendar.AUGUST));
+        assertEquals(31, MonthGrids.getDaysInMonth(2017, Calendar.AUGUST));
+        // the items from 42 are the leftmost column, Monday: the title then the Mondays of the 6 weeks
+        assertEquals(Calendar.MONDAY, MonthGrids.getDayOfWeek(42, Calendar.MONDAY));
+        assertArrayEquals(new int[]{0, 0, 7, 14, 21, 28, 0}, Arrays.copyOfRange(grid, 42, 49));
+        // the first items are the rightmost column, Sunday
+        assertEquals(Calendar.SUNDAY, MonthGrids.getDayOfWeek(0, Calendar.MONDAY));
+        assertArrayEquals(new int[]{0, 6, 13, 20, 27, 0, 0}, Arrays.copyOfRange(grid, 0, 7));
+    }
+
+    @Test
+    public void fill_agreesWithCalendar() throws Exception {
+        int[] grids = new int[12 * MonthGrids.ITEM_PER_MONTH + 3];
+        MonthGrids.fill(2016, Calendar.JANUARY, 12, Calendar.SUNDAY, grids, 3);
+        GregorianCalendar calendar = new GregorianCalendar(2016, Calendar.JANUARY, 1);
+        for (int i = 0; i < 12; i++) {
+            int[] dayCounts = new int[32];
+            for (int item = 0; item < MonthGrids.ITEM_PER_MONTH; item++) {
+                int day = grids[3 + i * MonthGrids.ITEM_PER_MONTH + item];
+                if (day != 0) {
+                    dayCounts[day]++;
+                    calendar.set(Calendar.DAY_OF_MONTH, day);
+                    assertEquals(calendar.get(Calendar.DAY_OF_WEEK), MonthGrids.getDayOfWeek(item, Calendar.SUNDAY));
+                }
+            }
+            for (int day = 1; day <= 31; day++) {
+                assertEquals(day <= calendar.getActualMaximum(Calendar.DAY_OF_MONTH) ? 1 : 0, dayCounts[day]);
+            }
+            calendar.add(Calendar.MONTH, 1);
+        }
+    }
+
+    @Test
+    public void parallelFill_matchesSequentialFill() throws Exception {
+        int[] expected = new int[MONTH_COUNT * MonthGrids.ITEM_PER_MONTH];
+        MonthGrids.fill(1900, Calendar.JANUARY, MONTH_COUNT, Calendar.SATURDAY, expected, 0);
+        int[] grids = new int[expected.length];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MonthGrids.fill(1900, Calendar.JANUARY, MONTH_COUNT, Calendar.SATURDAY, grids, 0, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(expected, grids);
+    }
+
+    @Test
+    public void fill_rejectsSmallBuffers() throws Exception {
+        try {
+            MonthGrids.fill(2017, Calendar.JANUARY, 2, Calendar.SUNDAY, new int[2 * MonthGrids.ITEM_PER_MONTH], 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            MonthGrids.fill(2017, Calendar.JANUARY, 1, 0, new int[MonthGrids.ITEM_PER_MONTH], 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.th.calendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MonthNavigatorTest {
+
+    private FakeHost mHost;
+    private MonthNavigator mNavigator;
+
+    @Before
+    public void setUp() throws Exception {
+        mHost = new FakeHost();
+        mHost.currentMonth = 100;
+        mNavigator = new MonthNavigator(mHost);
+        mHost.navigator = mNavigator;
+    }
+
+    @Test
+    public void rapidTaps_coalesceIntoOneNavigation() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            mNavigator.next();
+            assertEquals(1, mHost.listenerCount);
+            assertTrue(mHost.maxListenerCount <= 1);
+        }
+        assertEquals(50, mNavigator.getTargetMonth());
+        // the months in between are jumped over, only the last one is scrolled
+        assertEquals(51, mHost.currentMonth);
+        assertEquals(50, mHost.smoothScrollTarget);
+
+        mHost.currentMonth = mHost.smoothScrollTarget;
+        mNavigator.onScrollIdle();
+
+        assertFalse(mNavigator.isNavigating());
+        assertEquals(0, mHost.listenerCount);
+        assertEquals(1, mHost.maxListenerCount);
+        assertEquals(50, mHost.currentMonth);
+    }
+
+    @Test
+    public void mixedTaps_addUp() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            if (i % 5 == 0) {
+                mNavigator.prev();
+            } else {
+                mNavigator.next();
+            }
+        }
+        mNavigator.onScrollIdle();
+
+        assertEquals(100 - 40 + 10, mHost.currentMonth);
+        assertEquals(1, mHost.maxListenerCount);
+    }
+
+    @Test
+    public void taps_stopAtRangeEnds() throws Exception {
+        mHost.currentMonth = 1;
+        for (int i = 0; i < 50; i++) {
+            mNavigator.next();
+        }
+        assertEquals(0, mNavigator.getTargetMonth());
+
+        mNavigator.onScrollIdle();
+        mHost.currentMonth = mHost.monthCount - 2;
+        for (int i = 0; i < 50; i++) {
+            mNavigator.prev();
+        }
+        assertEquals(mHost.monthCount - 1, mNavigator.getTargetMonth());
+    }
+
+    @Test
+    public void tapsWhileSettling_keepOneNavigation() throws Exception {
+        mNavigator.next();
+        assertTrue(mHost.settling);
+        // far enough to jump, which stops the scroll in flight
+        mNavigator.next();
+        mNavigator.next();
+
+        assertTrue(mNavigator.isNavigating());
+        assertEquals(1, mHost.listenerCount);
+        assertEquals(1, mHost.maxListenerCount);
+        assertEquals(98, mHost.currentMonth);
+        assertEquals(97, mHost.smoothScrollTarget);
+        assertTrue(mHost.settling);
+
+        mHost.settle();
+        assertFalse(mNavigator.isNavigating());
+        assertEquals(0, mHost.listenerCount);
+        assertEquals(97, mHost.currentMonth);
+    }
+
+    @Test
+    public void tapsAtRangeEnds_doNotNavigate() throws Exception {
+        mHost.currentMonth = 0;
+        mNavigator.next();
+        assertFalse(mNavigator.isNavigating());
+        assertEquals(0, mHost.listenerCount);
+        assertEquals(-1, mHost.smoothScrollTarget);
+
+        mHost.currentMonth = mHost.monthCount - 1;
+        mNavigator.prev();
+        assertFalse(mNavigator.isNavigating());
+        assertEquals(0, mHost.listenerCount);
+        assertEquals(0, mHost.maxListenerCount);
+    }
+
+    @Test
+    public void tapBackToCurrentMonth_endsNavigation() throws Exception {
+        mNavigator.next();
+        assertTrue(mNavigator.isNavigating());
+        mNavigator.prev();
+
+        assertFalse(mNavigator.isNavigating());
+        assertEquals(0, mHost.listenerCount);
+        assertEquals(100, mHost.currentMonth);
+    }
+
+    @Test
+    public void cancel_releasesListener() throws Exception {
+        mNavigator.next();
+        mNavigator.cancel();
+
+        assertFalse(mNavigator.isNavigating());
+        assertEquals(0, mHost.listenerCount);
+        assertEquals(100, mNavigator.getTargetMonth());
+    }
+
+    @Test
+    public void horizontalPages_snapWhenFillingTheView() throws Exception {
+        assertEquals(0, MonthNavigator.getSnapOffset(0, 1080, 1080));
+        assertEquals(3 * 1080, MonthNavigator.getSnapOffset(3, 1080, 1080));
+        assertEquals(1, MonthNavigator.findNearestMonth(1080 + 539, 1080, 1080, 600));
+        assertEquals(2, MonthNavigator.findNearestMonth(1080 + 540, 1080, 1080, 600));
+        assertEquals(599, MonthNavigator.findNearestMonth(Integer.MAX_VALUE - 1080, 1080, 1080, 600));
+    }
+
+    @Test
+    public void verticalPages_snapOnMonthStarts() throws Exception {
+        // two and a half months show at once
+        int pageSize = 400;
+        int viewportSize = 1000;
+        assertEquals(0, MonthNavigator.getSnapOffset(0, pageSize, viewportSize));
+        assertEquals(0, MonthNavigator.getSnapOffset(1, pageSize, viewportSize));
+        assertEquals(200, MonthNavigator.getSnapOffset(2, pageSize, viewportSize));
+        assertEquals(600, MonthNavigator.getSnapOffset(3, pageSize, viewportSize));
+
+        // at the first month, the top one starting in the view is the current one
+        assertEquals(1, MonthNavigator.findNearestMonth(0, pageSize, viewportSize, 600));
+        assertEquals(1, MonthNavigator.findNearestMonth(99, pageSize, viewportSize, 600));
+        assertEquals(2, MonthNavigator.findNearestMonth(101, pageSize, viewportSize, 600));
+        assertEquals(3, MonthNavigator.findNearestMonth(600 + 199, pageSize, viewportSize, 600));
+        assertEquals(-40, MonthNavigator.getSnapDistance(560, pageSize, viewportSize, 3));
+    }
+
+    @Test
+    public void distanceToMonth_countsFromTheViewEdges() throws Exception {
+        int pageSize = 400;
+        int viewportSize = 1000;
+        // months 1 to 3 show at offset 500
+        assertEquals(0, MonthNavigator.getDistanceToMonth(500, pageSize, viewportSize, 1));
+        assertEquals(0, MonthNavigator.getDistanceToMonth(500, pageSize, viewportSize, 3));
+        assertEquals(100, MonthNavigator.getDistanceToMonth(500, pageSize, viewportSize, 0));
+        assertEquals(100, MonthNavigator.getDistanceToMonth(500, pageSize, viewportSize, 4));
+        assertEquals(500, MonthNavigator.getDistanceToMonth(500, pageSize, viewportSize, 5));
+    }
+
+    private static class FakeHost implements MonthNavigator.Host {
+
+        int currentMonth;
+        int monthCount = 2412;
+        int listenerCount;
+        int maxListenerCount;
+        int smoothScrollTarget = -1;
+        boolean settling;
+        MonthNavigator navigator;
+
+        @Override
+        public int getCurrentMonth() {
+            return currentMonth;
+        }
+
+        @Override
+        public int getMonthCount() {
+            return monthCount;
+        }
+
+        @Override
+        public void startListening() {
+            maxListenerCount = Math.max(maxListenerCount, ++listenerCount);
+        }
+
+        @Override
+        public void stopListening() {
+            listenerCount--;
+        }
+
+        @Override
+        public void smoothScrollToMonth(int month) {
+            smoothScrollTarget = month;
+            settling = true;
+        }
+
+        @Override
+        public void scrollToMonth(int month) {
+            currentMonth = month;
+            // like RecyclerView.scrollToPosition, stopping the scroll in flight
+            if (settling) {
+                settling = false;
+                navigator.onScrollIdle();
+            }
+        }
+
+        void settle() {
+            currentMonth = smoothScrollTarget;
+            settling = false;
+            navigator.onScrollIdle();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.th.calendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+
+public class MonthTableTest {
+
+    private Calendar mStartCalendar;
+    private Calendar mEndCalendar;
+    private MonthTable mMonthTable;
+
+    @Before
+    public void setUp() throws Exception {
+        mStartCalendar = Calendar.getInstance();
+        mEndCalendar = Calendar.getInstance();
+        mStartCalendar.set(1900, 0, 1);
+        mEndCalendar.set(2100, 0, 1);
+        mMonthTable = new MonthTable();
+        mMonthTable.build(CalendarDates.yearMonth(mStartCalendar), CalendarDates.yearMonth(mEndCalendar));
+    }
+
+    @Test
+    public void build_matchesCalendar() throws Exception {
+        assertEquals(200 * 12 + 1, mMonthTable.getMonthCount());
+
+        Calendar calendar = (Calendar) mEndCalendar.clone();
+        for (int i = 0; i < mMonthTable.getMonthCount(); i++) {
+            assertEquals(CalendarDates.epochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), 1),
+                    mMonthTable.getFirstEpochDay(i));
+            assertEquals(calendar.get(Calendar.DAY_OF_WEEK) - 1, mMonthTable.getFirstDayIndex(i));
+            assertEquals(calendar.getActualMaximum(Calendar.DAY_OF_MONTH), mMonthTable.getDaysInMonth(i));
+            calendar.add(Calendar.MONTH, -1);
+        }
+    }
+
+    @Test
+    public void getDayOfMonth_resolvesGrid() throws Exception {
+        // January 2100 starts on a Friday
+        assertEquals(5, mMonthTable.getFirstDayIndex(0));
+        assertEquals(0, mMonthTable.getDayOfMonth(0, 4));
+        assertEquals(1, mMonthTable.getDayOfMonth(0, 5));
+        assertEquals(31, mMonthTable.getDayOfMonth(0, 35));
+        assertEquals(0, mMonthTable.getDayOfMonth(0, 36));
+    }
+
+    @Test
+    public void setWeekStart_shiftsColumns() throws Exception {
+        // Monday first, the Friday January 1st 2100 is in the fifth column
+        mMonthTable.setWeekStart(Calendar.MONDAY - Calendar.SUNDAY);
+        assertEquals(5, mMonthTable.getFirstDayIndex(0));
+        assertEquals(4, mMonthTable.getFirstDayColumn(0));
+        assertEquals(1, mMonthTable.getDayOfMonth(0, 4));
+        assertEquals(31, mMonthTable.getDayOfMonth(0, 34));
+
+        // kept by the next build, Saturday first
+        mMonthTable.setWeekStart(Calendar.SATURDAY - Calendar.SUNDAY);
+        mMonthTable.build(CalendarDates.yearMonth(mStartCalendar), CalendarDates.yearMonth(mEndCalendar));
+        assertEquals(6, mMonthTable.getFirstDayColumn(0));
+        assertEquals(1, mMonthTable.getDayOfMonth(0, 6));
+    }
+
+    @Test
+    public void getDayOfMonth_doesNotAllocate() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int monthCount = mMonthTable.getMonthCount();
+        int checksum = 0;
+
+        // warm up so that the measured loop runs compiled code
+        for (int i = 0; i < monthCount * 42; i++) {
+            checksum += mMonthTable.getDayOfMonth(i / 42, i % 42);
+        }
+
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < monthCount * 42; i++) {
+            checksum += mMonthTable.getDayOfMonth(i / 42, i % 42);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertEquals("bytes allocated while resolving " + monthCount + " months, checksum " + checksum, 0, allocated);
+    }
+}